@@ -1,11 +1,14 @@
 package Commune.Dev.Config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Configuration pour l'exécution asynchrone des tâches
@@ -29,4 +32,61 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Pool borné des workers de génération des reçus.
+     * En fin de marché, les paiements arrivent plus vite que les reçus ne se génèrent : ils
+     * attendent dans la file. File pleine : la tâche est refusée (jamais exécutée par le thread
+     * appelant) et le balayage de RecuService la reprend plus tard.
+     */
+    @Bean(name = "recuExecutor")
+    public ThreadPoolTaskExecutor recuExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(5000);
+        executor.setThreadNamePrefix("recu-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool borné de l'analyse des contrats : une tranche de marchands par thread.
+     * Chaque tranche tient une connexion pendant sa transaction : rester sous la taille du pool Hikari.
+     */
+    @Bean(name = "analyseContratsExecutor")
+    public ThreadPoolTaskExecutor analyseContratsExecutor(
+            @Value("${app.contrats.analyse.paralleles:3}") int paralleles) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(paralleles);
+        executor.setMaxPoolSize(paralleles);
+        executor.setThreadNamePrefix("analyse-contrats-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Exécutions manuelles des tâches planifiées (TacheService), hors du thread de la requête.
+     * Pas de file : au-delà de deux exécutions manuelles simultanées, le déclenchement est refusé.
+     */
+    @Bean(name = "tachesExecutor")
+    public ThreadPoolTaskExecutor tachesExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("tache-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Threads virtuels pour le chargement parallèle des sections de synchronisation.
+     * Le nombre de connexions utilisées est limité dans SyncService, pas ici.
+     */
+    @Bean(name = "syncExecutor", destroyMethod = "close")
+    public ExecutorService syncExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
 }
@@ -0,0 +1,42 @@
+package Commune.Dev.Config;
+
+import Commune.Dev.Models.ExecutionTache.Declenchement;
+import Commune.Dev.Services.SessionService;
+import Commune.Dev.Services.TachePlanifiee;
+import Commune.Dev.Services.TacheService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class FermetureSessionsScheduler implements TachePlanifiee {
+
+    private final SessionService sessionService;
+    private final TacheService tacheService;
+
+    public FermetureSessionsScheduler(SessionService sessionService, TacheService tacheService) {
+        this.sessionService = sessionService;
+        this.tacheService = tacheService;
+    }
+
+    // Toutes les minutes
+    @Scheduled(cron = "0 */1 * * * *")
+    public void fermerSessionsExpirees() {
+        tacheService.executer(this, Declenchement.PLANIFIE);
+    }
+
+    @Override
+    public String nom() {
+        return "fermeture-sessions";
+    }
+
+    @Override
+    public int executer() {
+        return sessionService.autoCloseExpiredSessions();
+    }
+
+    // Lancée chaque minute, le plus souvent sans session à fermer
+    @Override
+    public boolean historiserSansEffet() {
+        return false;
+    }
+}
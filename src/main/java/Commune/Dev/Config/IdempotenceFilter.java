@@ -0,0 +1,233 @@
+package Commune.Dev.Config;
+
+import Commune.Dev.Models.RequeteIdempotente;
+import Commune.Dev.Services.IdempotenceService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Prise en charge de l'en-tête Idempotency-Key sur les créations de paiements.
+ * Le premier envoi d'une clé est exécuté et sa réponse mémorisée ; les renvois de la même
+ * requête reçoivent la réponse d'origine sans repasser par PaiementService.
+ * Les clés sont propres à chaque utilisateur : la même clé envoyée par deux comptes
+ * désigne deux requêtes distinctes.
+ * Sans en-tête, la requête est traitée comme avant.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotenceFilter extends OncePerRequestFilter {
+
+    public static final String ENTETE_CLE = "Idempotency-Key";
+    public static final String ENTETE_REJOUEE = "Idempotent-Replayed";
+
+    private static final int LONGUEUR_CLE_MAX = 100;
+
+    private static final Set<String> CHEMINS = Set.of(
+            "/api/paiements",
+            "/api/paiements/multiple",
+            "/api/paiements/hors-ligne"
+    );
+
+    private final IdempotenceService idempotenceService;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || request.getHeader(ENTETE_CLE) == null
+                || !CHEMINS.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        String cle = request.getHeader(ENTETE_CLE).trim();
+        if (cle.isEmpty() || cle.length() > LONGUEUR_CLE_MAX) {
+            repondreErreur(response, HttpStatus.BAD_REQUEST,
+                    "L'en-tête " + ENTETE_CLE + " doit contenir entre 1 et " + LONGUEUR_CLE_MAX + " caractères");
+            return;
+        }
+
+        cle = cleUtilisateur(cle);
+        CorpsRelisible requeteRelisible = new CorpsRelisible(request);
+        String empreinte = empreinte(request, requeteRelisible.corps);
+
+        // 🔁 Requête déjà reçue : on rejoue la réponse d'origine
+        Optional<RequeteIdempotente> existante = idempotenceService.chercher(cle);
+        if (existante.isPresent()) {
+            rejouer(existante.get(), empreinte, response);
+            return;
+        }
+
+        IdempotenceService.Reservation reservation = idempotenceService.reserver(cle, empreinte);
+        if (reservation == null) {
+            // Réservée entre la recherche et la réservation par un envoi simultané, ou encore
+            // tenue par la transaction de paiement d'un envoi plus ancien
+            Optional<RequeteIdempotente> concurrente = idempotenceService.chercher(cle);
+            if (concurrente.isPresent()) {
+                rejouer(concurrente.get(), empreinte, response);
+            } else {
+                repondreErreur(response, HttpStatus.CONFLICT, "Requête en cours de traitement, réessayez plus tard");
+            }
+            return;
+        }
+
+        // Lue par IdempotenceService dans la transaction des paiements
+        requeteRelisible.setAttribute(IdempotenceService.ATTRIBUT_RESERVATION, reservation);
+        ContentCachingResponseWrapper reponse = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(requeteRelisible, reponse);
+        } catch (ServletException | IOException | RuntimeException e) {
+            idempotenceService.liberer(reservation);
+            throw e;
+        }
+
+        // Seules les réussites sont rejouées : un échec a annulé sa transaction et peut être retenté
+        if (reponse.getStatus() >= 200 && reponse.getStatus() < 300) {
+            idempotenceService.terminer(reservation, reponse.getStatus(), reponse.getContentType(),
+                    reponse.getContentAsByteArray());
+        } else {
+            idempotenceService.liberer(reservation);
+        }
+        reponse.copyBodyToResponse();
+    }
+
+    private void rejouer(RequeteIdempotente requete, String empreinte, HttpServletResponse response) throws IOException {
+        if (!requete.getEmpreinteRequete().equals(empreinte)) {
+            repondreErreur(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Cette clé " + ENTETE_CLE + " a déjà été utilisée pour une autre requête");
+            return;
+        }
+        if (idempotenceService.executeeSansReponse(requete)) {
+            // Paiements validés mais réponse perdue : la requête n'est pas réexécutée
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.setHeader(ENTETE_REJOUEE, "true");
+            response.getWriter().write("{\"success\":true,\"message\":\"Requête déjà exécutée, réponse d'origine indisponible\","
+                    + "\"paiementIds\":[" + requete.getPaiementIds() + "]}");
+            return;
+        }
+        if (requete.getStatut() == RequeteIdempotente.Statut.EN_COURS) {
+            repondreErreur(response, HttpStatus.CONFLICT, "Requête en cours de traitement, réessayez plus tard");
+            return;
+        }
+
+        response.setStatus(requete.getCodeHttp());
+        if (requete.getTypeContenu() != null) {
+            response.setContentType(requete.getTypeContenu());
+        }
+        response.setHeader(ENTETE_REJOUEE, "true");
+        if (requete.getCorpsReponse() != null) {
+            response.setContentLength(requete.getCorpsReponse().length);
+            response.getOutputStream().write(requete.getCorpsReponse());
+        }
+    }
+
+    private void repondreErreur(HttpServletResponse response, HttpStatus statut, String message) throws IOException {
+        response.setStatus(statut.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"success\":false,\"message\":\"" + message.replace("\"", "\\\"") + "\"}");
+    }
+
+    // Clé stockée : SHA-256 de l'utilisateur authentifié et de la clé reçue (longueur fixe)
+    private static String cleUtilisateur(String cle) {
+        Authentication authentification = SecurityContextHolder.getContext().getAuthentication();
+        String utilisateur = authentification != null && authentification.isAuthenticated()
+                ? authentification.getName() : "anonyme";
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((utilisateur + "\n" + cle).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    private static String empreinte(HttpServletRequest request, byte[] corps) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((request.getMethod() + " " + request.getRequestURI() + "\n").getBytes(StandardCharsets.UTF_8));
+            digest.update(corps);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    // Le corps est lu une fois pour l'empreinte, puis servi tel quel au contrôleur
+    private static class CorpsRelisible extends HttpServletRequestWrapper {
+
+        private final byte[] corps;
+
+        CorpsRelisible(HttpServletRequest request) throws IOException {
+            super(request);
+            this.corps = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream flux = new ByteArrayInputStream(corps);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return flux.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return flux.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return flux.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
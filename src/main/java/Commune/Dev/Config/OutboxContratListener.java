@@ -0,0 +1,30 @@
+package Commune.Dev.Config;
+
+import Commune.Dev.Models.Contrat;
+import Commune.Dev.Models.EvenementSortant.TypeEvenement;
+import Commune.Dev.Services.OutboxService;
+import jakarta.persistence.PostPersist;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA qui publie dans l'outbox chaque création de contrat, quel que soit le service
+ * qui l'a faite (contrats, import des marchands). L'insertion (identifiant IDENTITY) a lieu au
+ * save, donc avant le commit. Les modifications et suppressions, envoyées au flush du commit,
+ * sont publiées explicitement par les services (OutboxService.publierContrat).
+ */
+@Component
+public class OutboxContratListener {
+
+    // Résolu à l'usage : le listener est créé pendant le démarrage d'Hibernate
+    private final ObjectProvider<OutboxService> outboxService;
+
+    public OutboxContratListener(ObjectProvider<OutboxService> outboxService) {
+        this.outboxService = outboxService;
+    }
+
+    @PostPersist
+    public void contratCree(Contrat contrat) {
+        outboxService.getObject().publierContrat(TypeEvenement.CONTRAT_CREE, contrat);
+    }
+}
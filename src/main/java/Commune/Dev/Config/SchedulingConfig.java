@@ -0,0 +1,64 @@
+package Commune.Dev.Config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Ordonnanceurs des méthodes @Scheduled.
+ * Par défaut Spring n'a qu'un thread : l'analyse des contrats de 07:50 retenait la fermeture
+ * des sessions, le balayage des reçus et le relais de l'outbox pendant toute sa durée.
+ * La planification peut être coupée (app.taches.planification=false), par exemple pendant
+ * les mesures de charge ; le déclenchement manuel des tâches reste possible.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    /**
+     * Pool des tâches planifiées, utilisé par défaut par les méthodes @Scheduled
+     */
+    @Bean(name = "taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${app.taches.paralleles:4}") int paralleles) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(paralleles);
+        scheduler.setThreadNamePrefix("planif-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        scheduler.initialize();
+        return scheduler;
+    }
+
+    /**
+     * Thread réservé au relais de l'outbox : une tâche longue ne retarde jamais la livraison
+     * des événements (recalcul des statuts quelques secondes après le commit).
+     */
+    @Bean(name = "relaisOutboxScheduler")
+    public ThreadPoolTaskScheduler relaisOutboxScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("relais-outbox-");
+        scheduler.initialize();
+        return scheduler;
+    }
+
+    /**
+     * Thread réservé au renouvellement des baux des tâches en cours (TacheService) : il ne
+     * dépend pas des threads occupés par les tâches elles-mêmes.
+     */
+    @Bean(name = "bailTachesScheduler")
+    public ThreadPoolTaskScheduler bailTachesScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("bail-taches-");
+        scheduler.initialize();
+        return scheduler;
+    }
+
+    @Configuration
+    @EnableScheduling
+    @ConditionalOnProperty(name = "app.taches.planification", havingValue = "true", matchIfMissing = true)
+    static class Planification {
+    }
+}
@@ -0,0 +1,41 @@
+package Commune.Dev.Config;
+
+import Commune.Dev.Models.Halls;
+import Commune.Dev.Models.Marchee;
+import Commune.Dev.Models.Zone;
+import Commune.Dev.Services.SyncEmpreinteService;
+import Commune.Dev.Services.SyncEmpreinteService.SectionReference;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA qui invalide les empreintes des sections de référence de la synchronisation
+ * (marchés, zones, halls) quand une de ces entités est créée, modifiée ou supprimée.
+ */
+@Component
+public class SyncEmpreinteListener {
+
+    // Résolu à l'usage : le listener est créé pendant le démarrage d'Hibernate
+    private final ObjectProvider<SyncEmpreinteService> empreinteService;
+
+    public SyncEmpreinteListener(ObjectProvider<SyncEmpreinteService> empreinteService) {
+        this.empreinteService = empreinteService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void invaliderEmpreintes(Object entite) {
+        if (entite instanceof Marchee) {
+            // La section zones contient le nom du marché
+            empreinteService.getObject().invalider(SectionReference.MARCHEES, SectionReference.ZONES);
+        } else if (entite instanceof Zone) {
+            empreinteService.getObject().invalider(SectionReference.ZONES);
+        } else if (entite instanceof Halls) {
+            empreinteService.getObject().invalider(SectionReference.HALLS);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package Commune.Dev.Config;
+
+import Commune.Dev.Models.*;
+import Commune.Dev.Repositories.SyncSuppressionRepository;
+import jakarta.persistence.PreRemove;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Listener JPA qui enregistre les suppressions des entités synchronisées
+ * (Place, Marchands, Paiement, Quittance, Session).
+ * Les traces sont écrites juste avant le commit, dans la même transaction
+ * que la suppression, y compris pour les suppressions en cascade.
+ */
+@Component
+public class SyncSuppressionListener {
+
+    private static final Object CLE_RESSOURCE = new Object();
+
+    // Résolu à l'usage : le listener est créé pendant le démarrage d'Hibernate
+    private final ObjectProvider<SyncSuppressionRepository> suppressionRepository;
+
+    public SyncSuppressionListener(ObjectProvider<SyncSuppressionRepository> suppressionRepository) {
+        this.suppressionRepository = suppressionRepository;
+    }
+
+    @PreRemove
+    public void enregistrerSuppression(Object entite) {
+        SyncSuppression suppression = versSuppression(entite);
+        if (suppression == null) return;
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            suppressionRepository.getObject().save(suppression);
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<SyncSuppression> enAttente =
+                (List<SyncSuppression>) TransactionSynchronizationManager.getResource(CLE_RESSOURCE);
+
+        if (enAttente == null) {
+            List<SyncSuppression> nouvelles = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(CLE_RESSOURCE, nouvelles);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    suppressionRepository.getObject().saveAll(nouvelles);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CLE_RESSOURCE);
+                }
+            });
+            enAttente = nouvelles;
+        }
+
+        enAttente.add(suppression);
+    }
+
+    private SyncSuppression versSuppression(Object entite) {
+        SyncSuppression suppression = new SyncSuppression();
+        Long id;
+
+        if (entite instanceof Place place) {
+            suppression.setEntityType(SyncSuppression.EntiteSync.PLACE);
+            id = place.getId() != null ? place.getId().longValue() : null;
+            porteePlace(suppression, place);
+        } else if (entite instanceof Marchands marchand) {
+            suppression.setEntityType(SyncSuppression.EntiteSync.MARCHAND);
+            id = marchand.getId() != null ? marchand.getId().longValue() : null;
+            if (marchand.getPlaces() != null && !marchand.getPlaces().isEmpty()) {
+                porteePlace(suppression, marchand.getPlaces().get(0));
+            }
+        } else if (entite instanceof Paiement paiement) {
+            suppression.setEntityType(SyncSuppression.EntiteSync.PAIEMENT);
+            id = paiement.getId() != null ? paiement.getId().longValue() : null;
+            porteePlace(suppression, paiement.getPlace());
+            if (paiement.getSession() != null && paiement.getSession().getUser() != null) {
+                suppression.setUserId(paiement.getSession().getUser().getId());
+            }
+        } else if (entite instanceof Quittance quittance) {
+            suppression.setEntityType(SyncSuppression.EntiteSync.QUITTANCE);
+            id = quittance.getId();
+            suppression.setUserId(quittance.getPercepteurId());
+        } else if (entite instanceof Session session) {
+            suppression.setEntityType(SyncSuppression.EntiteSync.SESSION);
+            id = session.getId();
+            suppression.setUserId(session.getUser() != null ? session.getUser().getId() : null);
+        } else {
+            return null;
+        }
+
+        if (id == null) return null;
+
+        suppression.setEntityId(id);
+        suppression.setDeletedAt(LocalDateTime.now());
+        return suppression;
+    }
+
+    // Rattachement de la place, tel que lu par le filtre de territoire de la synchronisation
+    private static void porteePlace(SyncSuppression suppression, Place place) {
+        if (place == null) return;
+        suppression.setMarcheeId(place.getMarchee() != null ? place.getMarchee().getId() : null);
+        suppression.setZoneId(place.getZone() != null ? place.getZone().getId() : null);
+        suppression.setHallId(place.getHall() != null ? place.getHall().getId() : null);
+    }
+}
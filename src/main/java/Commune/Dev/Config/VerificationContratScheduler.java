@@ -1,24 +1,36 @@
 package Commune.Dev.Config;
 
+import Commune.Dev.Models.ExecutionTache.Declenchement;
 import Commune.Dev.Services.ContratMonitoringService;
-import org.springframework.scheduling.annotation.EnableScheduling;
+import Commune.Dev.Services.TachePlanifiee;
+import Commune.Dev.Services.TacheService;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 @Component
-@EnableScheduling
-public class VerificationContratScheduler {
+public class VerificationContratScheduler implements TachePlanifiee {
 
     private final ContratMonitoringService contratMonitoringService;
+    private final TacheService tacheService;
 
-    public VerificationContratScheduler(ContratMonitoringService contratMonitoringService) {
+    public VerificationContratScheduler(ContratMonitoringService contratMonitoringService, TacheService tacheService) {
         this.contratMonitoringService = contratMonitoringService;
+        this.tacheService = tacheService;
     }
 
-    // Tous les jours à 02:00
+    // Tous les jours à 07:50
     @Scheduled(cron = "0 50 07 * * ?")
     public void executerAnalyseAutomatique() {
-        contratMonitoringService.analyserContrats();
+        tacheService.executer(this, Declenchement.PLANIFIE);
     }
 
+    @Override
+    public String nom() {
+        return "analyse-contrats";
+    }
+
+    @Override
+    public int executer() {
+        return contratMonitoringService.analyserContrats();
+    }
 }
@@ -0,0 +1,83 @@
+package Commune.Dev.Controller;
+
+import Commune.Dev.Dtos.RecherchePaiementCriteresDTO;
+import Commune.Dev.Services.ExportService;
+import Commune.Dev.Services.ExportService.FormatExport;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+/**
+ * Téléchargement des exports Excel (format=xlsx) ou CSV (format=csv).
+ * Le fichier est écrit dans la réponse au fur et à mesure de sa lecture en base.
+ * Réservé à l'ordonnateur et au directeur : les exports contiennent le CIN et le téléphone des marchands.
+ */
+@RestController
+@RequestMapping("/api/exports")
+@RequiredArgsConstructor
+@PreAuthorize("hasAnyRole('ORDONNATEUR', 'DIRECTEUR')")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    /**
+     * Paiements, avec les mêmes filtres que GET /api/paiements/recherche
+     */
+    @GetMapping("/paiements")
+    public ResponseEntity<StreamingResponseBody> exporterPaiements(
+            @ModelAttribute RecherchePaiementCriteresDTO criteres,
+            @RequestParam(defaultValue = "xlsx") String format) {
+        FormatExport formatExport;
+        try {
+            formatExport = FormatExport.depuisNom(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return fichier("paiements", formatExport, out -> exportService.exporterPaiements(criteres, formatExport, out));
+    }
+
+    /**
+     * Marchands et leurs contrats
+     */
+    @GetMapping("/marchands")
+    public ResponseEntity<StreamingResponseBody> exporterMarchands(
+            @RequestParam(defaultValue = "xlsx") String format) {
+        FormatExport formatExport;
+        try {
+            formatExport = FormatExport.depuisNom(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return fichier("marchands", formatExport, out -> exportService.exporterMarchands(formatExport, out));
+    }
+
+    /**
+     * Rapport d'une session : récapitulatif et paiements encaissés
+     */
+    @GetMapping("/sessions/{sessionId}")
+    public ResponseEntity<StreamingResponseBody> exporterSession(
+            @PathVariable Long sessionId,
+            @RequestParam(defaultValue = "xlsx") String format) {
+        FormatExport formatExport;
+        try {
+            formatExport = FormatExport.depuisNom(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return fichier("session-" + sessionId, formatExport, out -> exportService.exporterSession(sessionId, formatExport, out));
+    }
+
+    private ResponseEntity<StreamingResponseBody> fichier(String nom, FormatExport format, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + nom + "-" + LocalDate.now() + "." + format.extension + "\"")
+                .contentType(MediaType.parseMediaType(format.typeContenu))
+                .body(body);
+    }
+}
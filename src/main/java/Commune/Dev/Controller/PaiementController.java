@@ -1,8 +1,12 @@
 package Commune.Dev.Controller;
 
+import Commune.Dev.Dtos.LotPaiementsHorsLigneRequestDTO;
+import Commune.Dev.Dtos.LotPaiementsHorsLigneResponseDTO;
 import Commune.Dev.Dtos.MultiplePaiementRequestDTO;
 import Commune.Dev.Dtos.PaiementDTO;
+import Commune.Dev.Dtos.PaiementPageResponse;
 import Commune.Dev.Dtos.PaiementRequestDTO;
+import Commune.Dev.Dtos.RecherchePaiementCriteresDTO;
 import Commune.Dev.Services.PaiementService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -41,6 +45,16 @@ public class PaiementController {
         return new ResponseEntity<>(paiements, HttpStatus.CREATED);
     }
 
+    /**
+     * Importer les paiements collectés hors ligne (renvoi du même lot sans risque de doublon)
+     */
+    @PostMapping("/hors-ligne")
+    public ResponseEntity<LotPaiementsHorsLigneResponseDTO> importerPaiementsHorsLigne(
+            @Valid @RequestBody LotPaiementsHorsLigneRequestDTO request) {
+        LotPaiementsHorsLigneResponseDTO resultat = paiementService.importerPaiementsHorsLigne(request);
+        return ResponseEntity.ok(resultat);
+    }
+
     /**
      * Récupérer tous les paiements
      */
@@ -50,6 +64,24 @@ public class PaiementController {
         return ResponseEntity.ok(paiements);
     }
 
+    /**
+     * Rechercher des paiements par pages, avec des filtres combinables
+     * (marchée, zone, hall, place, marchand, agent, session, type, mode, période).
+     * Passer le curseurSuivant reçu pour obtenir la page suivante.
+     */
+    @GetMapping("/recherche")
+    public ResponseEntity<PaiementPageResponse> rechercherPaiements(
+            @ModelAttribute RecherchePaiementCriteresDTO criteres,
+            @RequestParam(required = false) String curseur,
+            @RequestParam(required = false) Integer taille,
+            @RequestParam(defaultValue = "false") boolean avecTotal) {
+        try {
+            return ResponseEntity.ok(paiementService.rechercherPaiements(criteres, curseur, taille, avecTotal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Récupérer un paiement par son ID
      */
@@ -0,0 +1,58 @@
+package Commune.Dev.Controller;
+
+import Commune.Dev.Dtos.ArriereCriteresDTO;
+import Commune.Dev.Dtos.ArrierePageResponse;
+import Commune.Dev.Dtos.ArriereSyntheseDTO;
+import Commune.Dev.Services.ArriereService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/rapports/arrieres")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class RapportArriereController {
+
+    private final ArriereService arriereService;
+
+    /**
+     * GET /api/rapports/arrieres?marcheeId=1&tranche=PLUS_90&taille=50&curseur=...
+     * Marchands en arriéré, du montant dû le plus élevé au plus faible
+     */
+    @GetMapping
+    public ResponseEntity<ArrierePageResponse> getArrieres(
+            @ModelAttribute ArriereCriteresDTO criteres,
+            @RequestParam(required = false) String curseur,
+            @RequestParam(required = false) Integer taille) {
+        try {
+            return ResponseEntity.ok(arriereService.arrieres(criteres, curseur, taille));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * GET /api/rapports/arrieres/synthese?groupement=ZONE&marcheeId=1
+     * Arriérés cumulés par MARCHEE, ZONE, HALL ou PLACE
+     */
+    @GetMapping("/synthese")
+    public ResponseEntity<List<ArriereSyntheseDTO>> getSynthese(
+            @ModelAttribute ArriereCriteresDTO criteres,
+            @RequestParam(defaultValue = "MARCHEE") String groupement) {
+        try {
+            return ResponseEntity.ok(arriereService.synthese(criteres, ArriereService.Groupement.depuisNom(groupement)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package Commune.Dev.Controller;
+
+import Commune.Dev.Dtos.RecetteCriteresDTO;
+import Commune.Dev.Dtos.RecetteDTO;
+import Commune.Dev.Services.RecetteJournaliereService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/statistiques/recettes")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class RecetteController {
+
+    private final RecetteJournaliereService recetteJournaliereService;
+
+    /**
+     * GET /api/statistiques/recettes?dateDebut=2025-01-01&dateFin=2025-01-31&groupement=MARCHEE
+     * Recettes de la période regroupées par JOUR, MARCHEE, ZONE, HALL, AGENT, TYPE ou MODE
+     */
+    @GetMapping
+    public ResponseEntity<List<RecetteDTO>> getRecettes(
+            @ModelAttribute RecetteCriteresDTO criteres,
+            @RequestParam(defaultValue = "JOUR") String groupement) {
+        try {
+            return ResponseEntity.ok(recetteJournaliereService.recettes(criteres,
+                    RecetteJournaliereService.Groupement.depuisNom(groupement)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * POST /api/statistiques/recettes/reconstruire?dateDebut=2025-01-01&dateFin=2025-01-31
+     * Recalcule les recettes journalières de la période depuis les paiements (366 jours au plus)
+     */
+    @PostMapping("/reconstruire")
+    @PreAuthorize("hasAnyRole('ORDONNATEUR', 'DIRECTEUR')")
+    public ResponseEntity<Map<String, Object>> reconstruire(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateDebut,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFin) {
+        try {
+            int lignes = recetteJournaliereService.reconstruire(dateDebut, dateFin);
+            return ResponseEntity.ok(Map.of("lignes", lignes));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+}
@@ -1,82 +1,69 @@
-//package Commune.Dev.Controller;
-//
-//import Commune.Dev.Dtos.RecuPlageResponse;
-//import Commune.Dev.Request.RecuPlageRequest;
-//import Commune.Dev.Services.RecuService;
-//import jakarta.validation.Valid;
-//import lombok.RequiredArgsConstructor;
-//import lombok.extern.slf4j.Slf4j;
-//import org.springframework.http.HttpStatus;
-//import org.springframework.http.ResponseEntity;
-//import org.springframework.web.bind.annotation.*;
-//
-//import java.util.List;
-//
-//@RestController
-//@RequestMapping("/api/recu-plage")
-//@RequiredArgsConstructor
-//@Slf4j
-//@CrossOrigin(origins = "http://localhost:3000")
-//public class RecuController {
-//
-//    private final RecuService recuService;
-//
-//    /**
-//     * Crée une nouvelle plage de reçus
-//     */
-//    @PostMapping
-//    public ResponseEntity<?> creerRecuPlage(@Valid @RequestBody RecuPlageRequest request) {
-//        try {
-//            log.info("Requête de création de plage reçue: {}", request);
-//            RecuPlageResponse response = recuService.createRecuPlage(request);
-//            return ResponseEntity.ok(response);
-//        } catch (IllegalArgumentException e) {
-//            log.error("Erreur de validation: {}", e.getMessage());
-//            return ResponseEntity.badRequest()
-//                    .body(new ErrorResponse("VALIDATION_ERROR", e.getMessage()));
-//        } catch (IllegalStateException e) {
-//            log.error("Erreur de doublon: {}", e.getMessage());
-//            return ResponseEntity.status(HttpStatus.CONFLICT)
-//                    .body(new ErrorResponse("DUPLICATE_ERROR", e.getMessage()));
-//        } catch (Exception e) {
-//            log.error("Erreur interne", e);
-//            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-//                    .body(new ErrorResponse("INTERNAL_ERROR", "Une erreur interne s'est produite"));
-//        }
-//    }
-//
-//    /**
-//     * Prévisualise les numéros qui seraient générés
-//     */
-//    @PostMapping("/previsualiser")
-//    public ResponseEntity<?> previsualiserNumeros(@Valid @RequestBody RecuPlageRequest request) {
-//        try {
-//            List<String> numeros = recuService.previsualiserNumeros(request);
-//            return ResponseEntity.ok(new PreviewResponse(numeros));
-//        } catch (IllegalArgumentException e) {
-//            return ResponseEntity.badRequest()
-//                    .body(new ErrorResponse("VALIDATION_ERROR", e.getMessage()));
-//        }
-//    }
-//
-//    // Classes internes pour les réponses
-//    public static class ErrorResponse {
-//        public String code;
-//        public String message;
-//
-//        public ErrorResponse(String code, String message) {
-//            this.code = code;
-//            this.message = message;
-//        }
-//    }
-//
-//    public static class PreviewResponse {
-//        public List<String> numeros;
-//        public int total;
-//
-//        public PreviewResponse(List<String> numeros) {
-//            this.numeros = numeros;
-//            this.total = numeros.size();
-//        }
-//    }
-//}
+package Commune.Dev.Controller;
+
+import Commune.Dev.Models.Recu;
+import Commune.Dev.Services.RecuService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/recus")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class RecuController {
+
+    private final RecuService recuService;
+
+    /**
+     * GET /api/recus/paiements/{paiementId}?format=pdf|texte
+     * Reçu d'un paiement. 202 tant qu'il n'est pas généré : le client réessaie après Retry-After.
+     * Un reçu ne change plus une fois généré : ETag = empreinte, mise en cache longue côté client.
+     */
+    @GetMapping("/paiements/{paiementId}")
+    public ResponseEntity<Resource> getRecu(@PathVariable Integer paiementId,
+                                            @RequestParam(defaultValue = "PDF") String format,
+                                            WebRequest request) {
+        Recu.Format formatRecu;
+        try {
+            formatRecu = Recu.Format.depuisNom(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Optional<Recu> recu = recuService.trouver(paiementId);
+        if (recu.isEmpty()) {
+            recuService.planifier(paiementId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).header(HttpHeaders.RETRY_AFTER, "2").build();
+        }
+
+        String empreinte = recu.get().empreinte(formatRecu);
+        if (request.checkNotModified("\"" + empreinte + "\"")) {
+            return null;
+        }
+
+        Path fichier = recuService.fichier(empreinte, formatRecu);
+        if (!Files.exists(fichier)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(empreinte)
+                .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "inline; filename=\"recu-" + paiementId + "." + formatRecu.extension + "\"")
+                .contentType(MediaType.parseMediaType(formatRecu.typeContenu))
+                .body(new FileSystemResource(fichier));
+    }
+}
@@ -2,19 +2,27 @@ package Commune.Dev.Controller;
 
 import Commune.Dev.Dtos.ApiResponse;
 import Commune.Dev.Dtos.SyncDataResponse;
+import Commune.Dev.Dtos.SyncPageResponse;
 import Commune.Dev.Models.User;
 import Commune.Dev.Services.JwtManualService;
+import Commune.Dev.Services.SyncEmpreinteService;
 import Commune.Dev.Services.SyncService;
+import Commune.Dev.Services.SyncSnapshotService;
 import io.jsonwebtoken.Claims;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/public/sync")
@@ -22,18 +30,24 @@ import java.util.List;
 public class SyncController {
 
     private final SyncService syncService;
+    private final SyncSnapshotService syncSnapshotService;
     private final JwtManualService jwtManualService;
 
     /**
      * Endpoint pour la synchronisation initiale
-     * Télécharge toutes les données liées à l'utilisateur connecté
+     * Télécharge toutes les données liées à l'utilisateur connecté,
+     * ou seulement les changements si le jeton "since" de la dernière synchro est fourni.
+     * Les sections de référence dont l'empreinte ("empreintes") est à jour ne sont pas renvoyées.
      */
     @GetMapping("/initial")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<ApiResponse<SyncDataResponse>> getInitialSyncData(
-            @AuthenticationPrincipal User currentUser) {
+            @AuthenticationPrincipal User currentUser,
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) String empreintes) {
 
-        SyncDataResponse syncData = syncService.getSyncDataForUser(currentUser.getId());
+        SyncDataResponse syncData = syncService.getSyncDataForUser(currentUser.getId(), since,
+                SyncEmpreinteService.lireEmpreintesClient(empreintes));
 
         return ResponseEntity.ok(ApiResponse.success(
                 "Données de synchronisation récupérées avec succès",
@@ -43,12 +57,166 @@ public class SyncController {
 
     /**
      * Endpoint pour synchroniser un utilisateur spécifique
+     * (différentiel si le jeton "since" de la dernière synchro est fourni ;
+     * parallele=true charge les sections en même temps et renvoie leurs durées)
      */
     @GetMapping("/user/{userId}")
     public ResponseEntity<ApiResponse<SyncDataResponse>> getSyncDataForUser(
             @PathVariable Long userId,
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) String empreintes,
+            @RequestParam(defaultValue = "false") boolean parallele,
             HttpServletRequest request) {
 
+        ResponseEntity<ApiResponse<SyncDataResponse>> refus = verifierAcces(userId, request);
+        if (refus != null) {
+            return refus;
+        }
+
+        // ✅ OK sécurisé
+        Map<String, String> empreintesClient = SyncEmpreinteService.lireEmpreintesClient(empreintes);
+        SyncDataResponse syncData = parallele
+                ? syncService.getSyncDataForUserParallele(userId, since, empreintesClient)
+                : syncService.getSyncDataForUser(userId, since, empreintesClient);
+
+        return ResponseEntity.ok(ApiResponse.success(
+                "Données de synchronisation récupérées avec succès",
+                syncData
+        ));
+    }
+
+    /**
+     * Synchronisation par pages (territoires volumineux) : section + curseur + taille.
+     * Premier appel sans section ni curseur ; ensuite suivre sectionSuivante / curseurSuivant
+     * en renvoyant le syncToken reçu dans "jeton". Reprise possible au dernier curseur enregistré.
+     */
+    @GetMapping("/user/{userId}/page")
+    public ResponseEntity<ApiResponse<SyncPageResponse>> getSyncPage(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String section,
+            @RequestParam(required = false) Long curseur,
+            @RequestParam(required = false) Integer taille,
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) String jeton,
+            HttpServletRequest request) {
+
+        ResponseEntity<ApiResponse<SyncPageResponse>> refus = verifierAcces(userId, request);
+        if (refus != null) {
+            return refus;
+        }
+
+        try {
+            SyncPageResponse page = syncService.getSyncPage(userId, section, curseur, taille, since, jeton);
+            return ResponseEntity.ok(ApiResponse.success("Page de synchronisation récupérée avec succès", page));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Synchronisation en flux NDJSON (une ligne JSON par enregistrement).
+     * La mémoire du serveur reste constante et le mobile peut traiter
+     * les données avant la fin du téléchargement.
+     */
+    @GetMapping("/user/{userId}/stream")
+    public ResponseEntity<?> streamSyncDataForUser(
+            @PathVariable Long userId,
+            HttpServletRequest request) {
+
+        ResponseEntity<ApiResponse<Object>> refus = verifierAcces(userId, request);
+        if (refus != null) {
+            return refus;
+        }
+
+        StreamingResponseBody body = out -> syncService.streamSyncDataForUser(userId, out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    /**
+     * Instantané complet au format CBOR (compressé gzip si le client l'accepte),
+     * avec un ETag fort calculé sur le contenu : un If-None-Match identique renvoie 304.
+     * Si la version des données n'a pas bougé depuis le dernier instantané de l'utilisateur,
+     * le 304 est renvoyé sans relire ni encoder l'instantané.
+     * Le jeton de synchronisation est renvoyé dans l'en-tête X-Sync-Token.
+     */
+    @GetMapping("/user/{userId}/snapshot")
+    public ResponseEntity<?> getSyncSnapshot(
+            @PathVariable Long userId,
+            HttpServletRequest request) {
+
+        ResponseEntity<ApiResponse<Object>> refus = verifierAcces(userId, request);
+        if (refus != null) {
+            return refus;
+        }
+
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+
+        // ⚡ Données inchangées depuis le dernier instantané : 304 sans le reconstruire
+        SyncService.VersionSync version = syncSnapshotService.version(userId);
+        String empreinteConnue = syncSnapshotService.empreinteInchangee(userId, version);
+        if (empreinteConnue != null && etagCorrespond(ifNoneMatch, etag(empreinteConnue, gzip))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag(empreinteConnue, gzip))
+                    .header("X-Sync-Token", version.syncToken())
+                    .build();
+        }
+
+        SyncSnapshotService.SyncSnapshot snapshot = syncSnapshotService.construireSnapshot(userId, version);
+        String etag = etag(snapshot.empreinte(), gzip);
+
+        if (etagCorrespond(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header("X-Sync-Token", snapshot.syncToken())
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder reponse = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_CBOR)
+                .header("X-Sync-Token", snapshot.syncToken());
+
+        if (gzip) {
+            return reponse.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(syncSnapshotService.compresserGzip(snapshot.contenu()));
+        }
+        return reponse.body(snapshot.contenu());
+    }
+
+    // Une représentation compressée est une autre représentation : ETag distinct
+    private static String etag(String empreinte, boolean gzip) {
+        return "\"" + empreinte + (gzip ? "-gzip" : "") + "\"";
+    }
+
+    private boolean etagCorrespond(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidat : ifNoneMatch.split(",")) {
+            String valeur = candidat.trim();
+            if (valeur.startsWith("W/")) {
+                valeur = valeur.substring(2);
+            }
+            if (valeur.equals("*") || valeur.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Vérifie le token JWT, l'identité et le rôle de l'appelant.
+     * Retourne la réponse d'erreur à renvoyer, ou null si l'accès est autorisé.
+     */
+    private <T> ResponseEntity<ApiResponse<T>> verifierAcces(Long userId, HttpServletRequest request) {
+
         String authHeader = request.getHeader("Authorization");
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -81,13 +249,7 @@ public class SyncController {
                     .body(ApiResponse.error("Rôle non autorisé"));
         }
 
-        // ✅ OK sécurisé
-        SyncDataResponse syncData = syncService.getSyncDataForUser(tokenUserId);
-
-        return ResponseEntity.ok(ApiResponse.success(
-                "Données de synchronisation récupérées avec succès",
-                syncData
-        ));
+        return null;
     }
 }
 
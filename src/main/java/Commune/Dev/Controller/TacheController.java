@@ -0,0 +1,62 @@
+package Commune.Dev.Controller;
+
+import Commune.Dev.Dtos.TacheStatistiquesDTO;
+import Commune.Dev.Models.ExecutionTache;
+import Commune.Dev.Services.TacheService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/taches")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@PreAuthorize("hasAnyRole('ORDONNATEUR', 'DIRECTEUR')")
+public class TacheController {
+
+    private final TacheService tacheService;
+
+    /**
+     * GET /api/admin/taches?jours=7
+     * Exécutions, échecs, durées et dernière exécution de chaque tâche planifiée
+     */
+    @GetMapping
+    public ResponseEntity<List<TacheStatistiquesDTO>> getStatistiques(@RequestParam(defaultValue = "7") int jours) {
+        return ResponseEntity.ok(tacheService.statistiques(Math.max(1, jours)));
+    }
+
+    /**
+     * GET /api/admin/taches/analyse-contrats/executions?taille=20
+     * Dernières exécutions d'une tâche
+     */
+    @GetMapping("/{nom}/executions")
+    public ResponseEntity<List<ExecutionTache>> getExecutions(@PathVariable String nom,
+                                                              @RequestParam(defaultValue = "20") int taille) {
+        try {
+            return ResponseEntity.ok(tacheService.historique(nom, taille));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * POST /api/admin/taches/analyse-contrats/executer
+     * Lance la tâche en arrière-plan ; suivre le résultat dans ses exécutions
+     */
+    @PostMapping("/{nom}/executer")
+    public ResponseEntity<Map<String, Object>> executer(@PathVariable String nom) {
+        try {
+            tacheService.declencher(nom);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("message", "Tâche " + nom + " lancée"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        }
+    }
+}
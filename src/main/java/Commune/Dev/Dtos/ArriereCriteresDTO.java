@@ -0,0 +1,21 @@
+package Commune.Dev.Dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Filtres facultatifs du rapport des arriérés.
+ * tranche : 0_7, 8_30, 31_90 ou PLUS_90, seulement les marchands ayant un montant dû dans cette tranche.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArriereCriteresDTO {
+    private Long marcheeId;
+    private Long zoneId;
+    private Long hallId;
+    private Integer placeId;
+    private Integer marchandId;
+    private String tranche;
+}
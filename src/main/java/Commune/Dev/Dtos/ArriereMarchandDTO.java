@@ -0,0 +1,31 @@
+package Commune.Dev.Dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArriereMarchandDTO {
+    private Integer marchandId;
+    private String nomMarchand;
+    private String prenomMarchand;
+    private Integer placeId;
+    private Long hallId;
+    private Long zoneId;
+    private Long marcheeId;
+    private Integer periodesImpayees;
+    private Integer anneesImpayees;
+    private BigDecimal montantDu;
+    private BigDecimal montant0a7;
+    private BigDecimal montant8a30;
+    private BigDecimal montant31a90;
+    private BigDecimal montantPlus90;
+    private LocalDate plusAncienneEcheance;
+    private LocalDateTime calculeAt;
+}
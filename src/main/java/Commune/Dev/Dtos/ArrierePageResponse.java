@@ -0,0 +1,21 @@
+package Commune.Dev.Dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Une page du rapport des arriérés, du montant dû le plus élevé au plus faible.
+ * Le client rappelle avec curseur = curseurSuivant jusqu'à termine = true.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArrierePageResponse {
+    private List<ArriereMarchandDTO> arrieres;
+    // Curseur à renvoyer pour la page suivante, null sur la dernière page
+    private String curseurSuivant;
+    private boolean termine;
+}
@@ -0,0 +1,26 @@
+package Commune.Dev.Dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Arriérés cumulés d'un groupe (un marché, une zone, un hall ou une place).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArriereSyntheseDTO {
+    // Identifiant du groupe, null pour les marchands non rattachés à ce niveau
+    private String cle;
+    private Long nombreMarchands;
+    private Long periodesImpayees;
+    private Long anneesImpayees;
+    private BigDecimal montantDu;
+    private BigDecimal montant0a7;
+    private BigDecimal montant8a30;
+    private BigDecimal montant31a90;
+    private BigDecimal montantPlus90;
+}
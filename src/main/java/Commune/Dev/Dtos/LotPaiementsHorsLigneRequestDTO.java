@@ -0,0 +1,23 @@
+package Commune.Dev.Dtos;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LotPaiementsHorsLigneRequestDTO {
+
+    @NotNull(message = "La liste des paiements est obligatoire")
+    @NotEmpty(message = "La liste des paiements ne peut pas être vide")
+    @Size(max = 2000, message = "Un lot ne peut pas dépasser 2000 paiements")
+    @Valid
+    private List<PaiementHorsLigneRequestDTO> paiements;
+}
@@ -0,0 +1,39 @@
+package Commune.Dev.Dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Résultat d'un import de paiements hors ligne, un élément par paiement envoyé, dans l'ordre du lot.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LotPaiementsHorsLigneResponseDTO {
+
+    private int crees;
+    private int doublons;
+    private int rejetes;
+    private List<ResultatPaiement> resultats = new ArrayList<>();
+
+    public enum StatutResultat {
+        CREE,       // paiement enregistré par cet envoi
+        DOUBLON,    // déjà enregistré par un envoi précédent (ou en double dans le lot)
+        REJETE      // refusé, voir le message
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ResultatPaiement {
+        private UUID clientUuid;
+        private StatutResultat statut;
+        private Integer paiementId;
+        private String message;
+    }
+}
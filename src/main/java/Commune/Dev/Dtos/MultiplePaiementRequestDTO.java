@@ -3,6 +3,7 @@ package Commune.Dev.Dtos;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -16,6 +17,7 @@ public class MultiplePaiementRequestDTO {
 
     @NotNull(message = "La liste des paiements est obligatoire")
     @NotEmpty(message = "La liste des paiements ne peut pas être vide")
+    @Size(max = 2000, message = "Un lot ne peut pas dépasser 2000 paiements")
     @Valid
     private List<PaiementRequestDTO> paiements;
 }
\ No newline at end of file
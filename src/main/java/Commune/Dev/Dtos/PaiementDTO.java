@@ -34,6 +34,29 @@ public class PaiementDTO {
     private String recuNumero;
     private Integer quittanceId;
     private LocalDateTime dernierePaiement;
+
+    // Projection de la recherche paginée, construite directement par la requête JPQL
+    public PaiementDTO(Integer id, BigDecimal montant, LocalDateTime datePaiement, Paiement.Typepaiement typePaiement,
+                       String motif, Paiement.ModePaiement modePaiement, String moisdePaiement, String nomMarchands,
+                       Integer idMarchand, Long idAgent, String nomAgent, Integer idPlace, String nomPlace,
+                       Long sessionId, String recuNumero, Long quittanceId) {
+        this.id = id;
+        this.montant = montant;
+        this.datePaiement = datePaiement;
+        this.typePaiement = typePaiement;
+        this.motif = motif;
+        this.modePaiement = modePaiement != null ? modePaiement.name() : null;
+        this.moisdePaiement = moisdePaiement;
+        this.nomMarchands = nomMarchands;
+        this.idMarchand = idMarchand;
+        this.idAgent = idAgent != null ? Math.toIntExact(idAgent) : null;
+        this.nomAgent = nomAgent;
+        this.idPlace = idPlace;
+        this.nomPlace = nomPlace;
+        this.sessionId = sessionId != null ? Math.toIntExact(sessionId) : null;
+        this.recuNumero = recuNumero;
+        this.quittanceId = quittanceId != null ? Math.toIntExact(quittanceId) : null;
+    }
 }
 
 // DTO pour créer un paiement unique
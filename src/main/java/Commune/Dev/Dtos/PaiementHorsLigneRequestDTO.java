@@ -0,0 +1,25 @@
+package Commune.Dev.Dtos;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Paiement saisi hors ligne par un percepteur, envoyé lors de la synchronisation.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class PaiementHorsLigneRequestDTO extends PaiementRequestDTO {
+
+    // Généré par l'application mobile, identique à chaque nouvel envoi du même paiement
+    @NotNull(message = "L'identifiant client du paiement est obligatoire")
+    private UUID clientUuid;
+
+    // Heure de l'encaissement sur le terrain (heure du serveur si absente)
+    private LocalDateTime datePaiement;
+}
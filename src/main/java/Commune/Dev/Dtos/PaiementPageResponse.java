@@ -0,0 +1,23 @@
+package Commune.Dev.Dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Une page de la recherche de paiements, du plus récent au plus ancien.
+ * Le client rappelle avec curseur = curseurSuivant jusqu'à termine = true.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaiementPageResponse {
+    private List<PaiementDTO> paiements;
+    // Curseur à renvoyer pour la page suivante, null sur la dernière page
+    private String curseurSuivant;
+    private boolean termine;
+    // Nombre total de résultats, calculé seulement si avecTotal = true
+    private Long total;
+}
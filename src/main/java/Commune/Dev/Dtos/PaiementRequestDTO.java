@@ -24,6 +24,7 @@ public class PaiementRequestDTO {
 
     private Paiement.Typepaiement typePaiement;
 
+    // Absent : la plus ancienne quittance disponible de l'agent est attribuée
     private String numeroQuittance;
 
 //    @NotNull(message = "Le mode de paiement est obligatoire")
@@ -0,0 +1,31 @@
+package Commune.Dev.Dtos;
+
+import Commune.Dev.Models.Paiement;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Période (bornes incluses) et filtres facultatifs des statistiques de recettes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecetteCriteresDTO {
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dateDebut;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dateFin;
+
+    private Long marcheeId;
+    private Long zoneId;
+    private Long hallId;
+    private Long agentId;
+    private Paiement.Typepaiement typePaiement;
+    private Paiement.ModePaiement modePaiement;
+}
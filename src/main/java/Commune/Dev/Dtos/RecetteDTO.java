@@ -0,0 +1,20 @@
+package Commune.Dev.Dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Recette d'un groupe (un jour, un marché, un agent...) sur la période demandée.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecetteDTO {
+    // Valeur du regroupement : date, identifiant ou type selon le groupement demandé
+    private String cle;
+    private BigDecimal montant;
+    private Long nombrePaiements;
+}
@@ -0,0 +1,34 @@
+package Commune.Dev.Dtos;
+
+import Commune.Dev.Models.Paiement;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Filtres de la recherche de paiements, tous facultatifs et combinables.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecherchePaiementCriteresDTO {
+    private Long marcheeId;
+    private Long zoneId;
+    private Long hallId;
+    private Integer placeId;
+    private Integer marchandId;
+    private Long agentId;
+    private Long sessionId;
+    private Paiement.Typepaiement typePaiement;
+    private Paiement.ModePaiement modePaiement;
+
+    // Bornes incluses, sur la date d'encaissement
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dateDebut;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dateFin;
+}
@@ -13,6 +13,7 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -28,6 +29,17 @@ public class SyncDataResponse {
     private List<QuittanceData> quittances;
     private List<SessionData> sessions;
     private LocalDateTime syncTimestamp;
+    // Jeton à renvoyer dans ?since= pour la prochaine synchronisation différentielle
+    private String syncToken;
+    // true si la réponse contient toutes les données, false si seulement les changements
+    private Boolean fullSync;
+    private List<SuppressionData> suppressions;
+    // Empreinte de chaque section de référence, à renvoyer dans ?empreintes= à la prochaine synchro
+    private Map<String, String> empreintes;
+    // Sections de référence non renvoyées (null) car identiques à l'empreinte fournie par le client
+    private List<String> sectionsInchangees;
+    // Synchronisation parallèle : durée de chargement de chaque section, en millisecondes
+    private Map<String, Long> durees;
 
     @Data
     @NoArgsConstructor
@@ -166,4 +178,22 @@ public class SyncDataResponse {
         private Integer RegisseurPrincipalId;
         private LocalDateTime validation_date;
     }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SuppressionData {
+        private String entityType;
+        private Long id;
+        private LocalDateTime deletedAt;
+    }
+
+    // Ligne du flux NDJSON de synchronisation
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SyncLigne {
+        private String section;
+        private Object data;
+    }
 }
@@ -0,0 +1,29 @@
+package Commune.Dev.Dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Une page de la synchronisation par pages.
+ * Le client rappelle avec section = sectionSuivante et curseur = curseurSuivant
+ * jusqu'à termine = true, en renvoyant toujours le même syncToken (paramètre "jeton").
+ * Après une coupure, il reprend depuis le dernier curseur qu'il a enregistré.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncPageResponse {
+    private String section;
+    private List<Object> donnees;
+    // Curseur à renvoyer pour la page suivante (null : début de la section suivante)
+    private Long curseurSuivant;
+    // Section de la page suivante, null quand la synchronisation est terminée
+    private String sectionSuivante;
+    private boolean termine;
+    // Jeton fixé à la première page, à utiliser comme "since" de la prochaine synchronisation
+    private String syncToken;
+    private Boolean fullSync;
+}
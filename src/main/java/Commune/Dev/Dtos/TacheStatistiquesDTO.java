@@ -0,0 +1,24 @@
+package Commune.Dev.Dtos;
+
+import Commune.Dev.Models.ExecutionTache;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Exécutions d'une tâche planifiée sur la période demandée, et sa dernière exécution.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TacheStatistiquesDTO {
+    private String tache;
+    private Long executions;
+    private Long echecs;
+    // Exécutions ignorées : la tâche tournait déjà
+    private Long ignorees;
+    private Long dureeMoyenneMs;
+    private Long dureeMaxMs;
+    private Long lignesTraitees;
+    private ExecutionTache derniereExecution;
+}
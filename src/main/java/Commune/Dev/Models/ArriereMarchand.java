@@ -0,0 +1,75 @@
+package Commune.Dev.Models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Arriéré d'un marchand : périodes de droit de place échues non couvertes par un paiement
+ * (date_debut / date_fin du paiement, pas sa date d'encaissement) et années de droit annuel non payées,
+ * montant dû réparti par ancienneté de l'échéance (0-7, 8-30, 31-90, plus de 90 jours).
+ * Écrit par ContratMonitoringService, à l'analyse de nuit et après chaque paiement ou changement
+ * de contrat ; le rapport des arriérés lit cette table au lieu de rejouer les échéanciers.
+ */
+@Entity
+@Table(name = "arriere_marchand", indexes = {
+        @Index(name = "idx_arriere_marchand_montant", columnList = "montant_du, marchand_id"),
+        @Index(name = "idx_arriere_marchand_marchee", columnList = "marchee_id"),
+        @Index(name = "idx_arriere_marchand_zone", columnList = "zone_id"),
+        @Index(name = "idx_arriere_marchand_hall", columnList = "hall_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArriereMarchand {
+
+    @Id
+    @Column(name = "marchand_id")
+    private Integer marchandId;
+
+    // Rattachement de la place du contrat, null si le contrat n'a pas de place
+    @Column(name = "place_id")
+    private Integer placeId;
+
+    @Column(name = "hall_id")
+    private Long hallId;
+
+    @Column(name = "zone_id")
+    private Long zoneId;
+
+    @Column(name = "marchee_id")
+    private Long marcheeId;
+
+    @Column(name = "periodes_impayees", nullable = false)
+    private Integer periodesImpayees;
+
+    @Column(name = "annees_impayees", nullable = false)
+    private Integer anneesImpayees;
+
+    @Column(name = "montant_du", precision = 14, scale = 2, nullable = false)
+    private BigDecimal montantDu;
+
+    @Column(name = "montant_0_7", precision = 14, scale = 2, nullable = false)
+    private BigDecimal montant0a7;
+
+    @Column(name = "montant_8_30", precision = 14, scale = 2, nullable = false)
+    private BigDecimal montant8a30;
+
+    @Column(name = "montant_31_90", precision = 14, scale = 2, nullable = false)
+    private BigDecimal montant31a90;
+
+    @Column(name = "montant_plus_90", precision = 14, scale = 2, nullable = false)
+    private BigDecimal montantPlus90;
+
+    // Échéance impayée la plus ancienne, null si rien n'est dû
+    @Column(name = "plus_ancienne_echeance")
+    private LocalDate plusAncienneEcheance;
+
+    @Column(name = "calcule_at", nullable = false)
+    private LocalDateTime calculeAt;
+}
@@ -1,5 +1,6 @@
 package Commune.Dev.Models;
 
+import Commune.Dev.Config.OutboxContratListener;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -13,6 +14,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "Contrat")
+@EntityListeners(OutboxContratListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,46 @@
+package Commune.Dev.Models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Avancement d'une destination de l'outbox (RelaisOutboxService) : dernier événement livré.
+ * Tous les événements d'ordre (xid, id) inférieur ou égal au curseur ont été livrés.
+ * Chaque destination avance à son rythme ; une destination en échec ne bloque qu'elle-même.
+ */
+@Entity
+@Table(name = "curseur_destination_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CurseurDestinationOutbox {
+
+    @Id
+    @Column(name = "destination", length = 100)
+    private String destination;
+
+    // Dernier événement livré, dans l'ordre (xid, id) du relais
+    @Column(name = "dernier_xid", nullable = false)
+    private Long dernierXid;
+
+    @Column(name = "dernier_id", nullable = false)
+    private Long dernierId;
+
+    // Relais qui livre le lot suivant, hors transaction : les autres instances attendent la fin du bail
+    @Column(name = "bail_jusqua")
+    private LocalDateTime bailJusqua;
+
+    // Échecs consécutifs du lot suivant, remis à zéro à la livraison
+    @Column(name = "tentatives", nullable = false)
+    private Integer tentatives;
+
+    @Column(name = "derniere_erreur", length = 500)
+    private String derniereErreur;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,66 @@
+package Commune.Dev.Models;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbox : événement métier écrit dans la transaction qui le produit (OutboxService),
+ * puis relayé dans l'ordre (transaction, identifiant) vers chaque destination, qui tient son
+ * propre curseur (RelaisOutboxService, CurseurDestinationOutbox).
+ * traite_at reste vide tant que toutes les destinations n'ont pas accepté l'événement.
+ */
+@Entity
+@Table(name = "evenement_sortant", indexes = {
+        @Index(name = "idx_evenement_sortant_a_traiter", columnList = "traite_at, id"),
+        @Index(name = "idx_evenement_sortant_xid_id", columnList = "xid, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EvenementSortant {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 40)
+    private TypeEvenement type;
+
+    // Entité concernée (Paiement, Session, Contrat) et son identifiant
+    @Column(name = "agregat", nullable = false, length = 40)
+    private String agregat;
+
+    @Column(name = "agregat_id", nullable = false)
+    private Long agregatId;
+
+    // Charge utile JSON, sérialisée telle quelle vers les destinations
+    @JsonRawValue
+    @Column(name = "contenu", nullable = false, columnDefinition = "text")
+    private String contenu;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "traite_at")
+    private LocalDateTime traiteAt;
+
+    // Transaction qui a écrit l'événement (pg_current_xact_id) : le relais ne livre que les
+    // transactions terminées, dans l'ordre (xid, id)
+    @Column(name = "xid", nullable = false)
+    private Long xid;
+
+    public enum TypeEvenement {
+        PAIEMENT_ENREGISTRE,
+        PAIEMENT_SUPPRIME,
+        SESSION_VALIDEE,
+        CONTRAT_CREE,
+        CONTRAT_MODIFIE,
+        CONTRAT_SUPPRIME
+    }
+}
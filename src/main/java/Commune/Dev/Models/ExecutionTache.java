@@ -0,0 +1,76 @@
+package Commune.Dev.Models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Historique des exécutions des tâches planifiées (TacheService) : une ligne par exécution,
+ * y compris celles ignorées parce que la tâche tournait déjà (sur cette instance ou une autre).
+ * La ligne EN_COURS sert de bail d'exécution ; restée EN_COURS au-delà du bail après un arrêt,
+ * elle est passée en ECHEC par l'exécution suivante.
+ */
+@Entity
+@Table(name = "execution_tache", indexes = {
+        @Index(name = "idx_execution_tache_tache_debut", columnList = "tache, debut_at"),
+        @Index(name = "idx_execution_tache_debut", columnList = "debut_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionTache {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tache", nullable = false, length = 100)
+    private String tache;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "declenchement", nullable = false, length = 20)
+    private Declenchement declenchement;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "statut", nullable = false, length = 20)
+    private Statut statut;
+
+    // Instance (hôte) qui a lancé l'exécution
+    @Column(name = "instance", length = 100)
+    private String instance;
+
+    @Column(name = "debut_at", nullable = false)
+    private LocalDateTime debutAt;
+
+    // Dernier renouvellement du bail par l'exécution en cours
+    @Column(name = "renouvele_at")
+    private LocalDateTime renouveleAt;
+
+    @Column(name = "fin_at")
+    private LocalDateTime finAt;
+
+    @Column(name = "duree_ms")
+    private Long dureeMs;
+
+    // Nombre de lignes traitées, tel que retourné par la tâche
+    @Column(name = "lignes_traitees")
+    private Integer lignesTraitees;
+
+    @Column(name = "erreur", length = 500)
+    private String erreur;
+
+    public enum Declenchement {
+        PLANIFIE,
+        MANUEL
+    }
+
+    public enum Statut {
+        EN_COURS,
+        REUSSIE,
+        ECHEC,
+        IGNOREE
+    }
+}
@@ -1,5 +1,6 @@
 package Commune.Dev.Models;
 
+import Commune.Dev.Config.SyncEmpreinteListener;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -13,6 +14,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners(SyncEmpreinteListener.class)
 @Table(
         name = "hall",
         uniqueConstraints = {
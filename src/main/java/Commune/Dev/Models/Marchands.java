@@ -1,5 +1,6 @@
 package Commune.Dev.Models;
 
+import Commune.Dev.Config.SyncSuppressionListener;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
@@ -15,6 +16,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "Marchands")
+@EntityListeners(SyncSuppressionListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -72,9 +74,19 @@ public class Marchands {
     @Enumerated(EnumType.STRING)
     private StatutMarchands statut;
 
+    // Date de dernière modification, utilisée par la synchronisation différentielle
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     @PrePersist
     protected void onCreate() {
         dateEnregistrement = LocalDateTime.now();
+        updatedAt = dateEnregistrement;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
     }
 
     // Relations
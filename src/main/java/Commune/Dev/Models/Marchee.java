@@ -1,5 +1,6 @@
 package Commune.Dev.Models;
 
+import Commune.Dev.Config.SyncEmpreinteListener;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -14,6 +15,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "Marchee")
+@EntityListeners(SyncEmpreinteListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
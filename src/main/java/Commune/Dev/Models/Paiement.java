@@ -1,5 +1,6 @@
 package Commune.Dev.Models;
 
+import Commune.Dev.Config.SyncSuppressionListener;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
@@ -15,9 +16,17 @@ import java.time.LocalDateTime;
 import java.time.Year;
 import java.util.List;
 import java.util.Objects;
+import java.util.UUID;
 
 @Entity
-@Table(name = "Paiement")
+@Table(name = "Paiement", indexes = {
+        @Index(name = "idx_paiement_updated_at", columnList = "updated_at"),
+        // Recherche paginée : parcours par (date_paiement, id) décroissants
+        @Index(name = "idx_paiement_date_paiement_id", columnList = "date_paiement, id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_paiement_client_uuid", columnNames = "client_uuid")
+})
+@EntityListeners(SyncSuppressionListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -28,6 +37,11 @@ public class Paiement {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
+    // Identifiant généré par l'application mobile pour un paiement saisi hors ligne,
+    // permet de rejouer un envoi sans créer de doublon
+    @Column(name = "client_uuid", updatable = false)
+    private UUID clientUuid;
+
     private String motif;
 
     @Enumerated(EnumType.STRING)
@@ -99,6 +113,16 @@ public class Paiement {
     @JoinColumn(name = "session_id")
     private Session session;
 
+    // Date de dernière modification, utilisée par la synchronisation différentielle
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
     public enum ModePaiement {
         cash, mobile_money, autres
     }
@@ -0,0 +1,57 @@
+package Commune.Dev.Models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Avancement de l'analyse des contrats (ContratMonitoringService) : une ligne par tranche
+ * d'identifiants de marchands [marchandDebut, marchandFin[ d'une exécution.
+ * terminee_at est écrit dans la transaction qui enregistre les statuts de la tranche :
+ * après un arrêt, seules les tranches sans terminee_at sont reprises.
+ */
+@Entity
+@Table(name = "partition_analyse_contrats", indexes = {
+        @Index(name = "idx_partition_analyse_contrats_terminee_at", columnList = "terminee_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartitionAnalyseContrats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Exécution à laquelle appartient la tranche (horodatage de son lancement, en millisecondes)
+    @Column(name = "execution", nullable = false)
+    private Long execution;
+
+    @Column(name = "marchand_debut", nullable = false)
+    private Integer marchandDebut;
+
+    @Column(name = "marchand_fin", nullable = false)
+    private Integer marchandFin;
+
+    @Column(name = "creee_at", nullable = false)
+    private LocalDateTime creeeAt;
+
+    @Column(name = "terminee_at")
+    private LocalDateTime termineeAt;
+
+    @Column(name = "marchands_analyses")
+    private Integer marchandsAnalyses;
+
+    @Column(name = "statuts_modifies")
+    private Integer statutsModifies;
+
+    public PartitionAnalyseContrats(Long execution, Integer marchandDebut, Integer marchandFin, LocalDateTime creeeAt) {
+        this.execution = execution;
+        this.marchandDebut = marchandDebut;
+        this.marchandFin = marchandFin;
+        this.creeeAt = creeeAt;
+    }
+}
@@ -1,5 +1,6 @@
 package Commune.Dev.Models;
 
+import Commune.Dev.Config.SyncSuppressionListener;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -23,6 +24,7 @@ import java.util.List;
                 columnNames = {"nom", "hall_id"}
         )
 })
+@EntityListeners(SyncSuppressionListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -47,6 +49,10 @@ public class Place {
     @Column(name = "date_fin_occupation")
     private LocalDateTime dateFinOccupation;
 
+    // Date de dernière modification, utilisée par la synchronisation différentielle
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     // Relations
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "marchee_id", nullable = true)
@@ -88,4 +94,10 @@ public class Place {
     @OneToMany(mappedBy = "place", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonBackReference("paiements-places")
     private List<Paiement> paiements;
-}
\ No newline at end of file
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
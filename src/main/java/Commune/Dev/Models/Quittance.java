@@ -1,5 +1,6 @@
 package Commune.Dev.Models;
 
+import Commune.Dev.Config.SyncSuppressionListener;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
@@ -14,6 +15,7 @@ import java.util.Objects;
 
 @Entity
 @Table(name = "Quittance")
+@EntityListeners(SyncSuppressionListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -44,6 +46,16 @@ public class Quittance {
     @OneToOne(mappedBy = "quittance", fetch = FetchType.LAZY)
     private Paiement paiement;
 
+    // Date de dernière modification, utilisée par la synchronisation différentielle
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
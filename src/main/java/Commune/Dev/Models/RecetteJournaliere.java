@@ -0,0 +1,63 @@
+package Commune.Dev.Models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Total journalier des paiements par marché, zone, hall, agent, type et mode de paiement.
+ * Tenu à jour à chaque paiement créé ou supprimé (RecetteJournaliereService) ; les statistiques
+ * de recettes lisent cette table au lieu de parcourir les paiements.
+ * 0 dans marchee_id, zone_id ou hall_id : paiement non rattaché à ce niveau (marchand ambulant, place sans hall...).
+ */
+@Entity
+@Table(name = "recette_journaliere", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_recette_journaliere_dimensions",
+                columnNames = {"jour", "marchee_id", "zone_id", "hall_id", "agent_id", "type_paiement", "mode_paiement"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecetteJournaliere {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "jour", nullable = false)
+    private LocalDate jour;
+
+    @Column(name = "marchee_id", nullable = false)
+    private Long marcheeId;
+
+    @Column(name = "zone_id", nullable = false)
+    private Long zoneId;
+
+    @Column(name = "hall_id", nullable = false)
+    private Long hallId;
+
+    @Column(name = "agent_id", nullable = false)
+    private Long agentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type_paiement", nullable = false)
+    private Paiement.Typepaiement typePaiement;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "mode_paiement", nullable = false)
+    private Paiement.ModePaiement modePaiement;
+
+    @Column(name = "montant_total", nullable = false)
+    private BigDecimal montantTotal;
+
+    @Column(name = "nombre_paiements", nullable = false)
+    private Long nombrePaiements;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -1,110 +1,70 @@
-////package Commune.Dev.Models;
-////
-////import jakarta.persistence.*;
-////import lombok.AllArgsConstructor;
-////import lombok.Data;
-////import lombok.NoArgsConstructor;
-////import java.time.LocalDateTime;
-////
-////@Entity
-////@Table(name = "recu")
-////@Data
-////@NoArgsConstructor
-////@AllArgsConstructor
-////public class Recu {
-////
-////    @Id
-////    private Integer id;
-////
-////    @Column(name = "date_envoie")
-////    private LocalDateTime dateEnvoie;
-////
-////    @Column(name = "id_paiement")
-////    private Integer idPaiement;
-////
-////    @Column(name = "description")
-////    private String description;
-////
-////    @Enumerated(EnumType.STRING)
-////    @Column(name = "type_recu")
-////    private TypeRecu typeRecu = TypeRecu.sms;
-////
-////    @Enumerated(EnumType.STRING)
-////    @Column(name = "statut")
-////    private StatutRecu statut = StatutRecu.succes;
-////
-////    @Column(name = "contenu")
-////    private String contenu;
-////
-////    // Relations
-////    @ManyToOne(fetch = FetchType.LAZY)
-////    @JoinColumn(name = "id_paiement", insertable = false, updatable = false)
-////    private Paiement paiement;
-////
-////    @ManyToOne(fetch = FetchType.LAZY)
-////    @JoinColumn(name = "quittance_id", insertable = false, updatable = false)
-////    private Quittance quittance;
-////
-////    public enum TypeRecu {
-////        sms, qr_code, pdf
-////    }
-////
-////    public enum StatutRecu {
-////        succes, en_attente, echec
-////    }
-////}
-//
-//
-//
-//
-//package Commune.Dev.Models;
-//
-//import jakarta.persistence.*;
-//import lombok.AllArgsConstructor;
-//import lombok.Builder;
-//import lombok.Data;
-//import lombok.NoArgsConstructor;
-//
-//@Entity
-//@Table(name = "recus")
-//@Data
-//@NoArgsConstructor
-//@AllArgsConstructor
-//@Builder
-//public class Recu {
-//
-//    @Id
-//    @GeneratedValue(strategy = GenerationType.IDENTITY)
-//    private Long id;
-//
-//    @Column(name = "percepteur_id", nullable = false)
-//    private Long percepteurId;
-//
-//    @Column(nullable = false, unique = true)
-//    private String numero;
-//
-//    @Enumerated(EnumType.STRING)
-//    @Column(nullable = false)
-//    private StatusQuittance etat;
-//
-//    @Column(name = "created_at")
-//    private java.time.LocalDateTime createdAt;
-//
-//    @PrePersist
-//    protected void onCreate() {
-//        createdAt = java.time.LocalDateTime.now();
-//        if (etat == null) {
-//            etat = StatusQuittance.DISPONIBLE;
-//        }
-//    }
-//
-//
-//        @OneToOne(fetch = FetchType.LAZY)
-//    @JoinColumn(name = "id_paiement", insertable = false, updatable = false)
-//    private Paiement paiement;
-//
-//    @ManyToOne(fetch = FetchType.LAZY)
-//    @JoinColumn(name = "quittance_id", insertable = false, updatable = false)
-//    private Quittance quittance;
-//}
-//
+package Commune.Dev.Models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reçu généré pour un paiement (RecuService).
+ * Les documents sont stockés sur disque sous leur empreinte SHA-256 : la ligne ne garde
+ * que les empreintes et les tailles du rendu texte (imprimante thermique) et du rendu PDF.
+ */
+@Entity
+@Table(name = "recu", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_recu_paiement", columnNames = "paiement_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Recu {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "paiement_id", nullable = false)
+    private Integer paiementId;
+
+    @Column(name = "empreinte_texte", nullable = false, length = 64)
+    private String empreinteTexte;
+
+    @Column(name = "taille_texte", nullable = false)
+    private Integer tailleTexte;
+
+    @Column(name = "empreinte_pdf", nullable = false, length = 64)
+    private String empreintePdf;
+
+    @Column(name = "taille_pdf", nullable = false)
+    private Integer taillePdf;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public enum Format {
+        TEXTE("txt", "text/plain;charset=UTF-8"),
+        PDF("pdf", "application/pdf");
+
+        public final String extension;
+        public final String typeContenu;
+
+        Format(String extension, String typeContenu) {
+            this.extension = extension;
+            this.typeContenu = typeContenu;
+        }
+
+        public static Format depuisNom(String nom) {
+            try {
+                return valueOf(nom.trim().toUpperCase());
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Format de reçu inconnu: " + nom);
+            }
+        }
+    }
+
+    public String empreinte(Format format) {
+        return format == Format.PDF ? empreintePdf : empreinteTexte;
+    }
+}
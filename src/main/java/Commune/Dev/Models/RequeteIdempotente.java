@@ -0,0 +1,62 @@
+package Commune.Dev.Models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Réponse mémorisée pour un en-tête Idempotency-Key : un renvoi de la même requête
+ * reçoit cette réponse au lieu d'exécuter le paiement une seconde fois.
+ */
+@Entity
+@Table(name = "requete_idempotente", indexes = {
+        @Index(name = "idx_requete_idempotente_expire_at", columnList = "expire_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequeteIdempotente {
+
+    @Id
+    @Column(name = "cle", length = 100)
+    private String cle;
+
+    // SHA-256 de la méthode, du chemin et du corps de la requête d'origine
+    @Column(name = "empreinte_requete", nullable = false, length = 64)
+    private String empreinteRequete;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "statut", nullable = false)
+    private Statut statut;
+
+    @Column(name = "code_http")
+    private Integer codeHttp;
+
+    @Column(name = "type_contenu")
+    private String typeContenu;
+
+    @Column(name = "corps_reponse")
+    private byte[] corpsReponse;
+
+    // Identifiant de la réservation en cours ; change quand une réservation abandonnée est reprise
+    @Column(name = "jeton", length = 36)
+    private String jeton;
+
+    // Paiements créés, écrits dans leur transaction : non null = requête exécutée, jamais rejouée
+    @Column(name = "paiement_ids", columnDefinition = "text")
+    private String paiementIds;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expire_at", nullable = false)
+    private LocalDateTime expireAt;
+
+    public enum Statut {
+        EN_COURS,
+        TERMINEE
+    }
+}
@@ -1,5 +1,6 @@
 package Commune.Dev.Models;
 
+import Commune.Dev.Config.SyncSuppressionListener;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -14,6 +15,7 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@EntityListeners(SyncSuppressionListener.class)
 public class Session {
 
     @Id
@@ -56,8 +58,10 @@ public class Session {
     @Enumerated(EnumType.STRING)
     private SessionStatus status;
 
-    // Montant total collecté pendant la session
-    @Column(name = "total_collected")
+    // Montant total collecté pendant la session.
+    // Initialisé à la création, puis uniquement incrémenté en base (SessionRepository.ajouterAuTotal)
+    // pour qu'une sauvegarde de l'entité n'écrase pas les paiements encaissés entre-temps
+    @Column(name = "total_collected", updatable = false)
     private BigDecimal totalCollected;
 
     // Observations ou remarques
@@ -70,6 +74,16 @@ public class Session {
     @Column(name = "isValid")
     private Boolean isValid= false;
 
+    // Date de dernière modification, utilisée par la synchronisation différentielle
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
     public enum SessionType {
         PERCEPTEUR,
         REGISSEUR
@@ -88,8 +102,4 @@ public class Session {
 
 
 
-    public void addToTotal(BigDecimal montant) {
-        if (this.totalCollected == null) this.totalCollected = BigDecimal.ZERO;
-        this.totalCollected = this.totalCollected.add(montant);
-    }
 }
\ No newline at end of file
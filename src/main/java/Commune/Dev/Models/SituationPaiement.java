@@ -0,0 +1,84 @@
+package Commune.Dev.Models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Dernière période payée par un marchand, pour un type de paiement.
+ * Mise à jour dans la même transaction que l'insertion du paiement : la période suivante
+ * se déduit de cette ligne sans relire l'historique des paiements.
+ */
+@Entity
+@Table(name = "situation_paiement")
+@IdClass(SituationPaiement.Cle.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SituationPaiement {
+
+    @Id
+    @Column(name = "marchand_id", nullable = false)
+    private Integer marchandId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type_paiement", nullable = false)
+    private Paiement.Typepaiement typePaiement;
+
+    // Fin de la dernière période payée (droit de place)
+    @Column(name = "date_fin_periode")
+    private LocalDate dateFinPeriode;
+
+    // Numéro de la dernière période payée : "Mois 3" -> 3 ; 0 si aucun paiement
+    @Column(name = "index_periode", nullable = false)
+    private Integer indexPeriode = 0;
+
+    // Dernière année de droit annuel payée
+    @Column(name = "derniere_annee")
+    private Integer derniereAnnee;
+
+    @Column(name = "dernier_paiement_date")
+    private LocalDateTime dernierPaiementDate;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public SituationPaiement(Integer marchandId, Paiement.Typepaiement typePaiement) {
+        this.marchandId = marchandId;
+        this.typePaiement = typePaiement;
+    }
+
+    /**
+     * Avance la situation après un paiement du même marchand et du même type.
+     */
+    public void enregistrer(Paiement paiement) {
+        if (paiement.getDateFin() != null) {
+            dateFinPeriode = paiement.getDateFin();
+        }
+        if (paiement.getAnneePaye() != null) {
+            derniereAnnee = paiement.getAnneePaye().getValue();
+        }
+        indexPeriode = indexPeriode + 1;
+        dernierPaiementDate = paiement.getDatePaiement();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Cle implements Serializable {
+        private Integer marchandId;
+        private Paiement.Typepaiement typePaiement;
+    }
+}
@@ -0,0 +1,59 @@
+package Commune.Dev.Models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trace d'une suppression, lue par la synchronisation différentielle
+ * pour signaler au mobile les lignes à retirer de sa base locale.
+ * La portée (marché, zone, hall de la place ; utilisateur propriétaire de la session ou de
+ * la quittance) est relevée à la suppression : seuls les agents concernés reçoivent la trace.
+ */
+@Entity
+@Table(name = "sync_suppression", indexes = {
+        @Index(name = "idx_sync_suppression_deleted_at", columnList = "deleted_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncSuppression {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false)
+    private EntiteSync entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    @Column(name = "marchee_id")
+    private Long marcheeId;
+
+    @Column(name = "zone_id")
+    private Long zoneId;
+
+    @Column(name = "hall_id")
+    private Long hallId;
+
+    // Percepteur de la quittance, ou utilisateur de la session
+    @Column(name = "user_id")
+    private Long userId;
+
+    public enum EntiteSync {
+        PLACE,
+        MARCHAND,
+        PAIEMENT,
+        QUITTANCE,
+        SESSION
+    }
+}
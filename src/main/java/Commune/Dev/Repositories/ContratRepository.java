@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -46,6 +47,23 @@ public interface ContratRepository extends JpaRepository<Contrat, Integer> {
     @Query("SELECT c FROM Contrat c WHERE c.isActif = true")
     List<Contrat> findAllActifs();
 
+    // Analyse des retards : contrats actifs d'une tranche de marchands
+    // -> [idMarchand, dateOfStart, frequencePaiement, idPlace, montant catégorie, montant droit annuel]
+    @Query("SELECT c.idMarchand, c.dateOfStart, c.frequencePaiement, c.idPlace, cat.montant, da.montant " +
+            "FROM Contrat c LEFT JOIN c.categorie cat LEFT JOIN c.droitAnnuel da " +
+            "WHERE c.isActif = true AND c.idMarchand >= :debut AND c.idMarchand < :fin ORDER BY c.id")
+    List<Object[]> findEcheanciersActifs(@Param("debut") Integer debut, @Param("fin") Integer fin);
+
+    // Recalcul au fil de l'eau : contrats actifs de quelques marchands, mêmes colonnes que findEcheanciersActifs
+    @Query("SELECT c.idMarchand, c.dateOfStart, c.frequencePaiement, c.idPlace, cat.montant, da.montant " +
+            "FROM Contrat c LEFT JOIN c.categorie cat LEFT JOIN c.droitAnnuel da " +
+            "WHERE c.isActif = true AND c.idMarchand IN :marchandIds ORDER BY c.id")
+    List<Object[]> findEcheanciersActifsByMarchandIdIn(@Param("marchandIds") Collection<Integer> marchandIds);
+
+    // Bornes des identifiants de marchands ayant un contrat actif -> [min, max]
+    @Query("SELECT MIN(c.idMarchand), MAX(c.idMarchand) FROM Contrat c WHERE c.isActif = true")
+    List<Object[]> findBornesMarchandsActifs();
+
     @Query("""
         SELECT DISTINCT c FROM Contrat c
         JOIN FETCH c.marchand m
@@ -66,6 +84,12 @@ public interface ContratRepository extends JpaRepository<Contrat, Integer> {
 
     List<Contrat> findByIdPlaceInAndIsActif(List<Integer> placeIds, Boolean isActif);
 
-
+    // Import hors ligne : contrats des marchands avec leur tarif, du plus récent au plus ancien
+    @Query("SELECT c FROM Contrat c " +
+            "LEFT JOIN FETCH c.categorie " +
+            "LEFT JOIN FETCH c.droitAnnuel " +
+            "LEFT JOIN FETCH c.place " +
+            "WHERE c.idMarchand IN :marchandIds " +
+            "ORDER BY c.dateOfStart DESC")
+    List<Contrat> findByIdMarchandInWithTarifs(@Param("marchandIds") Collection<Integer> marchandIds);
 }
-
@@ -0,0 +1,61 @@
+package Commune.Dev.Repositories;
+
+import Commune.Dev.Models.CurseurDestinationOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CurseurDestinationOutboxRepository extends JpaRepository<CurseurDestinationOutbox, String> {
+
+    // Nouvelle destination : elle part après les événements déjà relayés à toutes les destinations
+    @Modifying
+    @Query(value = "INSERT INTO curseur_destination_outbox (destination, dernier_xid, dernier_id, tentatives, updated_at) " +
+            "SELECT :destination, COALESCE(e.xid, 0), COALESCE(e.id, 0), 0, :maintenant FROM (SELECT 1) s " +
+            "LEFT JOIN (SELECT xid, id FROM evenement_sortant WHERE traite_at IS NOT NULL " +
+            "ORDER BY xid DESC, id DESC LIMIT 1) e ON TRUE " +
+            "ON CONFLICT (destination) DO NOTHING", nativeQuery = true)
+    int initialiser(@Param("destination") String destination, @Param("maintenant") LocalDateTime maintenant);
+
+    // Prise du bail de livraison : 0 ligne si un autre relais livre déjà cette destination
+    @Modifying
+    @Query("UPDATE CurseurDestinationOutbox c SET c.bailJusqua = :finBail WHERE c.destination = :destination " +
+            "AND (c.bailJusqua IS NULL OR c.bailJusqua < :maintenant)")
+    int prendreBail(@Param("destination") String destination,
+                    @Param("finBail") LocalDateTime finBail,
+                    @Param("maintenant") LocalDateTime maintenant);
+
+    // Lot livré : le curseur avance (jamais en arrière, si un bail expiré a laissé livrer deux fois) et le bail est rendu
+    @Modifying
+    @Query(value = "UPDATE curseur_destination_outbox SET " +
+            "dernier_id = CASE WHEN (dernier_xid, dernier_id) < (:xid, :id) THEN :id ELSE dernier_id END, " +
+            "dernier_xid = CASE WHEN (dernier_xid, dernier_id) < (:xid, :id) THEN :xid ELSE dernier_xid END, " +
+            "tentatives = 0, derniere_erreur = NULL, bail_jusqua = NULL, updated_at = :maintenant " +
+            "WHERE destination = :destination", nativeQuery = true)
+    int avancer(@Param("destination") String destination,
+                @Param("xid") Long xid,
+                @Param("id") Long id,
+                @Param("maintenant") LocalDateTime maintenant);
+
+    // Rien à livrer : le bail est rendu sans toucher au curseur
+    @Modifying
+    @Query("UPDATE CurseurDestinationOutbox c SET c.bailJusqua = NULL WHERE c.destination = :destination")
+    int rendreBail(@Param("destination") String destination);
+
+    // Échec de livraison, noté dans sa propre transaction ; le bail est rendu pour le passage suivant
+    @Modifying
+    @Query("UPDATE CurseurDestinationOutbox c SET c.tentatives = c.tentatives + 1, c.bailJusqua = NULL, " +
+            "c.derniereErreur = :erreur, c.updatedAt = :maintenant WHERE c.destination = :destination")
+    int noterEchec(@Param("destination") String destination,
+                   @Param("erreur") String erreur,
+                   @Param("maintenant") LocalDateTime maintenant);
+
+    // Curseurs des destinations actives, pour retrouver la plus en retard
+    List<CurseurDestinationOutbox> findByDestinationIn(Collection<String> destinations);
+}
@@ -0,0 +1,42 @@
+package Commune.Dev.Repositories;
+
+import Commune.Dev.Models.EvenementSortant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EvenementSortantRepository extends JpaRepository<EvenementSortant, Long> {
+
+    // Prochains événements à livrer à une destination, dans l'ordre (xid, id). Seules les transactions
+    // antérieures au plus ancien xid encore actif sont lues : aucun événement ne peut plus apparaître
+    // avant le curseur, même validé longtemps après son insertion
+    @Query(value = "SELECT * FROM evenement_sortant WHERE (xid, id) > (:apresXid, :apresId) " +
+            "AND xid < CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS text) AS bigint) " +
+            "ORDER BY xid, id LIMIT :limite",
+            nativeQuery = true)
+    List<EvenementSortant> findApres(@Param("apresXid") Long apresXid,
+                                     @Param("apresId") Long apresId,
+                                     @Param("limite") int limite);
+
+    // Événements livrés à toutes les destinations
+    @Modifying
+    @Query(value = "UPDATE evenement_sortant SET traite_at = :maintenant " +
+            "WHERE traite_at IS NULL AND (xid, id) <= (:jusquAXid, :jusquAId)",
+            nativeQuery = true)
+    int marquerTraitesJusqua(@Param("jusquAXid") Long jusquAXid,
+                             @Param("jusquAId") Long jusquAId,
+                             @Param("maintenant") LocalDateTime maintenant);
+
+    // Purge des événements relayés
+    @Modifying
+    @Query("DELETE FROM EvenementSortant e WHERE e.traiteAt < :avant")
+    int deleteTraitesAvant(@Param("avant") LocalDateTime avant);
+
+    long countByTraiteAtIsNull();
+}
@@ -0,0 +1,69 @@
+package Commune.Dev.Repositories;
+
+import Commune.Dev.Models.ExecutionTache;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ExecutionTacheRepository extends JpaRepository<ExecutionTache, Long> {
+
+    // Dernières exécutions d'une tâche, la plus récente d'abord
+    List<ExecutionTache> findByTacheOrderByDebutAtDescIdDesc(String tache, Pageable pageable);
+
+    // Exécutions EN_COURS dont le bail n'est plus renouvelé : interrompues par un arrêt de l'instance
+    @Modifying
+    @Query("UPDATE ExecutionTache e SET e.statut = Commune.Dev.Models.ExecutionTache.Statut.ECHEC, " +
+            "e.finAt = :maintenant, e.erreur = 'Exécution interrompue' " +
+            "WHERE e.tache = :tache AND e.statut = Commune.Dev.Models.ExecutionTache.Statut.EN_COURS " +
+            "AND COALESCE(e.renouveleAt, e.debutAt) < :finBail")
+    int marquerInterrompues(@Param("tache") String tache,
+                            @Param("finBail") LocalDateTime finBail,
+                            @Param("maintenant") LocalDateTime maintenant);
+
+    // Bail en cours : une exécution de la tâche tourne encore
+    boolean existsByTacheAndStatut(String tache, ExecutionTache.Statut statut);
+
+    // Renouvellement du bail pendant l'exécution ; 0 ligne si l'exécution a été tenue pour interrompue
+    @Modifying
+    @Query("UPDATE ExecutionTache e SET e.renouveleAt = :maintenant " +
+            "WHERE e.id = :id AND e.statut = Commune.Dev.Models.ExecutionTache.Statut.EN_COURS")
+    int renouvelerBail(@Param("id") Long id, @Param("maintenant") LocalDateTime maintenant);
+
+    // Fin de l'exécution ; une exécution déjà passée en ECHEC (bail perdu) n'est pas réécrite
+    @Modifying
+    @Query("UPDATE ExecutionTache e SET e.statut = :statut, e.finAt = :finAt, e.dureeMs = :dureeMs, " +
+            "e.lignesTraitees = :lignesTraitees, e.erreur = :erreur " +
+            "WHERE e.id = :id AND e.statut = Commune.Dev.Models.ExecutionTache.Statut.EN_COURS")
+    int terminer(@Param("id") Long id,
+                 @Param("statut") ExecutionTache.Statut statut,
+                 @Param("finAt") LocalDateTime finAt,
+                 @Param("dureeMs") Long dureeMs,
+                 @Param("lignesTraitees") Integer lignesTraitees,
+                 @Param("erreur") String erreur);
+
+    // Exécution réussie sans effet, retirée de l'historique si elle tient encore son bail
+    @Modifying
+    @Query("DELETE FROM ExecutionTache e " +
+            "WHERE e.id = :id AND e.statut = Commune.Dev.Models.ExecutionTache.Statut.EN_COURS")
+    int supprimerEnCours(@Param("id") Long id);
+
+    // Par tâche depuis une date : [tache, exécutions, échecs, ignorées, durée moyenne, durée max, lignes traitées]
+    @Query("SELECT e.tache, COUNT(e), " +
+            "SUM(CASE WHEN e.statut = Commune.Dev.Models.ExecutionTache.Statut.ECHEC THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN e.statut = Commune.Dev.Models.ExecutionTache.Statut.IGNOREE THEN 1 ELSE 0 END), " +
+            "AVG(e.dureeMs), MAX(e.dureeMs), SUM(e.lignesTraitees) " +
+            "FROM ExecutionTache e WHERE e.debutAt >= :depuis GROUP BY e.tache ORDER BY e.tache")
+    List<Object[]> statistiquesDepuis(@Param("depuis") LocalDateTime depuis);
+
+    // Purge de l'historique
+    @Modifying
+    @Query("DELETE FROM ExecutionTache e WHERE e.debutAt < :avant")
+    int deleteDebuteesAvant(@Param("avant") LocalDateTime avant);
+}
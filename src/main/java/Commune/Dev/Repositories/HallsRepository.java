@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -48,4 +49,11 @@ public interface HallsRepository extends JpaRepository<Halls, Integer>, JpaSpeci
 
     List<Halls> findByMarcheeIdIn(List<Long> marcheeIds);
     List<Halls> findByZoneIdIn(List<Long> zoneIds);
+
+    // Identifiants seuls, pour le calcul du territoire d'un utilisateur
+    @Query("SELECT h.id FROM Halls h WHERE h.marchee.id IN :marcheeIds")
+    List<Long> findIdsByMarcheeIdIn(@Param("marcheeIds") Collection<Long> marcheeIds);
+
+    @Query("SELECT h.id FROM Halls h WHERE h.zone.id IN :zoneIds")
+    List<Long> findIdsByZoneIdIn(@Param("zoneIds") Collection<Long> zoneIds);
 }
\ No newline at end of file
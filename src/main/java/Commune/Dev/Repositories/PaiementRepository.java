@@ -6,11 +6,13 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Repository
 public interface PaiementRepository extends JpaRepository<Paiement, Integer> {
@@ -143,9 +145,35 @@ public interface PaiementRepository extends JpaRepository<Paiement, Integer> {
 
 
 
-    List<Paiement> findByMarchandIdInAndDatePaiementBetween(
-            List<Integer> marchandIds,
-            LocalDateTime dateDebut,
-            LocalDateTime dateFin
+    // Montant encaissé auprès de ces marchands sur la période, sommé en base
+    @Query("SELECT COALESCE(SUM(p.montant), 0) FROM Paiement p " +
+            "WHERE p.marchand.id IN :marchandIds AND p.datePaiement BETWEEN :dateDebut AND :dateFin")
+    BigDecimal sumMontantByMarchandIdInAndDatePaiementBetween(
+            @Param("marchandIds") List<Integer> marchandIds,
+            @Param("dateDebut") LocalDateTime dateDebut,
+            @Param("dateFin") LocalDateTime dateFin
     );
+
+    // Rendu d'un reçu : le paiement et tout ce qui est imprimé dessus, en une requête
+    @Query("SELECT p FROM Paiement p LEFT JOIN FETCH p.marchand LEFT JOIN FETCH p.agent " +
+            "LEFT JOIN FETCH p.place JOIN FETCH p.quittance WHERE p.id = :id")
+    Optional<Paiement> findPourRecu(@Param("id") Integer id);
+
+    // Import hors ligne : paiements déjà enregistrés pour ces identifiants client -> [clientUuid, id]
+    @Query("SELECT p.clientUuid, p.id FROM Paiement p WHERE p.clientUuid IN :clientUuids")
+    List<Object[]> findIdsByClientUuidIn(@Param("clientUuids") Collection<UUID> clientUuids);
+
+    // Amorçage d'une situation de paiement : paiement couvrant la période la plus tardive ; à égalité
+    // (lignes d'un même lot enregistrées au même instant), le dernier inséré
+    @Query(value = "SELECT * FROM paiement WHERE id_marchand = :marchandId AND type_paiement = :typePaiement " +
+            "ORDER BY date_fin DESC NULLS LAST, date_paiement DESC NULLS LAST, id DESC LIMIT 1",
+            nativeQuery = true)
+    Optional<Paiement> findDernierePeriodePayee(@Param("marchandId") Integer marchandId,
+                                                @Param("typePaiement") String typePaiement);
+
+    // Amorçage des situations de paiement : même choix que findDernierePeriodePayee, par marchand et par type
+    @Query(value = "SELECT DISTINCT ON (id_marchand, type_paiement) * FROM paiement WHERE id_marchand IN (:marchandIds) " +
+            "ORDER BY id_marchand, type_paiement, date_fin DESC NULLS LAST, date_paiement DESC NULLS LAST, id DESC",
+            nativeQuery = true)
+    List<Paiement> findDerniersPaiementsParTypeByMarchandIdIn(@Param("marchandIds") Collection<Integer> marchandIds);
 }
@@ -0,0 +1,33 @@
+package Commune.Dev.Repositories;
+
+import Commune.Dev.Models.PartitionAnalyseContrats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PartitionAnalyseContratsRepository extends JpaRepository<PartitionAnalyseContrats, Long> {
+
+    // Tranches non terminées d'une exécution récente, la plus récente d'abord
+    List<PartitionAnalyseContrats> findByTermineeAtIsNullAndCreeeAtAfterOrderByExecutionDescIdAsc(LocalDateTime depuis);
+
+    // Fin d'une tranche, dans la transaction qui a écrit ses statuts
+    @Modifying
+    @Query("UPDATE PartitionAnalyseContrats p SET p.termineeAt = :maintenant, " +
+            "p.marchandsAnalyses = :analyses, p.statutsModifies = :modifies " +
+            "WHERE p.id = :id AND p.termineeAt IS NULL")
+    int terminer(@Param("id") Long id,
+                 @Param("maintenant") LocalDateTime maintenant,
+                 @Param("analyses") int analyses,
+                 @Param("modifies") int modifies);
+
+    // Purge de l'historique des exécutions
+    @Modifying
+    @Query("DELETE FROM PartitionAnalyseContrats p WHERE p.creeeAt < :avant")
+    int deleteCreeesAvant(@Param("avant") LocalDateTime avant);
+}
@@ -2,6 +2,7 @@ package Commune.Dev.Repositories;
 
 import Commune.Dev.Models.Place;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -20,6 +21,16 @@ public interface PlaceRepository extends JpaRepository<Place, Integer> {
 
 
 
+    // Synchronisation différentielle : les montants de la catégorie et du droit annuel voyagent
+    // avec les places, une modification doit donc rafraîchir les places concernées
+    @Modifying
+    @Query("UPDATE Place p SET p.updatedAt = :maintenant WHERE p.categorie.id = :categorieId")
+    int toucherParCategorie(@Param("categorieId") Integer categorieId, @Param("maintenant") LocalDateTime maintenant);
+
+    @Modifying
+    @Query("UPDATE Place p SET p.updatedAt = :maintenant WHERE p.droitAnnuel.id = :droitAnnuelId")
+    int toucherParDroitAnnuel(@Param("droitAnnuelId") Integer droitAnnuelId, @Param("maintenant") LocalDateTime maintenant);
+
     List<Place> findByMarcheeId(Long marcheeId);
     List<Place> findByHallId(Long hallId);
     List<Place> findByZoneId(Long zoneId);
@@ -145,6 +156,7 @@ public interface PlaceRepository extends JpaRepository<Place, Integer> {
     List<Place> findByMarcheeIdIn(List<Long> marcheeIds);
     List<Place> findByZoneIdIn(List<Long> zoneIds);
     List<Place> findByHallIdIn(List<Long> hallIds);
+
     @Query("SELECT DISTINCT p FROM Place p " +
             "LEFT JOIN p.zone z " +
             "LEFT JOIN p.hall h " +
@@ -8,9 +8,12 @@ import Commune.Dev.Models.StatusQuittance;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -41,5 +44,25 @@ public interface QuittanceRepository extends JpaRepository<Quittance, Long> {
     Optional<Quittance> findByNom(String nom);   //0099887A OU 0099887a
 
     List<Quittance> findByPercepteurId(Long userId);
-}
 
+    // Import hors ligne : quittances référencées par un lot de paiements
+    List<Quittance> findByNomIn(Collection<String> noms);
+
+    // Paiement : réserve la quittance si elle est encore disponible (0 ligne si un autre paiement l'a prise)
+    @Modifying
+    @Query("UPDATE Quittance q SET q.etat = Commune.Dev.Models.StatusQuittance.UTILISE, " +
+            "q.dateUtilisation = :maintenant, q.updatedAt = :maintenant " +
+            "WHERE q.id = :id AND q.etat = Commune.Dev.Models.StatusQuittance.DISPONIBLE")
+    int reserver(@Param("id") Long id, @Param("maintenant") LocalDateTime maintenant);
+
+    // Attribution automatique : plus ancienne quittance disponible du percepteur,
+    // en sautant celles qu'un paiement concurrent est en train de prendre
+    @Query(value = "SELECT * FROM quittance WHERE percepteur_id = :percepteurId AND etat = 'DISPONIBLE' " +
+            "ORDER BY id LIMIT 1 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<Quittance> findProchaineDisponible(@Param("percepteurId") Long percepteurId);
+
+    // Attribution automatique pour un lot : les plus anciennes quittances disponibles du percepteur
+    @Query(value = "SELECT * FROM quittance WHERE percepteur_id = :percepteurId AND etat = 'DISPONIBLE' " +
+            "ORDER BY id LIMIT :nombre FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Quittance> findProchainesDisponibles(@Param("percepteurId") Long percepteurId, @Param("nombre") int nombre);
+}
@@ -1,24 +1,48 @@
-//package Commune.Dev.Repositories;
-//
-//import Commune.Dev.Models.EtatRecu;
-//import Commune.Dev.Models.Recu;
-//import org.springframework.data.domain.Page;
-//import org.springframework.data.domain.Pageable;
-//import org.springframework.data.jpa.repository.JpaRepository;
-//import org.springframework.data.jpa.repository.Query;
-//import org.springframework.data.repository.query.Param;
-//import org.springframework.stereotype.Repository;
-//import java.util.List;
-//
-//@Repository
-//public interface RecuRepository extends JpaRepository<Recu, Long> {
-//
-//    boolean existsByNumeroIn(List<String> numeros);
-//
-//    @Query("SELECT r.numero FROM Recu r WHERE r.numero IN :numeros")
-//    List<String> findExistingNumeros(@Param("numeros") List<String> numeros);
-//
-//    Page<Recu> findByPercepteurIdOrderByCreatedAtDesc(Long percepteurId, Pageable pageable);
-//
-//    long countByPercepteurIdAndEtat(Long percepteurId, EtatRecu etat);
-//}
+package Commune.Dev.Repositories;
+
+import Commune.Dev.Models.Recu;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RecuRepository extends JpaRepository<Recu, Long> {
+
+    Optional<Recu> findByPaiementId(Integer paiementId);
+
+    boolean existsByPaiementId(Integer paiementId);
+
+    // Enregistrement d'un reçu généré : sans effet si un autre worker l'a déjà enregistré
+    @Modifying
+    @Query(value = "INSERT INTO recu (paiement_id, empreinte_texte, taille_texte, empreinte_pdf, taille_pdf, created_at) " +
+            "VALUES (:paiementId, :empreinteTexte, :tailleTexte, :empreintePdf, :taillePdf, :maintenant) " +
+            "ON CONFLICT (paiement_id) DO NOTHING",
+            nativeQuery = true)
+    int enregistrer(@Param("paiementId") Integer paiementId,
+                    @Param("empreinteTexte") String empreinteTexte,
+                    @Param("tailleTexte") int tailleTexte,
+                    @Param("empreintePdf") String empreintePdf,
+                    @Param("taillePdf") int taillePdf,
+                    @Param("maintenant") LocalDateTime maintenant);
+
+    // Paiements récemment enregistrés encore sans reçu (file pleine, redémarrage, échec de rendu) ;
+    // filtre sur l'écriture en base : un paiement hors ligne peut dater de plusieurs jours
+    @Query(value = "SELECT p.id FROM paiement p WHERE p.updated_at >= :depuis " +
+            "AND NOT EXISTS (SELECT 1 FROM recu r WHERE r.paiement_id = p.id) ORDER BY p.id LIMIT :limite",
+            nativeQuery = true)
+    List<Integer> findPaiementsSansRecu(@Param("depuis") LocalDateTime depuis, @Param("limite") int limite);
+
+    @Modifying
+    @Query("DELETE FROM Recu r WHERE r.paiementId = :paiementId")
+    int deleteByPaiementId(@Param("paiementId") Integer paiementId);
+
+    // Fichier encore utilisé par un autre reçu (stockage par empreinte)
+    @Query("SELECT COUNT(r) > 0 FROM Recu r WHERE r.empreinteTexte = :empreinte OR r.empreintePdf = :empreinte")
+    boolean existsByEmpreinte(@Param("empreinte") String empreinte);
+}
@@ -0,0 +1,62 @@
+package Commune.Dev.Repositories;
+
+import Commune.Dev.Models.RequeteIdempotente;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface RequeteIdempotenteRepository extends JpaRepository<RequeteIdempotente, String> {
+
+    // Réservation d'une clé encore inconnue : 0 ligne si elle existe déjà
+    @Modifying
+    @Query(value = "INSERT INTO requete_idempotente (cle, empreinte_requete, statut, jeton, created_at, expire_at) " +
+            "VALUES (:cle, :empreinte, 'EN_COURS', :jeton, :maintenant, :expireAt) " +
+            "ON CONFLICT (cle) DO NOTHING",
+            nativeQuery = true)
+    int insererSiAbsente(@Param("cle") String cle,
+                         @Param("empreinte") String empreinte,
+                         @Param("jeton") String jeton,
+                         @Param("maintenant") LocalDateTime maintenant,
+                         @Param("expireAt") LocalDateTime expireAt);
+
+    // Clé existante, verrouillée pour une reprise ; vide si la transaction d'un paiement la tient encore
+    @Query(value = "SELECT * FROM requete_idempotente WHERE cle = :cle FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<RequeteIdempotente> findByCleSiLibre(@Param("cle") String cle);
+
+    // Marque la réservation comme exécutée, dans la transaction des paiements ; 0 ligne si la clé a été reprise
+    @Modifying
+    @Query(value = "UPDATE requete_idempotente SET paiement_ids = COALESCE(paiement_ids || ',', '') || :paiementIds " +
+            "WHERE cle = :cle AND jeton = :jeton AND statut = 'EN_COURS'",
+            nativeQuery = true)
+    int marquerExecutee(@Param("cle") String cle,
+                        @Param("jeton") String jeton,
+                        @Param("paiementIds") String paiementIds);
+
+    // Enregistre la réponse, seulement si la réservation n'a pas été reprise entre-temps
+    @Modifying
+    @Query("UPDATE RequeteIdempotente r SET r.statut = 'TERMINEE', r.codeHttp = :codeHttp, " +
+            "r.typeContenu = :typeContenu, r.corpsReponse = :corps " +
+            "WHERE r.cle = :cle AND r.jeton = :jeton AND r.statut = 'EN_COURS'")
+    int terminer(@Param("cle") String cle,
+                 @Param("jeton") String jeton,
+                 @Param("codeHttp") Integer codeHttp,
+                 @Param("typeContenu") String typeContenu,
+                 @Param("corps") byte[] corps);
+
+    // Libération d'une réservation en échec ; une requête exécutée ou terminée n'est jamais supprimée
+    @Modifying
+    @Query("DELETE FROM RequeteIdempotente r WHERE r.cle = :cle AND r.jeton = :jeton " +
+            "AND r.statut = 'EN_COURS' AND r.paiementIds IS NULL")
+    int supprimerEnCours(@Param("cle") String cle, @Param("jeton") String jeton);
+
+    // Purge des réponses expirées
+    @Modifying
+    @Query("DELETE FROM RequeteIdempotente r WHERE r.expireAt < :maintenant")
+    int deleteExpirees(@Param("maintenant") LocalDateTime maintenant);
+}
@@ -2,9 +2,13 @@ package Commune.Dev.Repositories;
 
 import Commune.Dev.Models.Session;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -45,4 +49,12 @@ public interface SessionRepository extends JpaRepository<Session, Long> {
     Optional<Session> findOpenSessionByUser(Long userId, Session.SessionStatus status);
 
     List<Session> findByUserId(Integer userId);
+
+    // Encaissement : incrément atomique du total, refusé si la session a été fermée entre-temps (0 ligne)
+    @Modifying
+    @Query("UPDATE Session s SET s.totalCollected = COALESCE(s.totalCollected, 0) + :montant, " +
+            "s.updatedAt = :maintenant WHERE s.id = :sessionId AND s.status = Commune.Dev.Models.Session.SessionStatus.OUVERTE")
+    int ajouterAuTotal(@Param("sessionId") Long sessionId,
+                       @Param("montant") BigDecimal montant,
+                       @Param("maintenant") LocalDateTime maintenant);
 }
\ No newline at end of file
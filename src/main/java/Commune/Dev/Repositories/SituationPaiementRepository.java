@@ -0,0 +1,56 @@
+package Commune.Dev.Repositories;
+
+import Commune.Dev.Models.Paiement;
+import Commune.Dev.Models.SituationPaiement;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SituationPaiementRepository extends JpaRepository<SituationPaiement, SituationPaiement.Cle> {
+
+    // Lecture avant paiement : verrouille la ligne pour que deux paiements simultanés
+    // du même marchand ne calculent pas la même période
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SituationPaiement s WHERE s.marchandId = :marchandId AND s.typePaiement = :type")
+    Optional<SituationPaiement> findPourPaiement(@Param("marchandId") Integer marchandId,
+                                                 @Param("type") Paiement.Typepaiement type);
+
+    // Import groupé : situations de plusieurs marchands, verrouillées pour la durée du lot
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SituationPaiement s WHERE s.marchandId IN :marchandIds")
+    List<SituationPaiement> findPourPaiementByMarchandIdIn(@Param("marchandIds") Collection<Integer> marchandIds);
+
+    // Amorçage : sans effet si un paiement simultané a déjà créé la situation ;
+    // la ligne est ensuite relue et verrouillée comme une situation existante
+    @Modifying
+    @Query(value = "INSERT INTO situation_paiement (marchand_id, type_paiement, date_fin_periode, index_periode, " +
+            "derniere_annee, dernier_paiement_date, updated_at) " +
+            "VALUES (:marchandId, :type, CAST(:dateFinPeriode AS date), :indexPeriode, " +
+            "CAST(:derniereAnnee AS integer), CAST(:dernierPaiementDate AS timestamp), :maintenant) " +
+            "ON CONFLICT (marchand_id, type_paiement) DO NOTHING",
+            nativeQuery = true)
+    int insererSiAbsente(@Param("marchandId") Integer marchandId,
+                         @Param("type") String type,
+                         @Param("dateFinPeriode") LocalDate dateFinPeriode,
+                         @Param("indexPeriode") Integer indexPeriode,
+                         @Param("derniereAnnee") Integer derniereAnnee,
+                         @Param("dernierPaiementDate") LocalDateTime dernierPaiementDate,
+                         @Param("maintenant") LocalDateTime maintenant);
+
+    // Suppression d'un paiement : la situation sera reconstruite au prochain paiement
+    @Modifying
+    @Query("DELETE FROM SituationPaiement s WHERE s.marchandId = :marchandId AND s.typePaiement = :type")
+    int deleteByMarchandIdAndTypePaiement(@Param("marchandId") Integer marchandId,
+                                          @Param("type") Paiement.Typepaiement type);
+}
@@ -0,0 +1,25 @@
+package Commune.Dev.Repositories;
+
+import Commune.Dev.Models.SyncSuppression;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SyncSuppressionRepository extends JpaRepository<SyncSuppression, Long> {
+
+    // Places d'un hall déplacé : trace de retrait pour les agents de son ancien rattachement.
+    // Un agent qui voit encore la place (nouveau rattachement) ne reçoit pas la trace (SyncService).
+    @Modifying
+    @Query(value = "INSERT INTO sync_suppression (entity_type, entity_id, deleted_at, marchee_id, zone_id, hall_id) " +
+            "SELECT 'PLACE', pl.id, :maintenant, :marcheeId, :zoneId, NULL FROM place pl WHERE pl.hall_id = :hallId",
+            nativeQuery = true)
+    int retirerPlacesDuHall(@Param("hallId") Long hallId,
+                            @Param("marcheeId") Long marcheeId,
+                            @Param("zoneId") Long zoneId,
+                            @Param("maintenant") LocalDateTime maintenant);
+}
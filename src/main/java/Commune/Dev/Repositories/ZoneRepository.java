@@ -9,6 +9,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -111,4 +112,8 @@ public interface ZoneRepository extends JpaRepository<Zone, Integer> {
 
 
     List<Zone> findByMarcheeIdIn(List<Long> marcheeIds);
+
+    // Identifiants seuls, pour le calcul du territoire d'un utilisateur
+    @Query("SELECT z.id FROM Zone z WHERE z.marchee.id IN :marcheeIds")
+    List<Long> findIdsByMarcheeIdIn(@Param("marcheeIds") Collection<Long> marcheeIds);
 }
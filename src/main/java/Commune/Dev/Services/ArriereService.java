@@ -0,0 +1,172 @@
+package Commune.Dev.Services;
+
+import Commune.Dev.Dtos.ArriereCriteresDTO;
+import Commune.Dev.Dtos.ArriereMarchandDTO;
+import Commune.Dev.Dtos.ArrierePageResponse;
+import Commune.Dev.Dtos.ArriereSyntheseDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Rapport des arriérés (montants dus et ancienneté) par marchand, et cumul par marché,
+ * zone, hall ou place. Lit la projection arriere_marchand tenue par ContratMonitoringService.
+ */
+@Service
+public class ArriereService {
+
+    private static final int TAILLE_PAGE_DEFAUT = 50;
+    private static final int TAILLE_PAGE_MAX = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public enum Groupement {
+        MARCHEE("a.marcheeId"),
+        ZONE("a.zoneId"),
+        HALL("a.hallId"),
+        PLACE("a.placeId");
+
+        private final String expression;
+
+        Groupement(String expression) {
+            this.expression = expression;
+        }
+
+        public static Groupement depuisNom(String nom) {
+            try {
+                return valueOf(nom.trim().toUpperCase());
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Groupement inconnu: " + nom);
+            }
+        }
+    }
+
+    // Tranches d'ancienneté de l'échéance, en jours
+    public enum Tranche {
+        T0_7("a.montant0a7"),
+        T8_30("a.montant8a30"),
+        T31_90("a.montant31a90"),
+        TPLUS_90("a.montantPlus90");
+
+        private final String expression;
+
+        Tranche(String expression) {
+            this.expression = expression;
+        }
+
+        public static Tranche depuisNom(String nom) {
+            try {
+                return valueOf("T" + nom.trim().toUpperCase());
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Tranche inconnue: " + nom + " (0_7, 8_30, 31_90 ou PLUS_90)");
+            }
+        }
+    }
+
+    /**
+     * Marchands ayant un montant dû, du plus élevé au plus faible, par pages.
+     * Pagination par clé (montantDu, marchandId).
+     *
+     * @param curseur curseurSuivant de la page précédente, null pour la première page
+     */
+    @Transactional(readOnly = true)
+    public ArrierePageResponse arrieres(ArriereCriteresDTO criteres, String curseur, Integer taille) {
+        int limite = taille == null ? TAILLE_PAGE_DEFAUT : Math.max(1, Math.min(taille, TAILLE_PAGE_MAX));
+
+        Map<String, Object> parametres = new HashMap<>();
+        StringBuilder filtres = filtres(criteres, parametres);
+        if (curseur != null && !curseur.isBlank()) {
+            Object[] position = decoderCurseur(curseur);
+            filtres.append(" AND (a.montantDu < :curseurMontant OR (a.montantDu = :curseurMontant AND a.marchandId < :curseurId))");
+            parametres.put("curseurMontant", position[0]);
+            parametres.put("curseurId", position[1]);
+        }
+
+        TypedQuery<ArriereMarchandDTO> requete = entityManager.createQuery(
+                "SELECT new Commune.Dev.Dtos.ArriereMarchandDTO(a.marchandId, m.nom, m.prenom, a.placeId, a.hallId, " +
+                        "a.zoneId, a.marcheeId, a.periodesImpayees, a.anneesImpayees, a.montantDu, a.montant0a7, " +
+                        "a.montant8a30, a.montant31a90, a.montantPlus90, a.plusAncienneEcheance, a.calculeAt) " +
+                        "FROM ArriereMarchand a JOIN Marchands m ON m.id = a.marchandId" + filtres +
+                        " ORDER BY a.montantDu DESC, a.marchandId DESC", ArriereMarchandDTO.class);
+        parametres.forEach(requete::setParameter);
+        List<ArriereMarchandDTO> arrieres = new ArrayList<>(requete.setMaxResults(limite + 1).getResultList());
+
+        // Une ligne de plus que la page indique s'il reste des résultats
+        boolean termine = arrieres.size() <= limite;
+        String curseurSuivant = null;
+        if (!termine) {
+            arrieres = new ArrayList<>(arrieres.subList(0, limite));
+            ArriereMarchandDTO dernier = arrieres.get(limite - 1);
+            curseurSuivant = encoderCurseur(dernier.getMontantDu(), dernier.getMarchandId());
+        }
+        return new ArrierePageResponse(arrieres, curseurSuivant, termine);
+    }
+
+    /**
+     * Arriérés cumulés par marché, zone, hall ou place, du montant dû le plus élevé au plus faible.
+     */
+    @Transactional(readOnly = true)
+    public List<ArriereSyntheseDTO> synthese(ArriereCriteresDTO criteres, Groupement groupement) {
+        Map<String, Object> parametres = new HashMap<>();
+        TypedQuery<Object[]> requete = entityManager.createQuery(
+                "SELECT " + groupement.expression + ", COUNT(a), SUM(a.periodesImpayees), SUM(a.anneesImpayees), " +
+                        "SUM(a.montantDu), SUM(a.montant0a7), SUM(a.montant8a30), SUM(a.montant31a90), " +
+                        "SUM(a.montantPlus90) FROM ArriereMarchand a" + filtres(criteres, parametres) +
+                        " GROUP BY " + groupement.expression + " ORDER BY SUM(a.montantDu) DESC",
+                Object[].class);
+        parametres.forEach(requete::setParameter);
+
+        List<ArriereSyntheseDTO> synthese = new ArrayList<>();
+        for (Object[] ligne : requete.getResultList()) {
+            synthese.add(new ArriereSyntheseDTO(ligne[0] == null ? null : String.valueOf(ligne[0]),
+                    ((Number) ligne[1]).longValue(), ((Number) ligne[2]).longValue(), ((Number) ligne[3]).longValue(),
+                    (BigDecimal) ligne[4], (BigDecimal) ligne[5], (BigDecimal) ligne[6],
+                    (BigDecimal) ligne[7], (BigDecimal) ligne[8]));
+        }
+        return synthese;
+    }
+
+    // Seuls les marchands qui doivent quelque chose figurent au rapport
+    private static StringBuilder filtres(ArriereCriteresDTO criteres, Map<String, Object> parametres) {
+        StringBuilder filtres = new StringBuilder(" WHERE a.montantDu > 0");
+        ajouter(filtres, parametres, "a.marcheeId", "marcheeId", criteres.getMarcheeId());
+        ajouter(filtres, parametres, "a.zoneId", "zoneId", criteres.getZoneId());
+        ajouter(filtres, parametres, "a.hallId", "hallId", criteres.getHallId());
+        ajouter(filtres, parametres, "a.placeId", "placeId", criteres.getPlaceId());
+        ajouter(filtres, parametres, "a.marchandId", "marchandId", criteres.getMarchandId());
+        if (criteres.getTranche() != null && !criteres.getTranche().isBlank()) {
+            filtres.append(" AND ").append(Tranche.depuisNom(criteres.getTranche()).expression).append(" > 0");
+        }
+        return filtres;
+    }
+
+    private static void ajouter(StringBuilder filtres, Map<String, Object> parametres,
+                                String chemin, String nom, Object valeur) {
+        if (valeur == null) return;
+        filtres.append(" AND ").append(chemin).append(" = :").append(nom);
+        parametres.put(nom, valeur);
+    }
+
+    // Curseur opaque pour le client : "<montantDu>|<marchandId>" en base64
+    private static String encoderCurseur(BigDecimal montantDu, Integer marchandId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((montantDu.toPlainString() + "|" + marchandId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Object[] decoderCurseur(String curseur) {
+        try {
+            String[] parties = new String(Base64.getUrlDecoder().decode(curseur.trim()),
+                    StandardCharsets.UTF_8).split("\\|");
+            return new Object[]{new BigDecimal(parties[0]), Integer.valueOf(parties[1])};
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide");
+        }
+    }
+}
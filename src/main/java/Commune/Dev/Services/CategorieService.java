@@ -3,6 +3,7 @@ import Commune.Dev.Dtos.CategorieRequestDTO;
 import Commune.Dev.Dtos.CategorieResponseDTO;
 import Commune.Dev.Models.Categorie;
 import Commune.Dev.Repositories.CategorieRepository;
+import Commune.Dev.Repositories.PlaceRepository;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -18,6 +19,7 @@ import java.util.stream.Collectors;
 public class CategorieService {
 
     private final CategorieRepository categorieRepository;
+    private final PlaceRepository placeRepository;
 
     // Créer une catégorie
     public CategorieResponseDTO creerCategorie(CategorieRequestDTO requestDTO) {
@@ -56,6 +58,7 @@ public class CategorieService {
         categorie.setMontant(requestDTO.getMontant());
 
         Categorie categorieModifiee = categorieRepository.save(categorie);
+        placeRepository.toucherParCategorie(id, LocalDateTime.now());
         return mapToResponseDTO(categorieModifiee);
     }
 
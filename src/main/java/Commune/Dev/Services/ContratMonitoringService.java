@@ -2,178 +2,405 @@ package Commune.Dev.Services;
 
 import Commune.Dev.Models.*;
 import Commune.Dev.Repositories.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.*;
 import java.time.temporal.ChronoUnit;
-import java.util.List;
-import java.util.ArrayList;
-
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Analyse nocturne des retards de paiement des marchands.
+ * Les statuts sont aussi recalculés au fil de l'eau (recalculerMarchands, appelé par
+ * DestinationStatutsMarchands) : l'analyse nocturne ne fait plus que rattraper les écarts.
+ * L'exécution est découpée en tranches d'identifiants de marchands, traitées en parallèle
+ * par le pool borné "analyseContratsExecutor", chacune dans sa propre transaction.
+ * Chaque tranche enregistre son avancement (PartitionAnalyseContrats) avec ses statuts :
+ * une exécution interrompue reprend aux tranches non terminées.
+ * Dans une tranche, les périodes couvertes par les paiements de droit de place sont lues en
+ * une requête par lot de marchands, reportées sur la grille de l'échéancier (un bit par
+ * période) et les statuts sont écrits par lots, seulement quand ils changent. La même passe
+ * tient à jour la projection arriere_marchand (montants dus par ancienneté) lue par ArriereService.
+ */
 @Service
+@Slf4j
 public class ContratMonitoringService {
 
+    // Marchands analysés par requête de lecture des paiements
+    private static final int TAILLE_TRANCHE = 500;
+
+    // Une exécution plus ancienne, ou d'un autre jour, n'est plus reprise : la suivante repart de zéro.
+    // Bien plus court que l'intervalle quotidien, pour qu'une tranche en échec répété ne remplace
+    // jamais l'analyse complète du lendemain
+    private static final int REPRISE_HEURES = 6;
+
     private final ContratRepository contratRepository;
-    private final PaiementRepository paiementRepository;
-    private final MarchandsRepository marchandRepository;
+    private final PartitionAnalyseContratsRepository partitionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor analyseContratsExecutor;
+
+    // Largeur d'une tranche, en identifiants de marchands
+    @Value("${app.contrats.analyse.taille-partition:2000}")
+    private int taillePartition;
 
     public ContratMonitoringService(ContratRepository contratRepository,
-                                    PaiementRepository paiementRepository,
-                                    MarchandsRepository marchandRepository) {
+                                    PartitionAnalyseContratsRepository partitionRepository,
+                                    JdbcTemplate jdbcTemplate,
+                                    TransactionTemplate transactionTemplate,
+                                    @Qualifier("analyseContratsExecutor") Executor analyseContratsExecutor) {
         this.contratRepository = contratRepository;
-        this.paiementRepository = paiementRepository;
-        this.marchandRepository = marchandRepository;
+        this.partitionRepository = partitionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.analyseContratsExecutor = analyseContratsExecutor;
     }
 
     /**
      * Analyse l'ensemble des contrats actifs et met à jour le statut paiement des marchands.
+     * Reprend l'exécution précédente si elle a été interrompue.
+     * Retourne le nombre de marchands analysés.
      */
-    @Transactional
-    public void analyserContrats() {
-        List<Contrat> contrats = contratRepository.findAllActifs();
+    public int analyserContrats() {
+        LocalDate today = LocalDate.now();
 
-        for (Contrat contrat : contrats) {
-            if (contrat.getMarchand() == null) continue;
+        List<PartitionAnalyseContrats> partitions = partitionsAReprendre();
+        if (partitions.isEmpty()) {
+            partitions = transactionTemplate.execute(statut -> creerPartitions());
+        } else {
+            log.info("🔁 Reprise de l'analyse des contrats : {} tranches restantes", partitions.size());
+        }
+
+        AtomicInteger analyses = new AtomicInteger();
+        AtomicInteger modifies = new AtomicInteger();
+        AtomicInteger echecs = new AtomicInteger();
+        CompletableFuture.allOf(partitions.stream()
+                .map(partition -> CompletableFuture.runAsync(() -> {
+                    try {
+                        int[] resultat = transactionTemplate.execute(statut -> traiterPartition(partition, today));
+                        analyses.addAndGet(resultat[0]);
+                        modifies.addAndGet(resultat[1]);
+                    } catch (RuntimeException e) {
+                        // La tranche reste non terminée : reprise à la prochaine exécution
+                        echecs.incrementAndGet();
+                        log.error("❌ Tranche de marchands [{}, {}[ en échec: {}",
+                                partition.getMarchandDebut(), partition.getMarchandFin(), e.getMessage());
+                    }
+                }, analyseContratsExecutor))
+                .toArray(CompletableFuture[]::new)).join();
+
+        // Arriérés non recalculés par cette exécution : marchands qui n'ont plus de contrat actif
+        if (echecs.get() == 0 && !partitions.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM arriere_marchand WHERE calcule_at < ?",
+                    Timestamp.valueOf(partitions.get(0).getCreeeAt()));
+        }
 
-            // Analyser TOUTES les périodes échues depuis le début du contrat
-            ResultatAnalyse resultat = analyserHistoriquePaiements(contrat);
+        log.info("📋 Analyse des contrats : {} marchands analysés, {} statuts modifiés, {} tranches en échec",
+                analyses.get(), modifies.get(), echecs.get());
+        if (echecs.get() > 0) {
+            throw new IllegalStateException(echecs.get() + " tranches de marchands en échec, reprises à la prochaine exécution");
+        }
+        return analyses.get();
+    }
 
-            // Mise à jour du marchand
-            Marchands marchand = contrat.getMarchand();
-            marchand.setStatut(resultat.statut);
-            marchand.setEstEndette(resultat.estEndette);
-            marchandRepository.save(marchand);
+    // Tranches non terminées de l'exécution la plus récente, lancée aujourd'hui depuis moins de REPRISE_HEURES
+    private List<PartitionAnalyseContrats> partitionsAReprendre() {
+        LocalDateTime maintenant = LocalDateTime.now();
+        LocalDateTime depuis = maintenant.minusHours(REPRISE_HEURES);
+        if (depuis.isBefore(maintenant.toLocalDate().atStartOfDay())) {
+            depuis = maintenant.toLocalDate().atStartOfDay();
         }
+        List<PartitionAnalyseContrats> nonTerminees = partitionRepository
+                .findByTermineeAtIsNullAndCreeeAtAfterOrderByExecutionDescIdAsc(depuis);
+        if (nonTerminees.isEmpty()) return nonTerminees;
+
+        Long execution = nonTerminees.get(0).getExecution();
+        return nonTerminees.stream().filter(p -> p.getExecution().equals(execution)).toList();
+    }
+
+    // Nouvelle exécution : découpage des identifiants de marchands ayant un contrat actif
+    private List<PartitionAnalyseContrats> creerPartitions() {
+        LocalDateTime maintenant = LocalDateTime.now();
+        partitionRepository.deleteCreeesAvant(maintenant.minusDays(30));
+
+        Object[] bornes = contratRepository.findBornesMarchandsActifs().get(0);
+        if (bornes[0] == null) return List.of();
+
+        int min = (Integer) bornes[0];
+        int max = (Integer) bornes[1];
+        long execution = System.currentTimeMillis();
+        List<PartitionAnalyseContrats> partitions = new ArrayList<>();
+        for (long debut = min; debut <= max; debut += taillePartition) {
+            partitions.add(new PartitionAnalyseContrats(execution, (int) debut,
+                    (int) Math.min(debut + taillePartition, (long) max + 1), maintenant));
+        }
+        return partitionRepository.saveAll(partitions);
     }
 
     /**
-     * Analyse l'historique complet des paiements pour un contrat.
-     * Vérifie toutes les périodes échues depuis le début du contrat.
-     * NOTE: On vérifie uniquement les paiements de type DROIT_PLACE (paiements récurrents).
+     * Analyse d'une tranche, dans sa propre transaction. Retourne [marchands analysés, statuts modifiés].
      */
-    private ResultatAnalyse analyserHistoriquePaiements(Contrat contrat) {
-        LocalDate startDate = contrat.getDateOfStart();
-        LocalDate today = LocalDate.now();
+    private int[] traiterPartition(PartitionAnalyseContrats partition, LocalDate today) {
+        Map<Integer, ContratAnalyse> contrats = new LinkedHashMap<>();
+        ajouterContrats(contrats,
+                contratRepository.findEcheanciersActifs(partition.getMarchandDebut(), partition.getMarchandFin()));
+
+        int modifies = analyserEtEcrire(contrats, today);
+        partitionRepository.terminer(partition.getId(), LocalDateTime.now(), contrats.size(), modifies);
+        return new int[]{contrats.size(), modifies};
+    }
 
-        if (startDate == null || startDate.isAfter(today)) {
-            // Contrat pas encore commencé ou date invalide
-            return new ResultatAnalyse(StatutMarchands.A_JOUR, false);
-        }
+    /**
+     * Recalcul immédiat du statut de quelques marchands, après un paiement ou un changement de contrat.
+     * Un marchand sans contrat actif n'a plus de période due : il est à jour.
+     * Retourne le nombre de statuts modifiés.
+     */
+    @Transactional
+    public int recalculerMarchands(Collection<Integer> marchandIds) {
+        if (marchandIds.isEmpty()) return 0;
 
-        // Générer toutes les périodes échues
-        List<Periode> periodesEchues = genererPeriodesEchues(startDate, today, contrat.getFrequencePaiement());
+        Map<Integer, ContratAnalyse> contrats = new LinkedHashMap<>();
+        marchandIds.forEach(marchandId -> contrats.put(marchandId, null));
+        ajouterContrats(contrats, contratRepository.findEcheanciersActifsByMarchandIdIn(marchandIds));
+        return analyserEtEcrire(contrats, LocalDate.now());
+    }
 
-        if (periodesEchues.isEmpty()) {
-            // Aucune période échue = marchand à jour
-            return new ResultatAnalyse(StatutMarchands.A_JOUR, false);
+    // Un marchand avec plusieurs contrats actifs : le dernier contrat l'emporte, comme avant
+    private static void ajouterContrats(Map<Integer, ContratAnalyse> contrats, List<Object[]> lignes) {
+        for (Object[] ligne : lignes) {
+            LocalDate debut = (LocalDate) ligne[1];
+            FrequencePaiement frequence = (FrequencePaiement) ligne[2];
+            contrats.put((Integer) ligne[0], new ContratAnalyse(
+                    debut == null || frequence == null ? null : EcheancierContrat.de(debut, frequence),
+                    debut, (Integer) ligne[3], (BigDecimal) ligne[4], (BigDecimal) ligne[5]));
         }
+    }
 
-        // Vérifier chaque période échue
-        Periode premiereNonPayee = null;
-        int nombrePeriodesNonPayees = 0;
-
-        for (Periode periode : periodesEchues) {
-            // IMPORTANT: Vérifier uniquement les paiements de type DROIT_PLACE
-            boolean paiementEffectue = paiementRepository.existsByMarchandIdAndTypePaiementAndDatePaiementBetween(
-                    Long.valueOf(contrat.getMarchand().getId()),
-                    Paiement.Typepaiement.droit_place,
-                    periode.start,
-                    periode.end
-            );
-
-            if (!paiementEffectue) {
-                nombrePeriodesNonPayees++;
-                if (premiereNonPayee == null) {
-                    premiereNonPayee = periode;
-                }
+    // Analyse par lots de marchands, écriture des statuts et des arriérés ; retourne le nombre de statuts modifiés
+    private int analyserEtEcrire(Map<Integer, ContratAnalyse> contrats, LocalDate today) {
+        List<Integer> marchandIds = new ArrayList<>(contrats.keySet());
+        int modifies = 0;
+        for (int i = 0; i < marchandIds.size(); i += TAILLE_TRANCHE) {
+            List<Integer> tranche = marchandIds.subList(i, Math.min(i + TAILLE_TRANCHE, marchandIds.size()));
+            Map<Integer, BitSet> periodesPayees = lirePeriodesPayees(tranche, contrats);
+            Map<Integer, Set<Integer>> anneesPayees = lireAnneesPayees(tranche);
+
+            Map<Integer, ResultatAnalyse> resultats = new LinkedHashMap<>();
+            Map<Integer, Arriere> arrieres = new LinkedHashMap<>();
+            for (Integer marchandId : tranche) {
+                ContratAnalyse contrat = contrats.get(marchandId);
+                EcheancierContrat echeancier = contrat != null ? contrat.echeancier() : null;
+                resultats.put(marchandId, analyser(echeancier, periodesPayees.get(marchandId), today));
+                arrieres.put(marchandId, calculerArriere(contrat, periodesPayees.get(marchandId),
+                        anneesPayees.getOrDefault(marchandId, Set.of()), today));
             }
+            modifies += ecrireStatuts(resultats);
+            ecrireArrieres(arrieres);
         }
-
-        // Si toutes les périodes sont payées
-        if (nombrePeriodesNonPayees == 0) {
-            return new ResultatAnalyse(StatutMarchands.A_JOUR, false);
-        }
-
-        // Il y a des périodes non payées = marchand endetté
-        StatutMarchands statut = determinerStatutSelonRetard(
-                premiereNonPayee.end.toLocalDate(),
-                nombrePeriodesNonPayees,
-                contrat.getFrequencePaiement()
-        );
-
-        return new ResultatAnalyse(statut, true);
+        return modifies;
     }
 
     /**
-     * Génère toutes les périodes ÉCHUES (terminées) depuis le début du contrat jusqu'à aujourd'hui.
+     * Périodes couvertes par au moins un paiement de droit de place, par marchand.
+     * Une période est payée si elle est comprise dans la période couverte par un paiement
+     * (date_debut / date_fin), quelle que soit la date à laquelle il a été encaissé : un retard
+     * rattrapé ou plusieurs périodes payées d'avance le même jour comptent chacune.
+     * Un ancien paiement sans période couverte compte pour la période de sa date de paiement.
      */
-    private List<Periode> genererPeriodesEchues(LocalDate startDate, LocalDate today, FrequencePaiement frequence) {
-        List<Periode> periodes = new ArrayList<>();
-        LocalDate currentPeriodStart = startDate;
-
-        while (true) {
-            LocalDate currentPeriodEnd = calculerFinPeriode(currentPeriodStart, frequence);
-
-            // Si la fin de période est dans le futur, on arrête
-            if (currentPeriodEnd.isAfter(today)) {
-                break;
+    private Map<Integer, BitSet> lirePeriodesPayees(List<Integer> marchandIds, Map<Integer, ContratAnalyse> contrats) {
+        Map<Integer, BitSet> periodesPayees = new HashMap<>();
+        jdbcTemplate.query(connexion -> {
+            PreparedStatement ps = connexion.prepareStatement(
+                    "SELECT DISTINCT id_marchand, COALESCE(date_debut, date_fin, CAST(date_paiement AS date)), " +
+                            "COALESCE(date_fin, date_debut, CAST(date_paiement AS date)) FROM paiement " +
+                            "WHERE type_paiement = 'droit_place' AND id_marchand = ANY(?) " +
+                            "AND (date_debut IS NOT NULL OR date_fin IS NOT NULL OR date_paiement IS NOT NULL)");
+            ps.setArray(1, connexion.createArrayOf("integer", marchandIds.toArray()));
+            return ps;
+        }, (ResultSet rs) -> {
+            Integer marchandId = rs.getInt(1);
+            ContratAnalyse contrat = contrats.get(marchandId);
+            EcheancierContrat echeancier = contrat != null ? contrat.echeancier() : null;
+            if (echeancier == null) return;
+            long premier = Math.max(echeancier.indexContenant(rs.getObject(2, LocalDate.class)), 0);
+            long dernier = Math.min(echeancier.indexContenant(rs.getObject(3, LocalDate.class)), Integer.MAX_VALUE - 1L);
+            if (dernier >= premier) {
+                periodesPayees.computeIfAbsent(marchandId, id -> new BitSet()).set((int) premier, (int) dernier + 1);
             }
+        });
+        return periodesPayees;
+    }
 
-            // Ajouter cette période échue
-            periodes.add(new Periode(
-                    currentPeriodStart.atStartOfDay(),
-                    currentPeriodEnd.atTime(LocalTime.MAX)
-            ));
+    // Années de droit annuel payées, par marchand
+    private Map<Integer, Set<Integer>> lireAnneesPayees(List<Integer> marchandIds) {
+        Map<Integer, Set<Integer>> anneesPayees = new HashMap<>();
+        jdbcTemplate.query(connexion -> {
+            PreparedStatement ps = connexion.prepareStatement(
+                    "SELECT DISTINCT id_marchand, annee_paye FROM paiement " +
+                            "WHERE type_paiement = 'droit_annuel' AND annee_paye IS NOT NULL AND id_marchand = ANY(?)");
+            ps.setArray(1, connexion.createArrayOf("integer", marchandIds.toArray()));
+            return ps;
+        }, (ResultSet rs) -> {
+            anneesPayees.computeIfAbsent(rs.getInt(1), id -> new HashSet<>()).add(rs.getInt(2));
+        });
+        return anneesPayees;
+    }
 
-            // Passer à la période suivante
-            currentPeriodStart = calculerDebutPeriodeSuivante(currentPeriodStart, frequence);
+    /**
+     * Arriéré d'un marchand : périodes de droit de place échues non couvertes par un paiement
+     * (échéance = fin de la période) et années de droit annuel non payées depuis le début du contrat
+     * (échéance = 1er janvier, ou date de début pour la première année), réparties par ancienneté
+     * de l'échéance. Une période rattrapée en retard n'est plus due ; des périodes payées d'avance
+     * en une seule requête sont chacune déduites de l'arriéré à leur échéance.
+     */
+    private static Arriere calculerArriere(ContratAnalyse contrat, BitSet periodesPayees,
+                                           Set<Integer> anneesPayees, LocalDate today) {
+        Arriere arriere = new Arriere(contrat != null ? contrat.placeId() : null);
+        if (contrat == null || contrat.debut() == null || contrat.debut().isAfter(today)) return arriere;
+
+        EcheancierContrat echeancier = contrat.echeancier();
+        if (echeancier != null && contrat.montantPeriode() != null) {
+            BitSet payees = periodesPayees != null ? periodesPayees : new BitSet();
+            int echues = (int) Math.min(echeancier.nombreEchues(today), Integer.MAX_VALUE);
+            if (echues > 0 && payees.nextClearBit(0) < echues) {
+                // Chaque tranche d'ancienneté est une plage d'index contiguë de la grille
+                int depuis7 = premiereFinApres(echeancier, today.minusDays(7), echues);
+                int depuis30 = premiereFinApres(echeancier, today.minusDays(30), echues);
+                int depuis90 = premiereFinApres(echeancier, today.minusDays(90), echues);
+                arriere.ajouterPeriodes(0, impayees(payees, depuis7, echues), contrat.montantPeriode());
+                arriere.ajouterPeriodes(1, impayees(payees, depuis30, depuis7), contrat.montantPeriode());
+                arriere.ajouterPeriodes(2, impayees(payees, depuis90, depuis30), contrat.montantPeriode());
+                arriere.ajouterPeriodes(3, impayees(payees, 0, depuis90), contrat.montantPeriode());
+                arriere.echeance(echeancier.finPeriode(payees.nextClearBit(0)));
+            }
+        }
 
-            // Sécurité : éviter boucle infinie
-            if (currentPeriodStart.isAfter(today)) {
-                break;
+        if (contrat.montantAnnuel() != null) {
+            int premiereAnnee = contrat.debut().getYear();
+            for (int annee = premiereAnnee; annee <= today.getYear(); annee++) {
+                if (anneesPayees.contains(annee)) continue;
+                LocalDate echeance = annee == premiereAnnee ? contrat.debut() : LocalDate.of(annee, 1, 1);
+                arriere.ajouterAnnee(ChronoUnit.DAYS.between(echeance, today), contrat.montantAnnuel());
+                arriere.echeance(echeance);
             }
         }
+        return arriere;
+    }
+
+    // Index de la première période finissant à la date donnée ou après, borné à [0, echues]
+    private static int premiereFinApres(EcheancierContrat echeancier, LocalDate date, int echues) {
+        return (int) Math.min(Math.max(echeancier.indexContenant(date), 0), echues);
+    }
 
-        return periodes;
+    private static int impayees(BitSet payees, int debut, int fin) {
+        return fin <= debut ? 0 : (fin - debut) - payees.get(debut, fin).cardinality();
     }
 
     /**
-     * Calcule la date de fin d'une période donnée selon la fréquence.
+     * Statut d'un marchand à partir des périodes échues de son contrat et des périodes payées.
      */
-    private LocalDate calculerFinPeriode(LocalDate debut, FrequencePaiement frequence) {
-        switch (frequence) {
-            case JOURNALIER:
-                return debut; // Même jour
+    private ResultatAnalyse analyser(EcheancierContrat echeancier, BitSet periodesPayees, LocalDate today) {
+        if (echeancier == null) {
+            // Date ou fréquence invalide
+            return new ResultatAnalyse(StatutMarchands.A_JOUR, false);
+        }
 
-            case HEBDOMADAIRE:
-                return debut.plusDays(6); // 7 jours (0-6)
+        long nombreEchues = echeancier.nombreEchues(today);
+        if (nombreEchues <= 0) {
+            // Contrat pas encore commencé ou aucune période échue = marchand à jour
+            return new ResultatAnalyse(StatutMarchands.A_JOUR, false);
+        }
 
-            case MENSUEL:
-                // Fin du mois de la date de début
-                return debut.plusMonths(1).minusDays(1);
+        BitSet payees = periodesPayees != null ? periodesPayees : new BitSet();
+        int echues = (int) Math.min(nombreEchues, Integer.MAX_VALUE);
+        int nombrePeriodesNonPayees = echues - payees.get(0, echues).cardinality();
 
-            default:
-                return debut;
+        // Si toutes les périodes sont payées
+        if (nombrePeriodesNonPayees == 0) {
+            return new ResultatAnalyse(StatutMarchands.A_JOUR, false);
         }
-    }
 
-    /**
-     * Calcule le début de la période suivante.
-     */
-    private LocalDate calculerDebutPeriodeSuivante(LocalDate debutActuel, FrequencePaiement frequence) {
-        switch (frequence) {
-            case JOURNALIER:
-                return debutActuel.plusDays(1);
-
-            case HEBDOMADAIRE:
-                return debutActuel.plusWeeks(1);
+        // Il y a des périodes non payées = marchand endetté
+        StatutMarchands statut = determinerStatutSelonRetard(
+                echeancier.finPeriode(payees.nextClearBit(0)),
+                nombrePeriodesNonPayees,
+                echeancier.getFrequence()
+        );
 
-            case MENSUEL:
-                return debutActuel.plusMonths(1);
+        return new ResultatAnalyse(statut, true);
+    }
 
-            default:
-                return debutActuel.plusDays(1);
+    // Écriture groupée ; un marchand dont le statut ne change pas n'est pas réécrit
+    private int ecrireStatuts(Map<Integer, ResultatAnalyse> resultats) {
+        Timestamp maintenant = Timestamp.valueOf(LocalDateTime.now());
+        int[][] lots = jdbcTemplate.batchUpdate(
+                "UPDATE marchands SET statut = ?, est_endette = ?, updated_at = ? " +
+                        "WHERE id = ? AND (statut IS DISTINCT FROM ? OR est_endette IS DISTINCT FROM ?)",
+                new ArrayList<>(resultats.entrySet()), TAILLE_TRANCHE, (ps, resultat) -> {
+                    ps.setString(1, resultat.getValue().statut.name());
+                    ps.setBoolean(2, resultat.getValue().estEndette);
+                    ps.setTimestamp(3, maintenant);
+                    ps.setInt(4, resultat.getKey());
+                    ps.setString(5, resultat.getValue().statut.name());
+                    ps.setBoolean(6, resultat.getValue().estEndette);
+                });
+        int modifies = 0;
+        for (int[] lot : lots) {
+            for (int nombre : lot) {
+                modifies += Math.max(nombre, 0);
+            }
         }
+        return modifies;
+    }
+
+    // Projection arriere_marchand ; le rattachement hall / zone / marché est résolu depuis la place
+    private void ecrireArrieres(Map<Integer, Arriere> arrieres) {
+        Timestamp maintenant = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO arriere_marchand (marchand_id, place_id, hall_id, zone_id, marchee_id, " +
+                        "periodes_impayees, annees_impayees, montant_du, montant_0_7, montant_8_30, montant_31_90, " +
+                        "montant_plus_90, plus_ancienne_echeance, calcule_at) " +
+                        "SELECT ?, pl.id, pl.hall_id, COALESCE(pl.zone_id, h.zone_id), " +
+                        "COALESCE(pl.marchee_id, h.marchee_id, z.marchee_id, zh.marchee_id), ?, ?, ?, ?, ?, ?, ?, ?, ? " +
+                        "FROM (SELECT CAST(? AS integer) AS place_id) s " +
+                        "LEFT JOIN place pl ON pl.id = s.place_id " +
+                        "LEFT JOIN hall h ON h.id = pl.hall_id " +
+                        "LEFT JOIN zone z ON z.id = pl.zone_id " +
+                        "LEFT JOIN zone zh ON zh.id = h.zone_id " +
+                        "ON CONFLICT (marchand_id) DO UPDATE SET place_id = EXCLUDED.place_id, " +
+                        "hall_id = EXCLUDED.hall_id, zone_id = EXCLUDED.zone_id, marchee_id = EXCLUDED.marchee_id, " +
+                        "periodes_impayees = EXCLUDED.periodes_impayees, annees_impayees = EXCLUDED.annees_impayees, " +
+                        "montant_du = EXCLUDED.montant_du, montant_0_7 = EXCLUDED.montant_0_7, " +
+                        "montant_8_30 = EXCLUDED.montant_8_30, montant_31_90 = EXCLUDED.montant_31_90, " +
+                        "montant_plus_90 = EXCLUDED.montant_plus_90, " +
+                        "plus_ancienne_echeance = EXCLUDED.plus_ancienne_echeance, calcule_at = EXCLUDED.calcule_at",
+                new ArrayList<>(arrieres.entrySet()), TAILLE_TRANCHE, (ps, ligne) -> {
+                    Arriere arriere = ligne.getValue();
+                    ps.setInt(1, ligne.getKey());
+                    ps.setInt(2, arriere.periodesImpayees);
+                    ps.setInt(3, arriere.anneesImpayees);
+                    ps.setBigDecimal(4, arriere.total());
+                    ps.setBigDecimal(5, arriere.montants[0]);
+                    ps.setBigDecimal(6, arriere.montants[1]);
+                    ps.setBigDecimal(7, arriere.montants[2]);
+                    ps.setBigDecimal(8, arriere.montants[3]);
+                    ps.setObject(9, arriere.plusAncienneEcheance);
+                    ps.setTimestamp(10, maintenant);
+                    ps.setObject(11, arriere.placeId, Types.INTEGER);
+                });
     }
 
     /**
@@ -230,15 +457,46 @@ public class ContratMonitoringService {
     }
 
     /**
-     * Classe interne pour représenter une période.
+     * Contrat actif retenu pour un marchand (echeancier null si date ou fréquence invalide).
+     */
+    private record ContratAnalyse(EcheancierContrat echeancier, LocalDate debut, Integer placeId,
+                                  BigDecimal montantPeriode, BigDecimal montantAnnuel) {
+    }
+
+    /**
+     * Arriéré d'un marchand ; montants par ancienneté : 0-7, 8-30, 31-90, plus de 90 jours.
      */
-    private static class Periode {
-        private final LocalDateTime start;
-        private final LocalDateTime end;
+    private static final class Arriere {
+        private final Integer placeId;
+        private int periodesImpayees;
+        private int anneesImpayees;
+        private final BigDecimal[] montants = {BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO};
+        private LocalDate plusAncienneEcheance;
+
+        Arriere(Integer placeId) {
+            this.placeId = placeId;
+        }
+
+        void ajouterPeriodes(int tranche, int nombre, BigDecimal montantPeriode) {
+            if (nombre == 0) return;
+            periodesImpayees += nombre;
+            montants[tranche] = montants[tranche].add(montantPeriode.multiply(BigDecimal.valueOf(nombre)));
+        }
+
+        void ajouterAnnee(long joursRetard, BigDecimal montantAnnuel) {
+            int tranche = joursRetard <= 7 ? 0 : joursRetard <= 30 ? 1 : joursRetard <= 90 ? 2 : 3;
+            anneesImpayees++;
+            montants[tranche] = montants[tranche].add(montantAnnuel);
+        }
+
+        void echeance(LocalDate echeance) {
+            if (plusAncienneEcheance == null || echeance.isBefore(plusAncienneEcheance)) {
+                plusAncienneEcheance = echeance;
+            }
+        }
 
-        Periode(LocalDateTime start, LocalDateTime end) {
-            this.start = start;
-            this.end = end;
+        BigDecimal total() {
+            return montants[0].add(montants[1]).add(montants[2]).add(montants[3]);
         }
     }
 
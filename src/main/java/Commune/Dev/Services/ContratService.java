@@ -32,6 +32,9 @@ public class ContratService {
     @Autowired
     private CategorieRepository categorieRepository;
 
+    @Autowired
+    private OutboxService outboxService;
+
     // Récupérer tous les contrats
     public List<Contrat> getAllContrats() {
         return contratRepository.findAllWithRelations();
@@ -155,16 +158,18 @@ public class ContratService {
             contrat.setCategorieId(contratDetails.getCategorieId());
         }
 
-        return contratRepository.save(contrat);
+        Contrat modifie = contratRepository.save(contrat);
+        outboxService.publierContrat(EvenementSortant.TypeEvenement.CONTRAT_MODIFIE, modifie);
+        return modifie;
     }
 
     // Supprimer un contrat
     @Transactional
     public void deleteContrat(Integer id) {
-        if (!contratRepository.existsById(id)) {
-            throw new IllegalArgumentException("Contrat non trouvé avec l'ID: " + id);
-        }
-        contratRepository.deleteById(id);
+        Contrat contrat = contratRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Contrat non trouvé avec l'ID: " + id));
+        outboxService.publierContrat(EvenementSortant.TypeEvenement.CONTRAT_SUPPRIME, contrat);
+        contratRepository.delete(contrat);
     }
 
     // Vérifier si un marchand a un contrat actif
@@ -0,0 +1,19 @@
+package Commune.Dev.Services;
+
+import Commune.Dev.Models.EvenementSortant;
+
+import java.util.List;
+
+/**
+ * Destination des événements de l'outbox (RelaisOutboxService).
+ * Un lot est livré dans l'ordre (xid, id), hors de toute transaction : une destination qui écrit
+ * en base ouvre la sienne. Une exception fait relivrer le lot en entier au passage suivant, à
+ * cette seule destination. Livraison au moins une fois : une destination doit tolérer les
+ * doublons, par exemple en retenant les identifiants déjà reçus.
+ */
+public interface DestinationEvenements {
+
+    String nom();
+
+    void livrer(List<EvenementSortant> lot) throws Exception;
+}
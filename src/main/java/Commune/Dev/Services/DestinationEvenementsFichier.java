@@ -0,0 +1,57 @@
+package Commune.Dev.Services;
+
+import Commune.Dev.Models.EvenementSortant;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Destination fichier : une ligne JSON par événement, ajoutée à app.outbox.fichier.
+ * Sert aux tests et aux vérifications manuelles du relais.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.fichier")
+public class DestinationEvenementsFichier implements DestinationEvenements {
+
+    private final ObjectMapper objectMapper;
+    private final Path fichier;
+
+    public DestinationEvenementsFichier(ObjectMapper objectMapper,
+                                        @Value("${app.outbox.fichier}") String fichier) {
+        this.objectMapper = objectMapper;
+        this.fichier = Paths.get(fichier);
+    }
+
+    @Override
+    public String nom() {
+        return "fichier";
+    }
+
+    @Override
+    public void livrer(List<EvenementSortant> lot) throws Exception {
+        ByteArrayOutputStream lignes = new ByteArrayOutputStream();
+        for (EvenementSortant evenement : lot) {
+            lignes.write(objectMapper.writeValueAsBytes(evenement));
+            lignes.write('\n');
+        }
+
+        if (fichier.getParent() != null) {
+            Files.createDirectories(fichier.getParent());
+        }
+        try (FileChannel canal = FileChannel.open(fichier,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            canal.write(ByteBuffer.wrap(lignes.toByteArray()));
+            canal.force(false);
+        }
+    }
+}
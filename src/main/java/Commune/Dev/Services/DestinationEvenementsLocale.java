@@ -0,0 +1,30 @@
+package Commune.Dev.Services;
+
+import Commune.Dev.Models.EvenementSortant;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Destination interne : chaque événement est republié comme événement Spring.
+ * Les @EventListener(EvenementSortant.class) s'exécutent sur le thread du relais, hors
+ * du chemin de la requête ; une exception d'un écouteur fait relivrer le lot.
+ */
+@Component
+@RequiredArgsConstructor
+public class DestinationEvenementsLocale implements DestinationEvenements {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public String nom() {
+        return "locale";
+    }
+
+    @Override
+    public void livrer(List<EvenementSortant> lot) {
+        lot.forEach(eventPublisher::publishEvent);
+    }
+}
@@ -0,0 +1,59 @@
+package Commune.Dev.Services;
+
+import Commune.Dev.Models.EvenementSortant;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Destination HTTP : le lot est envoyé en un POST JSON (tableau d'événements).
+ * Active si app.outbox.webhook.url est renseigné. Toute réponse hors 2xx fait relivrer le lot.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.webhook.url")
+@Slf4j
+public class DestinationEvenementsWebhook implements DestinationEvenements {
+
+    private final ObjectMapper objectMapper;
+    private final URI url;
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    public DestinationEvenementsWebhook(ObjectMapper objectMapper,
+                                        @Value("${app.outbox.webhook.url}") String url) {
+        this.objectMapper = objectMapper;
+        this.url = URI.create(url);
+    }
+
+    @Override
+    public String nom() {
+        return "webhook";
+    }
+
+    @Override
+    public void livrer(List<EvenementSortant> lot) throws Exception {
+        HttpRequest requete = HttpRequest.newBuilder(url)
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                // Bornes du lot dans l'ordre du relais ; le destinataire écarte les doublons par identifiant
+                .header("X-Outbox-Premier-Id", String.valueOf(lot.get(0).getId()))
+                .header("X-Outbox-Dernier-Id", String.valueOf(lot.get(lot.size() - 1).getId()))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(lot)))
+                .build();
+
+        HttpResponse<Void> reponse = client.send(requete, HttpResponse.BodyHandlers.discarding());
+        if (reponse.statusCode() / 100 != 2) {
+            throw new IllegalStateException("Webhook " + url + " : HTTP " + reponse.statusCode());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package Commune.Dev.Services;
+
+import Commune.Dev.Models.EvenementSortant;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Destination de l'outbox qui recalcule le statut des marchands concernés par un paiement
+ * ou un changement de contrat, quelques secondes après le commit et hors de la requête.
+ * Un lot entier est recalculé en une passe ; en cas d'échec le relais le relivre.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DestinationStatutsMarchands implements DestinationEvenements {
+
+    private static final Set<EvenementSortant.TypeEvenement> TYPES_CONCERNES = EnumSet.of(
+            EvenementSortant.TypeEvenement.PAIEMENT_ENREGISTRE,
+            EvenementSortant.TypeEvenement.PAIEMENT_SUPPRIME,
+            EvenementSortant.TypeEvenement.CONTRAT_CREE,
+            EvenementSortant.TypeEvenement.CONTRAT_MODIFIE,
+            EvenementSortant.TypeEvenement.CONTRAT_SUPPRIME);
+
+    private final ContratMonitoringService contratMonitoringService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String nom() {
+        return "statuts-marchands";
+    }
+
+    @Override
+    public void livrer(List<EvenementSortant> lot) throws Exception {
+        Set<Integer> marchandIds = new LinkedHashSet<>();
+        for (EvenementSortant evenement : lot) {
+            if (!TYPES_CONCERNES.contains(evenement.getType())) continue;
+            JsonNode marchandId = objectMapper.readTree(evenement.getContenu()).path("marchandId");
+            if (marchandId.canConvertToInt()) {
+                marchandIds.add(marchandId.asInt());
+            }
+        }
+
+        int modifies = contratMonitoringService.recalculerMarchands(marchandIds);
+        if (modifies > 0) {
+            log.debug("📋 {} statuts de marchands recalculés", modifies);
+        }
+    }
+}
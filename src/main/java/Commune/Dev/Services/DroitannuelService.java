@@ -4,6 +4,7 @@ import Commune.Dev.Dtos.CreateDroitAnnuelRequest;
 import Commune.Dev.Dtos.DroitannuelDTO;
 import Commune.Dev.Models.DroitAnnuel;
 import Commune.Dev.Repositories.DroitannuelRepository;
+import Commune.Dev.Repositories.PlaceRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
 
@@ -14,9 +15,11 @@ import java.util.stream.Collectors;
 @Service
 public class DroitannuelService {
     private final DroitannuelRepository repository;
+    private final PlaceRepository placeRepository;
 
-    public DroitannuelService(DroitannuelRepository repository) {
+    public DroitannuelService(DroitannuelRepository repository, PlaceRepository placeRepository) {
         this.repository = repository;
+        this.placeRepository = placeRepository;
     }
 
     @Transactional
@@ -64,8 +67,10 @@ public class DroitannuelService {
         }
 
 
-        // 💾 4. Sauvegarde
-        return repository.save(existant);
+        // 💾 4. Sauvegarde, et montant à renvoyer aux mobiles avec les places
+        DroitAnnuel modifie = repository.save(existant);
+        placeRepository.toucherParDroitAnnuel(id, LocalDateTime.now());
+        return modifie;
     }
 
 
@@ -0,0 +1,113 @@
+package Commune.Dev.Services;
+
+import Commune.Dev.Models.Contrat;
+import Commune.Dev.Models.FrequencePaiement;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Grille des périodes de droit de place d'un contrat, sans liste de périodes :
+ * la période n commence à debut + n jours, n semaines ou n mois (toujours compté depuis
+ * la date de début, un 31 donne le dernier jour des mois plus courts) et finit la veille
+ * de la période n + 1. Toutes les réponses sont calculées en O(1) sur les jours epoch.
+ */
+public final class EcheancierContrat {
+
+    private static final DateTimeFormatter FORMAT_MOTIF = DateTimeFormatter.ofPattern("dd MMMM yyyy", Locale.FRENCH);
+
+    private final LocalDate debut;
+    private final long jourDebut;
+    private final long moisDebut;
+    private final FrequencePaiement frequence;
+
+    private EcheancierContrat(LocalDate debut, FrequencePaiement frequence) {
+        this.debut = debut;
+        this.jourDebut = debut.toEpochDay();
+        this.moisDebut = debut.getYear() * 12L + debut.getMonthValue() - 1;
+        this.frequence = frequence;
+    }
+
+    public static EcheancierContrat de(LocalDate debut, FrequencePaiement frequence) {
+        if (debut == null || frequence == null) {
+            throw new IllegalStateException("Date de début et fréquence de paiement obligatoires");
+        }
+        return new EcheancierContrat(debut, frequence);
+    }
+
+    public static EcheancierContrat pour(Contrat contrat) {
+        return de(contrat.getDateOfStart(), contrat.getFrequencePaiement());
+    }
+
+    public FrequencePaiement getFrequence() {
+        return frequence;
+    }
+
+    public LocalDate debutPeriode(long index) {
+        return switch (frequence) {
+            case JOURNALIER -> LocalDate.ofEpochDay(jourDebut + index);
+            case HEBDOMADAIRE -> LocalDate.ofEpochDay(jourDebut + 7 * index);
+            case MENSUEL -> debut.plusMonths(index);
+        };
+    }
+
+    public LocalDate finPeriode(long index) {
+        return debutPeriode(index + 1).minusDays(1);
+    }
+
+    /**
+     * Index de la période qui contient la date ; -1 avant le début du contrat.
+     */
+    public long indexContenant(LocalDate date) {
+        long jour = date.toEpochDay();
+        if (jour < jourDebut) return -1;
+        return switch (frequence) {
+            case JOURNALIER -> jour - jourDebut;
+            case HEBDOMADAIRE -> (jour - jourDebut) / 7;
+            case MENSUEL -> {
+                long mois = date.getYear() * 12L + date.getMonthValue() - 1 - moisDebut;
+                yield debut.plusMonths(mois).isAfter(date) ? mois - 1 : mois;
+            }
+        };
+    }
+
+    /**
+     * Nombre de périodes entièrement échues (fin au plus tard à la date donnée).
+     */
+    public long nombreEchues(LocalDate aujourdhui) {
+        return indexContenant(aujourdhui.plusDays(1));
+    }
+
+    /**
+     * Index de la première période après la dernière période payée (null : aucun paiement).
+     */
+    public long prochaineNonPayee(LocalDate finDernierePeriodePayee) {
+        if (finDernierePeriodePayee == null) return 0;
+        return Math.max(0, indexContenant(finDernierePeriodePayee) + 1);
+    }
+
+    /**
+     * Libellé court de la période : "Mois 3", "Semaine 12", "Jour 40".
+     */
+    public String libelle(int numero) {
+        return switch (frequence) {
+            case MENSUEL -> "Mois " + numero;
+            case HEBDOMADAIRE -> "Semaine " + numero;
+            case JOURNALIER -> "Jour " + numero;
+        };
+    }
+
+    /**
+     * Motif du paiement de la période, tel qu'imprimé sur le reçu.
+     */
+    public String motif(int numero, long index) {
+        String debutPeriode = debutPeriode(index).format(FORMAT_MOTIF);
+        String finPeriode = finPeriode(index).format(FORMAT_MOTIF);
+        return switch (frequence) {
+            case MENSUEL -> "Paiement du " + numero + "ᵉ mois (" + debutPeriode + " - " + finPeriode + ")";
+            case HEBDOMADAIRE -> "Paiement de la " + numero + "ᵉ semaine (" + debutPeriode + " - " + finPeriode + ")";
+            case JOURNALIER -> "Paiement du jour " + numero + " (" + debutPeriode + ")";
+        };
+    }
+}
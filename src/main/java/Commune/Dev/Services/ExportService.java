@@ -0,0 +1,332 @@
+package Commune.Dev.Services;
+
+import Commune.Dev.Dtos.PaiementDTO;
+import Commune.Dev.Dtos.RecherchePaiementCriteresDTO;
+import Commune.Dev.Models.Session;
+import Commune.Dev.Repositories.SessionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exports Excel (xlsx) et CSV pour l'ordonnateur.
+ * Les lignes sont lues par curseur et écrites au fil de l'eau : en xlsx, le classeur SXSSF
+ * ne garde en mémoire qu'une fenêtre de lignes, le reste part dans un fichier temporaire.
+ * Un export d'une année complète ne charge donc jamais l'année entière en mémoire.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportService {
+
+    // Lignes gardées en mémoire par le classeur SXSSF, et lues par aller-retour en base
+    private static final int FENETRE_LIGNES = 200;
+
+    private static final String[] COLONNES_PAIEMENTS = {
+            "ID", "Date", "Quittance", "Marchand", "Type", "Mode", "Période", "Motif",
+            "Montant", "Place", "Agent", "Session"
+    };
+
+    private static final String[] COLONNES_MARCHANDS = {
+            "ID", "Nom", "Prénom", "CIN", "Activité", "Téléphone", "Statut", "Endetté",
+            "Contrat", "Début du contrat", "Fréquence", "Contrat actif", "Place", "Montant place", "Droit annuel"
+    };
+
+    private final PaiementService paiementService;
+    private final SessionRepository sessionRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public enum FormatExport {
+        XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx"),
+        CSV("text/csv;charset=UTF-8", "csv");
+
+        public final String typeContenu;
+        public final String extension;
+
+        FormatExport(String typeContenu, String extension) {
+            this.typeContenu = typeContenu;
+            this.extension = extension;
+        }
+
+        public static FormatExport depuisNom(String nom) {
+            try {
+                return valueOf(nom.trim().toUpperCase());
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Format d'export inconnu: " + nom + " (xlsx ou csv)");
+            }
+        }
+    }
+
+    /**
+     * Paiements correspondant aux critères de la recherche, du plus récent au plus ancien.
+     */
+    @Transactional(readOnly = true)
+    public void exporterPaiements(RecherchePaiementCriteresDTO criteres, FormatExport format, OutputStream out) throws IOException {
+        try (Feuille feuille = ouvrir(format, "Paiements", out)) {
+            feuille.entete(COLONNES_PAIEMENTS);
+            int total = ecrirePaiements(feuille, criteres);
+            log.info("📤 Export des paiements ({}): {} lignes", format, total);
+        }
+    }
+
+    /**
+     * Marchands avec leurs contrats : une ligne par contrat, une ligne vide de contrat pour
+     * les marchands qui n'en ont pas.
+     */
+    @Transactional(readOnly = true)
+    public void exporterMarchands(FormatExport format, OutputStream out) throws IOException {
+        TypedQuery<Object[]> requete = entityManager.createQuery(
+                "SELECT m.id, m.nom, m.prenom, m.numCIN, m.activite, m.numTel1, m.statut, m.estEndette, " +
+                        "c.nom, c.dateOfStart, c.frequencePaiement, c.isActif, pl.nom, cat.montant, da.montant " +
+                        "FROM Marchands m " +
+                        "LEFT JOIN Contrat c ON c.idMarchand = m.id " +
+                        "LEFT JOIN c.place pl " +
+                        "LEFT JOIN c.categorie cat " +
+                        "LEFT JOIN c.droitAnnuel da " +
+                        "ORDER BY m.id, c.dateOfStart", Object[].class);
+
+        try (Feuille feuille = ouvrir(format, "Marchands", out)) {
+            feuille.entete(COLONNES_MARCHANDS);
+            int total = 0;
+            try (Stream<Object[]> flux = parCurseur(requete).getResultStream()) {
+                Iterator<Object[]> it = flux.iterator();
+                while (it.hasNext()) {
+                    feuille.ligne(it.next());
+                    total++;
+                }
+            }
+            log.info("📤 Export des marchands ({}): {} lignes", format, total);
+        }
+    }
+
+    /**
+     * Rapport d'une session : récapitulatif (agent, horaires, statut, total) puis ses paiements.
+     */
+    @Transactional(readOnly = true)
+    public void exporterSession(Long sessionId, FormatExport format, OutputStream out) throws IOException {
+        Session session = sessionRepository.findById(sessionId)
+                .orElseThrow(() -> new IllegalArgumentException("Session non trouvée"));
+
+        try (Feuille feuille = ouvrir(format, "Session", out)) {
+            feuille.ligne("Session", session.getNomSession());
+            feuille.ligne("Agent", session.getUser() != null
+                    ? session.getUser().getNom() + " " + session.getUser().getPrenom() : null);
+            feuille.ligne("Ouverture", session.getStartTime());
+            feuille.ligne("Fermeture", session.getEndTime());
+            feuille.ligne("Statut", session.getStatus() != null ? session.getStatus().name() : null);
+            feuille.ligne("Total collecté", session.getTotalCollected());
+            feuille.ligne();
+
+            feuille.entete(COLONNES_PAIEMENTS);
+            RecherchePaiementCriteresDTO criteres = new RecherchePaiementCriteresDTO();
+            criteres.setSessionId(sessionId);
+            int total = ecrirePaiements(feuille, criteres);
+            log.info("📤 Export de la session {} ({}): {} paiements", sessionId, format, total);
+        }
+    }
+
+    private int ecrirePaiements(Feuille feuille, RecherchePaiementCriteresDTO criteres) throws IOException {
+        int total = 0;
+        try (Stream<PaiementDTO> flux = parCurseur(paiementService.requeteRecherchePaiements(criteres, null)).getResultStream()) {
+            Iterator<PaiementDTO> it = flux.iterator();
+            while (it.hasNext()) {
+                PaiementDTO p = it.next();
+                feuille.ligne(p.getId(), p.getDatePaiement(), p.getRecuNumero(), p.getNomMarchands(),
+                        p.getTypePaiement() != null ? p.getTypePaiement().name() : null, p.getModePaiement(),
+                        p.getMoisdePaiement(), p.getMotif(), p.getMontant(), p.getNomPlace(), p.getNomAgent(),
+                        p.getSessionId());
+                total++;
+            }
+        }
+        return total;
+    }
+
+    private static <T> TypedQuery<T> parCurseur(TypedQuery<T> requete) {
+        requete.setHint(HibernateHints.HINT_FETCH_SIZE, FENETRE_LIGNES);
+        requete.setHint(HibernateHints.HINT_READ_ONLY, true);
+        return requete;
+    }
+
+    private static Feuille ouvrir(FormatExport format, String nom, OutputStream out) {
+        return format == FormatExport.XLSX ? new FeuilleExcel(nom, out) : new FeuilleCsv(out);
+    }
+
+    // =====================================================
+    //   ÉCRITURE DES LIGNES
+    // =====================================================
+
+    // CSV seulement : un texte saisi (nom de marchand, motif...) commençant comme une formule est
+    // préfixé d'une apostrophe pour que le tableur l'affiche au lieu de l'évaluer. En xlsx, une
+    // cellule texte n'est jamais évaluée : la valeur y reste telle quelle. Les nombres ne passent pas par ici.
+    private static String neutraliserFormule(String texte) {
+        if (!texte.isEmpty() && "=+-@\t\r".indexOf(texte.charAt(0)) >= 0) {
+            return "'" + texte;
+        }
+        return texte;
+    }
+
+    private interface Feuille extends AutoCloseable {
+        void entete(String... colonnes) throws IOException;
+
+        void ligne(Object... valeurs) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static class FeuilleExcel implements Feuille {
+        private final SXSSFWorkbook classeur = new SXSSFWorkbook(FENETRE_LIGNES);
+        private final Sheet feuille;
+        private final CellStyle styleEntete;
+        private final CellStyle styleDate;
+        private final CellStyle styleDateHeure;
+        private final OutputStream out;
+        private int numeroLigne;
+
+        FeuilleExcel(String nom, OutputStream out) {
+            this.out = out;
+            classeur.setCompressTempFiles(true);
+            feuille = classeur.createSheet(nom);
+
+            Font gras = classeur.createFont();
+            gras.setBold(true);
+            styleEntete = classeur.createCellStyle();
+            styleEntete.setFont(gras);
+
+            short formatDate = classeur.getCreationHelper().createDataFormat().getFormat("dd/mm/yyyy");
+            styleDate = classeur.createCellStyle();
+            styleDate.setDataFormat(formatDate);
+            short formatDateHeure = classeur.getCreationHelper().createDataFormat().getFormat("dd/mm/yyyy hh:mm");
+            styleDateHeure = classeur.createCellStyle();
+            styleDateHeure.setDataFormat(formatDateHeure);
+        }
+
+        @Override
+        public void entete(String... colonnes) {
+            Row row = feuille.createRow(numeroLigne++);
+            for (int i = 0; i < colonnes.length; i++) {
+                Cell cell = row.createCell(i);
+                cell.setCellValue(colonnes[i]);
+                cell.setCellStyle(styleEntete);
+            }
+        }
+
+        @Override
+        public void ligne(Object... valeurs) {
+            Row row = feuille.createRow(numeroLigne++);
+            for (int i = 0; i < valeurs.length; i++) {
+                Object valeur = valeurs[i];
+                if (valeur == null) continue;
+                Cell cell = row.createCell(i);
+                if (valeur instanceof BigDecimal montant) {
+                    cell.setCellValue(montant.doubleValue());
+                } else if (valeur instanceof Number nombre) {
+                    cell.setCellValue(nombre.doubleValue());
+                } else if (valeur instanceof LocalDateTime dateHeure) {
+                    cell.setCellValue(dateHeure);
+                    cell.setCellStyle(styleDateHeure);
+                } else if (valeur instanceof LocalDate date) {
+                    cell.setCellValue(date);
+                    cell.setCellStyle(styleDate);
+                } else if (valeur instanceof Boolean booleen) {
+                    cell.setCellValue(booleen ? "Oui" : "Non");
+                } else {
+                    cell.setCellValue(valeur.toString());
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                classeur.write(out);
+                out.flush();
+            } finally {
+                // Supprime les fichiers temporaires du classeur
+                classeur.close();
+            }
+        }
+    }
+
+    private static class FeuilleCsv implements Feuille {
+        private static final char SEPARATEUR = ';';
+        private static final DateTimeFormatter FORMAT_DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        private static final DateTimeFormatter FORMAT_DATE_HEURE = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+        private final Writer writer;
+
+        FeuilleCsv(OutputStream out) {
+            writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            try {
+                // BOM : Excel ouvre le fichier en UTF-8 (accents des noms)
+                writer.write('\uFEFF');
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void entete(String... colonnes) throws IOException {
+            ligne((Object[]) colonnes);
+        }
+
+        @Override
+        public void ligne(Object... valeurs) throws IOException {
+            for (int i = 0; i < valeurs.length; i++) {
+                if (i > 0) writer.write(SEPARATEUR);
+                writer.write(formater(valeurs[i]));
+            }
+            writer.write("\r\n");
+        }
+
+        private static String formater(Object valeur) {
+            if (valeur == null) return "";
+            String texte;
+            if (valeur instanceof BigDecimal montant) {
+                texte = montant.toPlainString();
+            } else if (valeur instanceof LocalDateTime dateHeure) {
+                texte = dateHeure.format(FORMAT_DATE_HEURE);
+            } else if (valeur instanceof LocalDate date) {
+                texte = date.format(FORMAT_DATE);
+            } else if (valeur instanceof Boolean booleen) {
+                texte = booleen ? "Oui" : "Non";
+            } else {
+                texte = neutraliserFormule(valeur.toString());
+            }
+            if (texte.indexOf(SEPARATEUR) >= 0 || texte.indexOf('"') >= 0 || texte.indexOf('\n') >= 0 || texte.indexOf('\r') >= 0) {
+                return "\"" + texte.replace("\"", "\"\"") + "\"";
+            }
+            return texte;
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+}
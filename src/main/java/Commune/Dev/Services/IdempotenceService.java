@@ -0,0 +1,180 @@
+package Commune.Dev.Services;
+
+import Commune.Dev.Models.RequeteIdempotente;
+import Commune.Dev.Repositories.RequeteIdempotenteRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Mémorisation des réponses des requêtes portant un en-tête Idempotency-Key.
+ * Les réponses terminées sont gardées en base jusqu'à expiration, avec une copie
+ * en mémoire pour servir les renvois rapprochés sans accès à la base.
+ * L'exécution est marquée dans la transaction même des paiements (surPaiementsEnregistres) :
+ * une requête dont les paiements sont validés n'est jamais réexécutée, même si sa réponse
+ * n'a pas pu être enregistrée. Une réservation EN_COURS sans paiement validé n'est reprise
+ * qu'après son bail, et seulement si aucune transaction de paiement ne la tient ; la requête
+ * d'origine, si elle reprend plus tard, voit que son jeton a changé et annule ses paiements.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotenceService {
+
+    // Attribut de requête portant la réservation en cours, posé par IdempotenceFilter
+    public static final String ATTRIBUT_RESERVATION = IdempotenceService.class.getName() + ".reservation";
+
+    // Au-delà, les nouvelles réponses ne sont plus copiées en mémoire (la base reste la référence)
+    private static final int TAILLE_CACHE_MAX = 10_000;
+
+    private final RequeteIdempotenteRepository requeteIdempotenteRepository;
+
+    private final Map<String, RequeteIdempotente> cache = new ConcurrentHashMap<>();
+
+    @Value("${app.idempotence.ttl-heures:24}")
+    private long ttlHeures;
+
+    @Value("${app.idempotence.bail-minutes:5}")
+    private long bailMinutes;
+
+    /**
+     * Réservation détenue par la requête en cours : le jeton distingue la requête d'origine
+     * d'une reprise de la même clé.
+     */
+    public record Reservation(String cle, String jeton) {
+    }
+
+    /**
+     * Requête déjà vue pour cette clé : terminée (réponse à rejouer), exécutée ou encore en cours.
+     * Une réservation abandonnée (bail dépassé, aucun paiement validé) n'est pas retournée.
+     */
+    @Transactional(readOnly = true)
+    public Optional<RequeteIdempotente> chercher(String cle) {
+        RequeteIdempotente enCache = cache.get(cle);
+        if (enCache != null) {
+            if (enCache.getExpireAt().isAfter(LocalDateTime.now())) {
+                return Optional.of(enCache);
+            }
+            cache.remove(cle);
+        }
+        LocalDateTime maintenant = LocalDateTime.now();
+        return requeteIdempotenteRepository.findById(cle)
+                .filter(requete -> requete.getExpireAt().isAfter(maintenant))
+                .filter(requete -> requete.getStatut() != RequeteIdempotente.Statut.EN_COURS
+                        || requete.getPaiementIds() != null
+                        || !bailDepasse(requete, maintenant));
+    }
+
+    /**
+     * Une réservation EN_COURS dont les paiements sont validés mais dont la réponse n'a jamais
+     * été enregistrée (processus arrêté entre le commit et terminer).
+     */
+    public boolean executeeSansReponse(RequeteIdempotente requete) {
+        return requete.getStatut() == RequeteIdempotente.Statut.EN_COURS
+                && requete.getPaiementIds() != null
+                && bailDepasse(requete, LocalDateTime.now());
+    }
+
+    /**
+     * Réserve la clé avant d'exécuter la requête. Retourne null si une autre requête la détient encore
+     * ou l'a déjà exécutée.
+     */
+    @Transactional
+    public Reservation reserver(String cle, String empreinte) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        String jeton = UUID.randomUUID().toString();
+        cache.remove(cle);
+        if (requeteIdempotenteRepository.insererSiAbsente(cle, empreinte, jeton, maintenant,
+                maintenant.plusHours(ttlHeures)) == 1) {
+            return new Reservation(cle, jeton);
+        }
+
+        // Clé existante : verrouillée par une transaction de paiement en cours, elle n'est pas reprise
+        RequeteIdempotente requete = requeteIdempotenteRepository.findByCleSiLibre(cle).orElse(null);
+        if (requete == null) return null;
+
+        boolean expiree = !requete.getExpireAt().isAfter(maintenant);
+        boolean abandonnee = requete.getStatut() == RequeteIdempotente.Statut.EN_COURS
+                && requete.getPaiementIds() == null && bailDepasse(requete, maintenant);
+        if (!expiree && !abandonnee) return null;
+
+        requete.setEmpreinteRequete(empreinte);
+        requete.setStatut(RequeteIdempotente.Statut.EN_COURS);
+        requete.setCodeHttp(null);
+        requete.setTypeContenu(null);
+        requete.setCorpsReponse(null);
+        requete.setPaiementIds(null);
+        requete.setJeton(jeton);
+        requete.setCreatedAt(maintenant);
+        requete.setExpireAt(maintenant.plusHours(ttlHeures));
+        return new Reservation(cle, jeton);
+    }
+
+    /**
+     * Marque la réservation de la requête en cours comme exécutée, dans la transaction qui enregistre
+     * les paiements. Si la clé a été reprise entre-temps, les paiements sont annulés.
+     */
+    @EventListener
+    public void surPaiementsEnregistres(PaiementService.PaiementsEnregistres evenement) {
+        RequestAttributes attributs = RequestContextHolder.getRequestAttributes();
+        if (attributs == null
+                || !(attributs.getAttribute(ATTRIBUT_RESERVATION, RequestAttributes.SCOPE_REQUEST) instanceof Reservation reservation)) {
+            return;
+        }
+        String paiementIds = evenement.paiementIds().stream().map(String::valueOf).collect(Collectors.joining(","));
+        if (requeteIdempotenteRepository.marquerExecutee(reservation.cle(), reservation.jeton(), paiementIds) == 0) {
+            throw new IllegalStateException("Clé Idempotency-Key reprise par un autre envoi, paiements annulés");
+        }
+    }
+
+    /**
+     * Enregistre la réponse de la requête réservée, pour la rejouer aux renvois.
+     */
+    @Transactional
+    public void terminer(Reservation reservation, int codeHttp, String typeContenu, byte[] corps) {
+        if (requeteIdempotenteRepository.terminer(reservation.cle(), reservation.jeton(), codeHttp, typeContenu, corps) == 0) {
+            return;
+        }
+        if (cache.size() < TAILLE_CACHE_MAX) {
+            requeteIdempotenteRepository.findById(reservation.cle()).ifPresent(requete -> cache.put(reservation.cle(), requete));
+        }
+    }
+
+    /**
+     * La requête a échoué sans effet (transaction annulée) : la clé est libérée pour un nouvel essai.
+     */
+    @Transactional
+    public void liberer(Reservation reservation) {
+        cache.remove(reservation.cle());
+        requeteIdempotenteRepository.supprimerEnCours(reservation.cle(), reservation.jeton());
+    }
+
+    private boolean bailDepasse(RequeteIdempotente requete, LocalDateTime maintenant) {
+        return requete.getCreatedAt().isBefore(maintenant.minusMinutes(bailMinutes));
+    }
+
+    // Toutes les heures
+    @Scheduled(fixedDelay = 3_600_000)
+    @Transactional
+    public void purgerExpirees() {
+        LocalDateTime maintenant = LocalDateTime.now();
+        cache.values().removeIf(requete -> !requete.getExpireAt().isAfter(maintenant));
+        int supprimees = requeteIdempotenteRepository.deleteExpirees(maintenant);
+        if (supprimees > 0) {
+            log.info("🧹 {} réponses idempotentes expirées supprimées", supprimees);
+        }
+    }
+}
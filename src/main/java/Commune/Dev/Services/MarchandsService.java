@@ -55,6 +55,9 @@ public class MarchandsService {
     @Autowired
     private MarcheeRepository marcheeRepository;
 
+    @Autowired
+    private SituationPaiementService situationPaiementService;
+
     @PersistenceContext
     private EntityManager entityManager;
 
@@ -784,30 +787,20 @@ public class MarchandsService {
         // =====================================================
         if (type == Paiement.Typepaiement.droit_annuel) {
 
-            // Récupérer le dernier paiement annuel
-            Paiement dernierPaiementAnnuel = marchand.getPaiements().stream()
-                    .filter(p -> p.getTypePaiement() == Paiement.Typepaiement.droit_annuel)
-                    .filter(p -> p.getDatePaiement() != null)
-                    .max(Comparator.comparing(Paiement::getDatePaiement))
-                    .orElse(null);
+            // Dernière année payée, lue dans la situation du marchand
+            SituationPaiement situation = situationPaiementService.consulter(marchand.getId(), type);
 
             int anneeProchaine;
 
-            if (dernierPaiementAnnuel == null) {
+            if (situation.getDerniereAnnee() != null) {
+                anneeProchaine = situation.getDerniereAnnee() + 1;
+            } else if (situation.getIndexPeriode() == 0) {
                 // Premier paiement : année de début du contrat
                 anneeProchaine = contrat.getDateOfStart() != null ?
                         contrat.getDateOfStart().getYear() : LocalDate.now().getYear();
             } else {
-                // Extraire l'année du dernier paiement et ajouter 1
-                try {
-                    String motif = dernierPaiementAnnuel.getMotif();
-                    // Extraire l'année depuis "Droit annuel 2025"
-                    int derniereAnnee = Integer.parseInt(motif.replaceAll("\\D+", ""));
-                    anneeProchaine = derniereAnnee + 1;
-                } catch (Exception e) {
-                    // Si erreur, prendre l'année actuelle
-                    anneeProchaine = LocalDate.now().getYear();
-                }
+                // Année inconnue dans l'historique : prendre l'année actuelle
+                anneeProchaine = LocalDate.now().getYear();
             }
 
             return "Droit annuel " + anneeProchaine;
@@ -818,58 +811,20 @@ public class MarchandsService {
         // =====================================================
         else if (type == Paiement.Typepaiement.droit_place) {
 
-            // Récupérer le dernier paiement de place
-            Paiement lastPayment = marchand.getPaiements().stream()
-                    .filter(p -> p.getTypePaiement() == Paiement.Typepaiement.droit_place)
-                    .filter(p -> p.getDatePaiement() != null)
-                    .max(Comparator.comparing(Paiement::getDatePaiement))
-                    .orElse(null);
-
-            LocalDate nextStart;
-            LocalDate nextEnd;
-            int index = 1;
-
-            DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd MMMM yyyy", Locale.FRENCH);
-            FrequencePaiement freq = contrat.getFrequencePaiement();
-
-            // -----------------------------------
-            // Calcul de la prochaine période
-            // -----------------------------------
-            if (lastPayment != null && lastPayment.getDateFin() != null) {
-                // On commence le jour après la fin du dernier paiement
-                nextStart = lastPayment.getDateFin().plusDays(1);
+            // Dernière période payée, lue dans la situation du marchand
+            SituationPaiement situation = situationPaiementService.consulter(marchand.getId(), type);
 
-                // Extraire l'index du dernier paiement
-                try {
-                    index = Integer.parseInt(lastPayment.getMoisdePaiement().replaceAll("\\D+", "")) + 1;
-                } catch (Exception e) {
-                    index = 1;
-                }
-            } else {
-                // Aucun paiement → commencer à la date du contrat
-                nextStart = contrat.getDateOfStart() != null ?
-                        contrat.getDateOfStart() : LocalDate.now();
+            if (contrat.getFrequencePaiement() == null) {
+                return "Fréquence non définie";
             }
 
-            // Calculer la date de fin selon la fréquence
-            switch (freq) {
-                case MENSUEL:
-                    nextEnd = nextStart.plusMonths(1).minusDays(1);
-                    return "Paiement du " + index + "ᵉ mois (" +
-                            nextStart.format(fmt) + " - " + nextEnd.format(fmt) + ")";
+            // Aucune date de contrat → grille commençant aujourd'hui
+            EcheancierContrat echeancier = EcheancierContrat.de(
+                    contrat.getDateOfStart() != null ? contrat.getDateOfStart() : LocalDate.now(),
+                    contrat.getFrequencePaiement());
 
-                case HEBDOMADAIRE:
-                    nextEnd = nextStart.plusWeeks(1).minusDays(1);
-                    return "Paiement de la " + index + "ᵉ semaine (" +
-                            nextStart.format(fmt) + " - " + nextEnd.format(fmt) + ")";
-
-                case JOURNALIER:
-                    nextEnd = nextStart;
-                    return "Paiement du jour " + index + " (" + nextStart.format(fmt) + ")";
-
-                default:
-                    return "Fréquence non définie";
-            }
+            return echeancier.motif(situation.getIndexPeriode() + 1,
+                    echeancier.prochaineNonPayee(situation.getDateFinPeriode()));
         }
 
         return "Type de paiement non reconnu";
@@ -39,6 +39,9 @@ public class MarcheeService {
 
     @Autowired
     private PlaceService placeService;
+
+    @Autowired
+    private TerritoireService territoireService;
     private static final Logger logger = LoggerFactory.getLogger(MarcheeService.class);
 
     // CREATE operations
@@ -454,6 +457,7 @@ public class MarcheeService {
         }
 
         marcheeRepository.deleteById(Math.toIntExact(id));
+        territoireService.invaliderTout();
     }
 
     /**
@@ -495,18 +499,22 @@ public class MarcheeService {
 
     public void delete(Marchee marchee) {
         marcheeRepository.delete(marchee);
+        territoireService.invaliderTout();
     }
 
     public void deleteAll(List<Marchee> marchees) {
         marcheeRepository.deleteAll(marchees);
+        territoireService.invaliderTout();
     }
 
     public void deleteAllById(List<Integer> ids) {
         marcheeRepository.deleteAllById(ids);
+        territoireService.invaliderTout();
     }
 
     public void deleteAll() {
         marcheeRepository.deleteAll();
+        territoireService.invaliderTout();
     }
 
     // Custom business methods
@@ -22,6 +22,7 @@ public class MarcheeStatServices {
     private final PlaceRepository placeRepository;
     private final ContratRepository contratRepository;
     private final PaiementRepository paiementRepository;
+    private final RecetteJournaliereService recetteJournaliereService;
 
     // Constantes pour la conversion mensuelle
     private static final double SEMAINES_PAR_MOIS = 4.33;
@@ -183,7 +184,7 @@ public class MarcheeStatServices {
             dto.setMontantEstimeTotal(montantEstime);
 
             // Montant perçu le mois dernier
-            BigDecimal montantPercu = calculerMontantPercuMoisDernier(contrats, marcheeId);
+            BigDecimal montantPercu = calculerMontantPercuMoisDernier(contrats);
             dto.setMontantPercu(montantPercu);
 
             // Taux de perception
@@ -225,7 +226,7 @@ public class MarcheeStatServices {
     /**
      * Calcule le montant perçu le mois dernier pour une liste de contrats
      */
-    private BigDecimal calculerMontantPercuMoisDernier(List<Contrat> contrats, Long marcheeId) {
+    private BigDecimal calculerMontantPercuMoisDernier(List<Contrat> contrats) {
         // Mois dernier
         YearMonth moisDernier = YearMonth.now().minusMonths(1);
         LocalDateTime debutMois = moisDernier.atDay(1).atStartOfDay();
@@ -242,14 +243,17 @@ public class MarcheeStatServices {
             return BigDecimal.ZERO;
         }
 
-        // Récupérer les paiements du mois dernier
-        List<Paiement> paiements = paiementRepository.findByMarchandIdInAndDatePaiementBetween(
-                marchandIds, debutMois, finMois);
+        // La catégorie et la fréquence ne sont pas des dimensions des recettes journalières : somme en base
+        return paiementRepository.sumMontantByMarchandIdInAndDatePaiementBetween(marchandIds, debutMois, finMois);
+    }
 
-        // Sommer les montants
-        return paiements.stream()
-                .map(Paiement::getMontant)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /**
+     * Montant perçu le mois dernier dans une zone ou un hall, lu dans les recettes journalières
+     */
+    private BigDecimal calculerRecetteMoisDernier(Long marcheeId, Long zoneId, Long hallId) {
+        YearMonth moisDernier = YearMonth.now().minusMonths(1);
+        return recetteJournaliereService.totalPercu(moisDernier.atDay(1), moisDernier.atEndOfMonth(),
+                marcheeId, zoneId, hallId);
     }
 
     /**
@@ -294,7 +298,7 @@ public class MarcheeStatServices {
                     BigDecimal montantEstime = calculerEstimationMensuelle(contratsHall);
                     dto.setMontantEstime(montantEstime);
 
-                    BigDecimal montantPercu = calculerMontantPercuMoisDernier(contratsHall, marchee.getId());
+                    BigDecimal montantPercu = calculerRecetteMoisDernier(marchee.getId(), null, hall.getId());
                     dto.setMontantPercu(montantPercu);
                     dto.setMontantRestant(montantEstime.subtract(montantPercu));
 
@@ -349,7 +353,7 @@ public class MarcheeStatServices {
                     BigDecimal montantEstime = calculerEstimationMensuelle(contratsZone);
                     dto.setMontantEstimeMois(montantEstime);
 
-                    BigDecimal montantPercu = calculerMontantPercuMoisDernier(contratsZone, marchee.getId());
+                    BigDecimal montantPercu = calculerRecetteMoisDernier(marchee.getId(), zone.getId(), null);
                     dto.setMontantPercu(montantPercu);
                     dto.setMontantRestant(montantEstime.subtract(montantPercu));
 
@@ -0,0 +1,117 @@
+package Commune.Dev.Services;
+
+import Commune.Dev.Models.Contrat;
+import Commune.Dev.Models.EvenementSortant.TypeEvenement;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Écriture des événements de l'outbox.
+ * Les événements d'une transaction sont accumulés puis insérés en un lot JDBC juste avant
+ * le commit, dans la même transaction : un événement existe si et seulement si le
+ * changement qui l'a produit est validé.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private static final Object CLE_RESSOURCE = new Object();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private record EvenementAEcrire(TypeEvenement type, String agregat, Long agregatId, String contenu) {
+    }
+
+    /**
+     * Publie l'état d'un contrat. La création est publiée par OutboxContratListener ; la
+     * modification et la suppression sont publiées par le service qui les fait, avant le
+     * commit : un @PostUpdate/@PostRemove déclenché au flush du commit arriverait après
+     * l'écriture des événements.
+     */
+    public void publierContrat(TypeEvenement type, Contrat contrat) {
+        Map<String, Object> contenu = new LinkedHashMap<>();
+        contenu.put("id", contrat.getId());
+        contenu.put("marchandId", contrat.getIdMarchand());
+        contenu.put("placeId", contrat.getIdPlace());
+        contenu.put("categorieId", contrat.getCategorieId());
+        contenu.put("droitAnnuelId", contrat.getDroitAnnuelId());
+        contenu.put("frequencePaiement", contrat.getFrequencePaiement());
+        contenu.put("actif", contrat.getIsActif());
+        contenu.put("dateDebut", contrat.getDateOfStart());
+        contenu.put("dateFin", contrat.getDateOfEnd());
+        publier(type, "Contrat", contrat.getId().longValue(), contenu);
+    }
+
+    public void publier(TypeEvenement type, String agregat, Long agregatId, Map<String, Object> contenu) {
+        EvenementAEcrire evenement;
+        try {
+            evenement = new EvenementAEcrire(type, agregat, agregatId,
+                    objectMapper.writeValueAsString(contenu));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Sérialisation de l'événement " + type + " impossible", e);
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            inserer(List.of(evenement));
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<EvenementAEcrire> enAttente =
+                (List<EvenementAEcrire>) TransactionSynchronizationManager.getResource(CLE_RESSOURCE);
+
+        if (enAttente == null) {
+            List<EvenementAEcrire> nouveaux = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(CLE_RESSOURCE, nouveaux);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    // Écritures JPA encore en mémoire envoyées avant les événements
+                    if (entityManager.isJoinedToTransaction()) {
+                        entityManager.flush();
+                    }
+                    inserer(nouveaux);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CLE_RESSOURCE);
+                }
+            });
+            enAttente = nouveaux;
+        }
+
+        enAttente.add(evenement);
+    }
+
+    // xid = transaction en cours (pg_current_xact_id) : le relais attend qu'elle soit terminée,
+    // quel que soit le délai entre l'insertion et le commit
+    private void inserer(List<EvenementAEcrire> evenements) {
+        if (evenements.isEmpty()) return;
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO evenement_sortant (type, agregat, agregat_id, contenu, created_at, xid) " +
+                        "VALUES (?, ?, ?, ?, clock_timestamp(), CAST(CAST(pg_current_xact_id() AS text) AS bigint))",
+                evenements, 500, (ps, e) -> {
+                    ps.setString(1, e.type().name());
+                    ps.setString(2, e.agregat());
+                    ps.setLong(3, e.agregatId());
+                    ps.setString(4, e.contenu());
+                });
+    }
+}
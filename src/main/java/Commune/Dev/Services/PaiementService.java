@@ -1,23 +1,40 @@
 package Commune.Dev.Services;
 
+import Commune.Dev.Dtos.LotPaiementsHorsLigneRequestDTO;
+import Commune.Dev.Dtos.LotPaiementsHorsLigneResponseDTO;
 import Commune.Dev.Dtos.MultiplePaiementRequestDTO;
 import Commune.Dev.Dtos.PaiementDTO;
+import Commune.Dev.Dtos.PaiementHorsLigneRequestDTO;
+import Commune.Dev.Dtos.PaiementPageResponse;
 import Commune.Dev.Dtos.PaiementRequestDTO;
+import Commune.Dev.Dtos.RecherchePaiementCriteresDTO;
 import Commune.Dev.Models.*;
 import Commune.Dev.Repositories.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Year;
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
 import java.time.LocalTime;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
@@ -32,15 +49,469 @@ public class PaiementService {
     private final SessionRepository sessionRepository;
     private final ContratRepository contratRepository;
     private final QuittanceRepository quittanceRepository;
+    private final SituationPaiementService situationPaiementService;
+    private final RecetteJournaliereService recetteJournaliereService;
+    private final RecuService recuService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OutboxService outboxService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Nombre de lignes envoyées par aller-retour lors des écritures groupées
+    private static final int TAILLE_LOT_JDBC = 500;
+
+    // Statuts de session acceptant un paiement : en ligne, la session doit être ouverte ; hors ligne,
+    // elle peut avoir été fermée depuis l'encaissement tant que ses totaux ne sont pas validés
+    private static final Set<Session.SessionStatus> STATUTS_SESSION_EN_LIGNE =
+            EnumSet.of(Session.SessionStatus.OUVERTE);
+    private static final Set<Session.SessionStatus> STATUTS_SESSION_HORS_LIGNE =
+            EnumSet.of(Session.SessionStatus.OUVERTE, Session.SessionStatus.FERMEE, Session.SessionStatus.EN_VALIDATION);
+
+    // Import hors ligne : verrous consultatifs des identifiants client, répartis en groupes
+    private static final long CLE_VERROUS_CLIENT_UUID = 0x7061696500L;
+    private static final int GROUPES_VERROUS_CLIENT_UUID = 32;
+
+    // Taille des pages de la recherche de paiements
+    private static final int TAILLE_PAGE_DEFAUT = 50;
+    private static final int TAILLE_PAGE_MAX = 500;
 
+    /**
+     * Publié dans la transaction qui enregistre des paiements ; les écouteurs
+     * après commit (reçus) ne voient ainsi que des paiements validés.
+     */
+    public record PaiementsEnregistres(List<Integer> paiementIds) {
+    }
 
     /**
-     * Effectuer plusieurs paiements en même temps
+     * Effectuer plusieurs paiements en même temps.
+     * Les références de tout le lot sont chargées en une requête par type, les périodes d'un même
+     * marchand s'enchaînent en mémoire et les paiements sont insérés par lots JDBC.
+     * Le lot est refusé en entier si un seul paiement est invalide.
      */
 
     @Transactional
     public List<PaiementDTO> effectuerMultiplePaiements(MultiplePaiementRequestDTO request) {
-        return request.getPaiements().stream().map(this::effectuerPaiement).collect(Collectors.toList());
+        List<PaiementRequestDTO> lignes = request.getPaiements();
+        ReferencesLot references = chargerReferences(lignes);
+        LocalDateTime maintenant = LocalDateTime.now();
+
+        List<Paiement> paiements = new ArrayList<>();
+        Set<String> quittancesDuLot = new HashSet<>();
+        for (PaiementRequestDTO ligne : lignes) {
+            Paiement paiement = construirePaiementDuLot(ligne, maintenant, false, references, quittancesDuLot);
+            enregistrerDansLeLot(paiement, references, quittancesDuLot);
+            paiements.add(paiement);
+        }
+
+        List<Integer> ids = insererPaiements(paiements, maintenant, STATUTS_SESSION_EN_LIGNE);
+        for (int i = 0; i < paiements.size(); i++) {
+            paiements.get(i).setId(ids.get(i));
+        }
+        return paiements.stream().map(this::convertToDTO).collect(Collectors.toList());
+    }
+
+    /**
+     * Importer un lot de paiements saisis hors ligne.
+     * Chaque paiement porte un identifiant client (UUID) : un paiement déjà reçu est signalé
+     * DOUBLON au lieu d'être recréé, ce qui rend le renvoi d'un lot sans risque.
+     * Les sessions, quittances, marchands et contrats sont chargés en une requête chacun,
+     * les paiements valides sont insérés par lots JDBC et les paiements invalides sont
+     * rejetés individuellement sans bloquer le reste du lot.
+     * Les paiements sont traités par date d'encaissement (puis dans l'ordre du lot), pour que
+     * les périodes d'un même marchand s'enchaînent quel que soit l'ordre d'envoi ; les
+     * résultats sont renvoyés dans l'ordre du lot.
+     * Une session fermée depuis (mais pas encore validée) accepte les paiements encaissés
+     * entre son ouverture et sa fermeture.
+     */
+    @Transactional
+    public LotPaiementsHorsLigneResponseDTO importerPaiementsHorsLigne(LotPaiementsHorsLigneRequestDTO request) {
+        List<PaiementHorsLigneRequestDTO> lignes = request.getPaiements();
+        LotPaiementsHorsLigneResponseDTO.ResultatPaiement[] resultats =
+                new LotPaiementsHorsLigneResponseDTO.ResultatPaiement[lignes.size()];
+
+        // 🔍 1. Paiements déjà reçus lors d'un envoi précédent. Deux envois simultanés du même
+        // lot sont mis en série : le second attend le commit du premier et y lit des doublons.
+        Set<UUID> uuids = lignes.stream()
+                .map(PaiementHorsLigneRequestDTO::getClientUuid)
+                .collect(Collectors.toSet());
+        verrouillerIdentifiantsClient(uuids);
+        Map<UUID, Integer> dejaRecus = new HashMap<>();
+        for (Object[] ligne : paiementRepository.findIdsByClientUuidIn(uuids)) {
+            dejaRecus.put((UUID) ligne[0], (Integer) ligne[1]);
+        }
+
+        // 🔍 2. Chargement groupé des références
+        ReferencesLot references = chargerReferences(lignes);
+
+        // 🔍 3. Validation et calcul de chaque paiement, par date d'encaissement
+        List<Paiement> aInserer = new ArrayList<>();
+        List<Integer> indexInseres = new ArrayList<>();
+        Set<UUID> vusDansLeLot = new HashSet<>();
+        Set<String> quittancesDuLot = new HashSet<>();
+        LocalDateTime maintenant = LocalDateTime.now();
+
+        // Tri stable : à date égale (ou sans date), l'ordre du lot est conservé
+        List<Integer> ordre = new ArrayList<>();
+        for (int i = 0; i < lignes.size(); i++) ordre.add(i);
+        ordre.sort(Comparator.comparing(i -> lignes.get(i).getDatePaiement(),
+                Comparator.nullsLast(Comparator.naturalOrder())));
+
+        for (int i : ordre) {
+            PaiementHorsLigneRequestDTO ligne = lignes.get(i);
+            UUID uuid = ligne.getClientUuid();
+
+            if (dejaRecus.containsKey(uuid)) {
+                resultats[i] = new LotPaiementsHorsLigneResponseDTO.ResultatPaiement(
+                        uuid, LotPaiementsHorsLigneResponseDTO.StatutResultat.DOUBLON, dejaRecus.get(uuid), null);
+                continue;
+            }
+            if (!vusDansLeLot.add(uuid)) {
+                resultats[i] = new LotPaiementsHorsLigneResponseDTO.ResultatPaiement(
+                        uuid, LotPaiementsHorsLigneResponseDTO.StatutResultat.DOUBLON, null, "Paiement présent deux fois dans le lot");
+                continue;
+            }
+
+            try {
+                LocalDateTime datePaiement = ligne.getDatePaiement() != null ? ligne.getDatePaiement() : maintenant;
+                if (datePaiement.isAfter(maintenant)) {
+                    throw new IllegalStateException("La date de paiement ne peut pas être dans le futur");
+                }
+                Paiement paiement = construirePaiementDuLot(ligne, datePaiement, true, references, quittancesDuLot);
+                paiement.setClientUuid(uuid);
+                enregistrerDansLeLot(paiement, references, quittancesDuLot);
+                aInserer.add(paiement);
+                indexInseres.add(i);
+                resultats[i] = new LotPaiementsHorsLigneResponseDTO.ResultatPaiement(
+                        uuid, LotPaiementsHorsLigneResponseDTO.StatutResultat.CREE, null, null);
+            } catch (RuntimeException e) {
+                resultats[i] = new LotPaiementsHorsLigneResponseDTO.ResultatPaiement(
+                        uuid, LotPaiementsHorsLigneResponseDTO.StatutResultat.REJETE, null, e.getMessage());
+            }
+        }
+
+        // 💾 4. Écriture groupée : paiements, quittances consommées, totaux des sessions
+        if (!aInserer.isEmpty()) {
+            List<Integer> ids = insererPaiements(aInserer, maintenant, STATUTS_SESSION_HORS_LIGNE);
+            for (int k = 0; k < ids.size(); k++) {
+                resultats[indexInseres.get(k)].setPaiementId(ids.get(k));
+            }
+        }
+
+        LotPaiementsHorsLigneResponseDTO response = new LotPaiementsHorsLigneResponseDTO();
+        response.setResultats(Arrays.asList(resultats));
+        for (LotPaiementsHorsLigneResponseDTO.ResultatPaiement resultat : resultats) {
+            switch (resultat.getStatut()) {
+                case CREE -> response.setCrees(response.getCrees() + 1);
+                case DOUBLON -> response.setDoublons(response.getDoublons() + 1);
+                case REJETE -> response.setRejetes(response.getRejetes() + 1);
+            }
+        }
+        return response;
+    }
+
+    // Verrous consultatifs par groupe d'identifiants client, pris dans l'ordre (pas d'interblocage)
+    // et relâchés au commit ; un nombre fixe de groupes borne les verrous tenus par un lot
+    private void verrouillerIdentifiantsClient(Set<UUID> uuids) {
+        uuids.stream()
+                .map(uuid -> CLE_VERROUS_CLIENT_UUID + Math.floorMod(uuid.hashCode(), GROUPES_VERROUS_CLIENT_UUID))
+                .distinct()
+                .sorted()
+                .forEach(cle -> jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)::text", String.class, cle));
+    }
+
+    // Références d'un lot de paiements, chargées une fois pour tout le lot
+    private static class ReferencesLot {
+        Map<Long, Session> sessions = new HashMap<>();
+        Map<Long, User> agents = new HashMap<>();
+        Map<String, Quittance> quittances = new HashMap<>();
+        // Quittances attribuées automatiquement aux lignes sans numéro, par agent
+        Map<Long, Deque<Quittance>> quittancesAuto = new HashMap<>();
+        Map<Integer, Place> places = new HashMap<>();
+        Map<Integer, Marchands> marchands = new HashMap<>();
+        // Contrat le plus récent de chaque marchand
+        Map<Integer, Contrat> contrats = new HashMap<>();
+        // Situation par marchand et par type, avancée au fil du lot pour enchaîner les périodes
+        Map<String, SituationPaiement> situations = new HashMap<>();
+    }
+
+    private ReferencesLot chargerReferences(List<? extends PaiementRequestDTO> lignes) {
+        ReferencesLot references = new ReferencesLot();
+        references.sessions = indexer(sessionRepository.findAllById(collecter(lignes, PaiementRequestDTO::getSessionId)), Session::getId);
+        references.agents = indexer(userRepository.findAllById(collecter(lignes, PaiementRequestDTO::getIdAgent)), User::getId);
+        references.quittances = indexer(quittanceRepository.findByNomIn(collecter(lignes, PaiementRequestDTO::getNumeroQuittance)), Quittance::getNom);
+
+        // Lignes sans numéro : autant de quittances que de lignes de l'agent, en plus de celles
+        // que le lot cite explicitement (elles sont sautées à l'attribution)
+        Map<Long, Long> sansNumero = lignes.stream()
+                .filter(ligne -> ligne.getIdAgent() != null && sansNumeroQuittance(ligne))
+                .collect(Collectors.groupingBy(PaiementRequestDTO::getIdAgent, Collectors.counting()));
+        sansNumero.forEach((agentId, nombre) -> references.quittancesAuto.put(agentId, new ArrayDeque<>(
+                quittanceRepository.findProchainesDisponibles(agentId, nombre.intValue() + references.quittances.size()))));
+
+        Set<Integer> placeIds = collecter(lignes, PaiementRequestDTO::getIdPlace);
+        if (!placeIds.isEmpty()) {
+            references.places = indexer(placeRepository.findAllById(placeIds), Place::getId);
+        }
+
+        Set<Integer> marchandIds = collecter(lignes, PaiementRequestDTO::getIdMarchand);
+        if (!marchandIds.isEmpty()) {
+            references.marchands = indexer(marchandsRepository.findAllById(marchandIds), Marchands::getId);
+            for (Contrat contrat : contratRepository.findByIdMarchandInWithTarifs(marchandIds)) {
+                references.contrats.putIfAbsent(contrat.getIdMarchand(), contrat);
+            }
+            references.situations = situationPaiementService.lirePourPaiements(marchandIds);
+        }
+        return references;
+    }
+
+    // Mêmes règles que effectuerPaiement, sur les références déjà chargées ; hors ligne, un paiement
+    // encaissé pendant une session depuis fermée (mais pas encore validée) reste accepté
+    private Paiement construirePaiementDuLot(PaiementRequestDTO ligne, LocalDateTime datePaiement, boolean horsLigne,
+                                             ReferencesLot references, Set<String> quittancesDuLot) {
+
+        Session session = references.sessions.get(ligne.getSessionId());
+        if (session == null) {
+            throw new RuntimeException("Session non trouvée");
+        }
+        if (session.getStatus() != Session.SessionStatus.OUVERTE
+                && !(horsLigne && encaisseDurantLaSession(session, datePaiement))) {
+            throw new IllegalStateException("La session n'est pas ouverte. Paiement refusé.");
+        }
+
+        User agent = references.agents.get(ligne.getIdAgent());
+        if (agent == null) {
+            throw new RuntimeException("Agent non trouvé");
+        }
+        if (!session.getUser().getId().equals(agent.getId())) {
+            throw new IllegalStateException(
+                    "Cet agent n'est pas autorisé à effectuer des paiements pour cette session.");
+        }
+
+        Quittance quittance = sansNumeroQuittance(ligne)
+                ? prochaineQuittanceDuLot(agent.getId(), references, quittancesDuLot)
+                : references.quittances.get(ligne.getNumeroQuittance());
+        if (quittance == null) {
+            throw new RuntimeException("Numéro de quittance introuvable");
+        }
+        if (!agent.getId().equals(quittance.getPercepteurId())) {
+            throw new IllegalStateException("Cette quittance n'est pas attribuée à cet agent");
+        }
+        if (quittance.getEtat() != StatusQuittance.DISPONIBLE || quittancesDuLot.contains(quittance.getNom())) {
+            throw new IllegalStateException("Ce numéro de quittance est déjà utilisé");
+        }
+
+        Paiement paiement = new Paiement();
+        paiement.setDatePaiement(datePaiement);
+        paiement.setModePaiement(Paiement.ModePaiement.cash);
+        paiement.setSession(session);
+        paiement.setAgent(agent);
+        paiement.setQuittance(quittance);
+
+        if (ligne.getIdMarchand() != null) {
+            Marchands marchand = references.marchands.get(ligne.getIdMarchand());
+            if (marchand == null) {
+                throw new RuntimeException("Marchand non trouvé");
+            }
+            Contrat contrat = references.contrats.get(ligne.getIdMarchand());
+            if (contrat == null) {
+                throw new RuntimeException("Contrat non trouvé pour ce marchand");
+            }
+            SituationPaiement situation = references.situations.get(
+                    SituationPaiementService.cle(marchand.getId(), ligne.getTypePaiement()));
+            if (situation == null) {
+                throw new RuntimeException("Type de paiement invalide. Utilisez 'droit_annuel' ou 'droit_place'");
+            }
+
+            paiement.setMarchand(marchand);
+            paiement.setNomMarchands(marchand.getNom());
+            appliquerTarifContrat(paiement, contrat, ligne.getTypePaiement(), situation);
+        } else {
+            if (ligne.getNomMarchands() == null || ligne.getNomMarchands().isBlank()) {
+                throw new RuntimeException("Nom du marchand ambulant obligatoire");
+            }
+            paiement.setNomMarchands(ligne.getNomMarchands());
+            paiement.setMontant(ligne.getMontant());
+            paiement.setMotif(ligne.getMotif());
+            paiement.setMoisdePaiement(ligne.getMoisdePaiement());
+            paiement.setTypePaiement(Paiement.Typepaiement.marchand_ambulant);
+        }
+
+        if (ligne.getIdPlace() != null) {
+            Place place = references.places.get(ligne.getIdPlace());
+            if (place == null) {
+                throw new RuntimeException("Place non trouvée");
+            }
+            paiement.setPlace(place);
+        }
+
+        // L'insertion JDBC ne passe pas par la validation de l'entité
+        if (paiement.getMontant() == null || paiement.getMontant().signum() <= 0) {
+            throw new IllegalStateException("Le montant doit être positif");
+        }
+        return paiement;
+    }
+
+    // Le paiement est retenu : sa quittance n'est plus disponible et la période du marchand avance
+    private void enregistrerDansLeLot(Paiement paiement, ReferencesLot references, Set<String> quittancesDuLot) {
+        quittancesDuLot.add(paiement.getQuittance().getNom());
+        if (paiement.getMarchand() != null) {
+            references.situations.get(SituationPaiementService.cle(paiement.getMarchand().getId(), paiement.getTypePaiement()))
+                    .enregistrer(paiement);
+        }
+    }
+
+    // Session fermée après coup : le paiement doit avoir été encaissé entre son ouverture et sa fermeture
+    private static boolean encaisseDurantLaSession(Session session, LocalDateTime datePaiement) {
+        return STATUTS_SESSION_HORS_LIGNE.contains(session.getStatus())
+                && session.getStartTime() != null && !datePaiement.isBefore(session.getStartTime())
+                && (session.getEndTime() == null || !datePaiement.isAfter(session.getEndTime()));
+    }
+
+    // Insère les paiements par lots JDBC et retourne leurs identifiants, dans l'ordre de la liste ;
+    // le total d'une session n'est crédité que si elle est encore dans l'un des statuts acceptés
+    private List<Integer> insererPaiements(List<Paiement> paiements, LocalDateTime maintenant,
+                                           Set<Session.SessionStatus> statutsSession) {
+        Timestamp horodatage = Timestamp.valueOf(maintenant);
+
+        List<Integer> ids = new ArrayList<>(paiements.size());
+        for (List<Paiement> lot : decouper(paiements)) {
+            GeneratedKeyHolder cles = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(connexion -> connexion.prepareStatement(
+                    "INSERT INTO paiement (client_uuid, motif, type_paiement, montant, date_debut, date_fin, " +
+                            "annee_paye, date_paiement, mode_paiement, moisde_paiement, nom_marchands, " +
+                            "id_marchand, id_agent, quittance_id, id_place, session_id, updated_at) " +
+                            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    new String[]{"id"}), new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    Paiement p = lot.get(i);
+                    ps.setObject(1, p.getClientUuid());
+                    ps.setString(2, p.getMotif());
+                    ps.setString(3, p.getTypePaiement().name());
+                    ps.setBigDecimal(4, p.getMontant());
+                    ps.setObject(5, p.getDateDebut());
+                    ps.setObject(6, p.getDateFin());
+                    ps.setObject(7, p.getAnneePaye() != null ? p.getAnneePaye().getValue() : null, Types.INTEGER);
+                    ps.setTimestamp(8, Timestamp.valueOf(p.getDatePaiement()));
+                    ps.setString(9, p.getModePaiement().name());
+                    ps.setString(10, p.getMoisdePaiement());
+                    ps.setString(11, p.getNomMarchands());
+                    ps.setObject(12, p.getMarchand() != null ? p.getMarchand().getId() : null, Types.INTEGER);
+                    ps.setLong(13, p.getAgent().getId());
+                    ps.setLong(14, p.getQuittance().getId());
+                    ps.setObject(15, p.getPlace() != null ? p.getPlace().getId() : null, Types.INTEGER);
+                    ps.setLong(16, p.getSession().getId());
+                    ps.setTimestamp(17, horodatage);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return lot.size();
+                }
+            }, cles);
+            for (Map<String, Object> cle : cles.getKeyList()) {
+                ids.add(((Number) cle.get("id")).intValue());
+            }
+        }
+
+        // La condition sur l'état protège contre une utilisation concurrente de la même quittance
+        int[][] quittancesMarquees = jdbcTemplate.batchUpdate(
+                "UPDATE quittance SET etat = 'UTILISE', date_utilisation = ?, updated_at = ? " +
+                        "WHERE id = ? AND etat = 'DISPONIBLE'",
+                paiements, TAILLE_LOT_JDBC, (ps, p) -> {
+                    ps.setTimestamp(1, Timestamp.valueOf(p.getDatePaiement()));
+                    ps.setTimestamp(2, horodatage);
+                    ps.setLong(3, p.getQuittance().getId());
+                });
+        for (int[] lot : quittancesMarquees) {
+            for (int nombre : lot) {
+                if (nombre == 0) {
+                    throw new IllegalStateException("Une quittance du lot vient d'être utilisée par un autre paiement, renvoyez le lot");
+                }
+            }
+        }
+
+        Map<Long, BigDecimal> totauxParSession = paiements.stream()
+                .collect(Collectors.groupingBy(p -> p.getSession().getId(),
+                        Collectors.reducing(BigDecimal.ZERO, Paiement::getMontant, BigDecimal::add)));
+        int[][] sessionsCreditees = jdbcTemplate.batchUpdate(
+                "UPDATE session SET total_collected = COALESCE(total_collected, 0) + ?, updated_at = ? " +
+                        "WHERE id = ? AND status IN (" + statutsSession.stream()
+                        .map(statut -> "'" + statut.name() + "'")
+                        .collect(Collectors.joining(", ")) + ")",
+                new ArrayList<>(totauxParSession.entrySet()), TAILLE_LOT_JDBC, (ps, total) -> {
+                    ps.setBigDecimal(1, total.getValue());
+                    ps.setTimestamp(2, horodatage);
+                    ps.setLong(3, total.getKey());
+                });
+        for (int[] lot : sessionsCreditees) {
+            for (int nombre : lot) {
+                if (nombre == 0) {
+                    throw new IllegalStateException("Une session du lot vient d'être fermée ou validée, paiements refusés");
+                }
+            }
+        }
+
+        recetteJournaliereService.ajouter(ids);
+        for (int i = 0; i < paiements.size(); i++) {
+            publierPaiement(EvenementSortant.TypeEvenement.PAIEMENT_ENREGISTRE, paiements.get(i), ids.get(i));
+        }
+        eventPublisher.publishEvent(new PaiementsEnregistres(ids));
+        return ids;
+    }
+
+    // Événement outbox d'un paiement, écrit dans la transaction en cours
+    private void publierPaiement(EvenementSortant.TypeEvenement type, Paiement paiement, Integer id) {
+        Map<String, Object> contenu = new LinkedHashMap<>();
+        contenu.put("id", id);
+        contenu.put("montant", paiement.getMontant());
+        contenu.put("typePaiement", paiement.getTypePaiement());
+        contenu.put("modePaiement", paiement.getModePaiement());
+        contenu.put("datePaiement", paiement.getDatePaiement());
+        contenu.put("marchandId", paiement.getMarchand() != null ? paiement.getMarchand().getId() : null);
+        contenu.put("nomMarchand", paiement.getNomMarchands());
+        contenu.put("placeId", paiement.getPlace() != null ? paiement.getPlace().getId() : null);
+        contenu.put("sessionId", paiement.getSession() != null ? paiement.getSession().getId() : null);
+        contenu.put("agentId", paiement.getAgent() != null ? paiement.getAgent().getId() : null);
+        contenu.put("quittance", paiement.getQuittance() != null ? paiement.getQuittance().getNom() : null);
+        outboxService.publier(type, "Paiement", id.longValue(), contenu);
+    }
+
+    private static <T> List<List<T>> decouper(List<T> liste) {
+        List<List<T>> lots = new ArrayList<>();
+        for (int i = 0; i < liste.size(); i += TAILLE_LOT_JDBC) {
+            lots.add(liste.subList(i, Math.min(i + TAILLE_LOT_JDBC, liste.size())));
+        }
+        return lots;
+    }
+
+    private static boolean sansNumeroQuittance(PaiementRequestDTO ligne) {
+        return ligne.getNumeroQuittance() == null || ligne.getNumeroQuittance().isBlank();
+    }
+
+    // Comme reserverQuittance : la plus ancienne quittance disponible de l'agent, ni citée par
+    // le lot ni déjà attribuée à une ligne précédente
+    private static Quittance prochaineQuittanceDuLot(Long agentId, ReferencesLot references, Set<String> quittancesDuLot) {
+        Deque<Quittance> file = references.quittancesAuto.getOrDefault(agentId, new ArrayDeque<>());
+        while (!file.isEmpty()) {
+            Quittance quittance = file.peek();
+            if (!quittancesDuLot.contains(quittance.getNom()) && !references.quittances.containsKey(quittance.getNom())) {
+                return quittance;
+            }
+            file.poll();
+        }
+        throw new IllegalStateException("Aucune quittance disponible pour cet agent");
+    }
+
+    private static <K> Set<K> collecter(List<? extends PaiementRequestDTO> lignes,
+                                        Function<PaiementRequestDTO, K> champ) {
+        return lignes.stream().map(champ).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    private static <K, V> Map<K, V> indexer(List<V> entites, Function<V, K> cle) {
+        return entites.stream().collect(Collectors.toMap(cle, Function.identity(), (a, b) -> a));
     }
 
     /**
@@ -139,16 +610,129 @@ public class PaiementService {
 
     }
 
+    /**
+     * Rechercher des paiements, du plus récent au plus ancien, par pages.
+     * Pagination par clé (datePaiement, id) : le coût d'une page ne dépend pas de sa position.
+     * Les DTO sont construits par la requête, sans charger les entités.
+     *
+     * @param curseur    curseurSuivant de la page précédente, null pour la première page
+     * @param avecTotal  calcule aussi le nombre total de résultats (requête supplémentaire)
+     */
+    @Transactional(readOnly = true)
+    public PaiementPageResponse rechercherPaiements(RecherchePaiementCriteresDTO criteres, String curseur,
+                                                    Integer taille, boolean avecTotal) {
+        int limite = taille == null ? TAILLE_PAGE_DEFAUT : Math.max(1, Math.min(taille, TAILLE_PAGE_MAX));
+
+        Long total = avecTotal ? requeteComptagePaiements(criteres).getSingleResult() : null;
+
+        Object[] position = curseur != null && !curseur.isBlank() ? decoderCurseurPaiement(curseur) : null;
+        List<PaiementDTO> paiements = new ArrayList<>(requeteRecherchePaiements(criteres, position)
+                .setMaxResults(limite + 1)
+                .getResultList());
+
+        // Une ligne de plus que la page indique s'il reste des résultats
+        boolean termine = paiements.size() <= limite;
+        String curseurSuivant = null;
+        if (!termine) {
+            paiements = new ArrayList<>(paiements.subList(0, limite));
+            PaiementDTO dernier = paiements.get(limite - 1);
+            curseurSuivant = encoderCurseurPaiement(dernier.getDatePaiement(), dernier.getId());
+        }
+        return new PaiementPageResponse(paiements, curseurSuivant, termine, total);
+    }
+
+    // Requête de la recherche, partagée avec l'export ; position : [datePaiement, id] après lesquels reprendre
+    TypedQuery<PaiementDTO> requeteRecherchePaiements(RecherchePaiementCriteresDTO criteres, Object[] position) {
+        Map<String, Object> parametres = new HashMap<>();
+        StringBuilder filtres = filtresRecherchePaiements(criteres, parametres);
+        if (position != null) {
+            filtres.append(" AND (p.datePaiement < :curseurDate OR (p.datePaiement = :curseurDate AND p.id < :curseurId))");
+            parametres.put("curseurDate", position[0]);
+            parametres.put("curseurId", position[1]);
+        }
+
+        TypedQuery<PaiementDTO> requete = entityManager.createQuery(
+                "SELECT new Commune.Dev.Dtos.PaiementDTO(p.id, p.montant, p.datePaiement, p.typePaiement, " +
+                        "p.motif, p.modePaiement, p.moisdePaiement, p.nomMarchands, m.id, a.id, a.nom, " +
+                        "pl.id, pl.nom, s.id, q.nom, q.id)" + JOINTURES_RECHERCHE + filtres +
+                        " ORDER BY p.datePaiement DESC, p.id DESC", PaiementDTO.class);
+        parametres.forEach(requete::setParameter);
+        return requete;
+    }
+
+    private TypedQuery<Long> requeteComptagePaiements(RecherchePaiementCriteresDTO criteres) {
+        Map<String, Object> parametres = new HashMap<>();
+        StringBuilder filtres = filtresRecherchePaiements(criteres, parametres);
+        TypedQuery<Long> comptage = entityManager.createQuery(
+                "SELECT COUNT(p)" + JOINTURES_RECHERCHE + filtres, Long.class);
+        parametres.forEach(comptage::setParameter);
+        return comptage;
+    }
+
+    // L'agent est facultatif (id_agent nullable) : une jointure interne ferait disparaître ces paiements
+    private static final String JOINTURES_RECHERCHE = " FROM Paiement p JOIN p.quittance q LEFT JOIN p.agent a " +
+            "LEFT JOIN p.marchand m LEFT JOIN p.place pl LEFT JOIN p.session s";
+
+    private static StringBuilder filtresRecherchePaiements(RecherchePaiementCriteresDTO criteres,
+                                                           Map<String, Object> parametres) {
+        StringBuilder filtres = new StringBuilder(" WHERE p.datePaiement IS NOT NULL");
+        if (criteres.getMarcheeId() != null) ajouterFiltre(filtres, parametres, "pl.marchee.id", "marcheeId", criteres.getMarcheeId());
+        if (criteres.getZoneId() != null) ajouterFiltre(filtres, parametres, "pl.zone.id", "zoneId", criteres.getZoneId());
+        if (criteres.getHallId() != null) ajouterFiltre(filtres, parametres, "pl.hall.id", "hallId", criteres.getHallId());
+        if (criteres.getPlaceId() != null) ajouterFiltre(filtres, parametres, "pl.id", "placeId", criteres.getPlaceId());
+        if (criteres.getMarchandId() != null) ajouterFiltre(filtres, parametres, "m.id", "marchandId", criteres.getMarchandId());
+        if (criteres.getAgentId() != null) ajouterFiltre(filtres, parametres, "a.id", "agentId", criteres.getAgentId());
+        if (criteres.getSessionId() != null) ajouterFiltre(filtres, parametres, "s.id", "sessionId", criteres.getSessionId());
+        if (criteres.getTypePaiement() != null) ajouterFiltre(filtres, parametres, "p.typePaiement", "typePaiement", criteres.getTypePaiement());
+        if (criteres.getModePaiement() != null) ajouterFiltre(filtres, parametres, "p.modePaiement", "modePaiement", criteres.getModePaiement());
+        if (criteres.getDateDebut() != null) {
+            filtres.append(" AND p.datePaiement >= :dateDebut");
+            parametres.put("dateDebut", criteres.getDateDebut().atStartOfDay());
+        }
+        if (criteres.getDateFin() != null) {
+            filtres.append(" AND p.datePaiement < :dateFinExclue");
+            parametres.put("dateFinExclue", criteres.getDateFin().plusDays(1).atStartOfDay());
+        }
+        return filtres;
+    }
+
+    private static void ajouterFiltre(StringBuilder filtres, Map<String, Object> parametres,
+                                      String chemin, String nom, Object valeur) {
+        filtres.append(" AND ").append(chemin).append(" = :").append(nom);
+        parametres.put(nom, valeur);
+    }
+
+    // Curseur opaque pour le client : "<datePaiement ISO>|<id>" en base64
+    private static String encoderCurseurPaiement(LocalDateTime datePaiement, Integer id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((datePaiement + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Object[] decoderCurseurPaiement(String curseur) {
+        try {
+            String[] parties = new String(Base64.getUrlDecoder().decode(curseur.trim()),
+                    StandardCharsets.UTF_8).split("\\|");
+            return new Object[]{LocalDateTime.parse(parties[0]), Integer.valueOf(parties[1])};
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide");
+        }
+    }
+
     /**
      * Supprimer un paiement
      */
 
     @Transactional
     public void deletePaiement(Integer id) {
-        if (!paiementRepository.existsById(id)) {
-            throw new RuntimeException("Paiement non trouvé");
+        Paiement paiement = paiementRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Paiement non trouvé"));
+        if (paiement.getMarchand() != null && paiement.getTypePaiement() != Paiement.Typepaiement.marchand_ambulant) {
+            situationPaiementService.invalider(paiement.getMarchand().getId(), paiement.getTypePaiement());
         }
-        paiementRepository.deleteById(id);
+        recetteJournaliereService.retirer(paiement.getId(), paiement.getDatePaiement());
+        recuService.supprimer(paiement.getId());
+        publierPaiement(EvenementSortant.TypeEvenement.PAIEMENT_SUPPRIME, paiement, paiement.getId());
+        paiementRepository.delete(paiement);
     }
 
 
@@ -167,14 +751,6 @@ public class PaiementService {
             throw new IllegalStateException("La session n'est pas ouverte. Paiement refusé.");
         }
 
-        Quittance quittance = quittanceRepository.findByNom(request.getNumeroQuittance())
-                .orElseThrow(() -> new RuntimeException("Numéro de quittance introuvable"));
-
-        if (quittance.getEtat() != StatusQuittance.DISPONIBLE) {
-            throw new IllegalStateException("Ce numéro de quittance est déjà utilisé");
-        }
-
-
         // 🔍 3. Vérification agent
         User agent = userRepository.findById(request.getIdAgent())
                 .orElseThrow(() -> new RuntimeException("Agent non trouvé"));
@@ -186,14 +762,16 @@ public class PaiementService {
             );
         }
 
+        // 🔍 5. Réservation de la quittance (sans numéro : la prochaine disponible de l'agent)
+        LocalDateTime maintenant = LocalDateTime.now();
+        Quittance quittance = reserverQuittance(request.getNumeroQuittance(), agent.getId(), maintenant);
+
         Paiement paiement = new Paiement();
-        paiement.setDatePaiement(LocalDateTime.now());
+        paiement.setDatePaiement(maintenant);
         paiement.setModePaiement(Paiement.ModePaiement.cash);
         paiement.setSession(session);
         paiement.setAgent(agent);
         paiement.setQuittance(quittance);
-        quittance.setDateUtilisation(LocalDateTime.now());
-        quittance.setEtat(StatusQuittance.UTILISE);
 
 
 
@@ -212,63 +790,12 @@ public class PaiementService {
                     .findTopByIdMarchandOrderByDateOfStartDesc(request.getIdMarchand())
                     .orElseThrow(() -> new RuntimeException("Contrat non trouvé pour ce marchand"));
 
-            // =====================================================
-            //    VÉRIFICATION DU TYPE DE PAIEMENT
-            // =====================================================
-
-            if (request.getTypePaiement() == Paiement.Typepaiement.droit_annuel) {
-                // ========== PAIEMENT DROIT ANNUEL ==========
-
-                if (contrat.getDroitAnnuel() == null) {
-                    throw new RuntimeException("Droit annuel non défini pour ce contrat");
-                }
-
-                // Trouver le dernier paiement de droit annuel
-                Paiement dernierPaiementAnnuel = paiementRepository
-                        .findTopByMarchandIdAndTypePaiementOrderByDatePaiementDesc(
-                                marchand.getId(), Paiement.Typepaiement.droit_annuel)
-                        .orElse(null);
-
-                int annee = calculerAnneeProchainDroitAnnuel(contrat, dernierPaiementAnnuel);
-
-                paiement.setMontant(contrat.getDroitAnnuel().getMontant());
-                paiement.setMoisdePaiement("Année " + annee);
-                paiement.setMotif("Droit annuel " + annee);
-                paiement.setAnneePaye(Year.of(annee));
-                paiement.setTypePaiement(Paiement.Typepaiement.droit_annuel);
-                paiement.setPlace(contrat.getPlace());
-
-                // Dates pour droit annuel : du 1er janvier au 31 décembre de l'année
-                paiement.setDateDebut(LocalDate.of(annee, 1, 1));
-                paiement.setDateFin(LocalDate.of(annee, 12, 31));
+            // Une lecture par clé primaire, verrouillée jusqu'au commit du paiement
+            SituationPaiement situation = situationPaiementService
+                    .lirePourPaiement(marchand.getId(), request.getTypePaiement());
 
-            } else if (request.getTypePaiement() == Paiement.Typepaiement.droit_place) {
-                // ========== PAIEMENT DROIT DE PLACE ==========
-
-                FrequencePaiement frequence = contrat.getFrequencePaiement();
-
-                Paiement dernierPaiement = paiementRepository
-                        .findTopByMarchandIdAndTypePaiementOrderByDatePaiementDesc(
-                                marchand.getId(), Paiement.Typepaiement.droit_place)
-                        .orElse(null);
-
-                // ---------- CALCUL PROCHAINE PERIODE ----------
-                PeriodePaiement prochainePeriode = calculerProchainePeriode(contrat, dernierPaiement);
-
-                // ---------- ON REMPLIT LE PAIEMENT ----------
-                paiement.setMontant(prochainePeriode.montant);
-                paiement.setMoisdePaiement(prochainePeriode.labelPeriode);
-                paiement.setMotif(prochainePeriode.motif);
-                paiement.setTypePaiement(Paiement.Typepaiement.droit_place);
-                paiement.setPlace(contrat.getPlace());
-
-                // ✅ AJOUT DES DATES DEBUT ET FIN
-                paiement.setDateDebut(prochainePeriode.dateDebut);
-                paiement.setDateFin(prochainePeriode.dateFin);
-
-            } else {
-                throw new RuntimeException("Type de paiement invalide. Utilisez 'droit_annuel' ou 'droit_place'");
-            }
+            appliquerTarifContrat(paiement, contrat, request.getTypePaiement(), situation);
+            situation.enregistrer(paiement);
         }
 
         // =====================================================
@@ -297,117 +824,126 @@ public class PaiementService {
             paiement.setPlace(place);
         }
 
+        Paiement saved = paiementRepository.save(paiement);
+        recetteJournaliereService.ajouter(List.of(saved.getId()));
+        publierPaiement(EvenementSortant.TypeEvenement.PAIEMENT_ENREGISTRE, saved, saved.getId());
+        // Reçu généré après le commit, par le pool de RecuService
+        eventPublisher.publishEvent(new PaiementsEnregistres(List.of(saved.getId())));
+
         // =========================
         //  MISE À JOUR DU TOTAL
         // =========================
-        session.addToTotal(paiement.getMontant());
-        sessionRepository.save(session);
+        // Incrément en base : deux paiements simultanés de la session ne s'écrasent pas
+        if (sessionRepository.ajouterAuTotal(session.getId(), paiement.getMontant(), maintenant) == 0) {
+            throw new IllegalStateException("La session n'est pas ouverte. Paiement refusé.");
+        }
 
-        Paiement saved = paiementRepository.save(paiement);
         return convertToDTO(saved);
     }
 
-
-    // =====================================================
-//   CALCULER L'ANNÉE DU PROCHAIN DROIT ANNUEL
-// =====================================================
-    private int calculerAnneeProchainDroitAnnuel(Contrat contrat, Paiement dernierPaiementAnnuel) {
-        LocalDate dateDebut = contrat.getDateOfStart();
-        int anneeDebut = dateDebut.getYear();
-
-        if (dernierPaiementAnnuel == null) {
-            // Premier paiement : année de début du contrat
-            return anneeDebut;
+    // Mise à jour conditionnelle : si deux paiements visent la même quittance, un seul la réserve,
+    // l'autre échoue immédiatement au lieu de buter sur la contrainte d'unicité au commit
+    private Quittance reserverQuittance(String numeroQuittance, Long agentId, LocalDateTime maintenant) {
+        Quittance quittance;
+        if (numeroQuittance == null || numeroQuittance.isBlank()) {
+            quittance = quittanceRepository.findProchaineDisponible(agentId)
+                    .orElseThrow(() -> new IllegalStateException("Aucune quittance disponible pour cet agent"));
+        } else {
+            quittance = quittanceRepository.findByNom(numeroQuittance)
+                    .orElseThrow(() -> new RuntimeException("Numéro de quittance introuvable"));
+            // Même règle que pour les lots et l'import hors ligne
+            if (!agentId.equals(quittance.getPercepteurId())) {
+                throw new IllegalStateException("Cette quittance n'est pas attribuée à cet agent");
+            }
         }
 
-        // Extraire l'année du dernier paiement et ajouter 1
-        try {
-            String motif = dernierPaiementAnnuel.getMotif();
-            // Extraire l'année depuis "Droit annuel 2025"
-            int derniereAnnee = Integer.parseInt(motif.replaceAll("\\D+", ""));
-            return derniereAnnee + 1;
-        } catch (Exception e) {
-            // Si erreur, calculer depuis la date de début
-            return anneeDebut + 1;
+        if (quittanceRepository.reserver(quittance.getId(), maintenant) == 0) {
+            throw new IllegalStateException("Ce numéro de quittance est déjà utilisé");
         }
+        return quittance;
     }
 
 
     // =====================================================
-//      CALCUL PROCHAINE PERIODE PAIEMENT
+//   MONTANT, PÉRIODE ET PLACE SELON LE CONTRAT
 // =====================================================
-    private PeriodePaiement calculerProchainePeriode(Contrat contrat, Paiement dernierPaiement) {
-
-        LocalDate dateDebut;
-        FrequencePaiement freq = contrat.getFrequencePaiement();
-        BigDecimal montant = contrat.getCategorie().getMontant();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd MMMM yyyy", Locale.FRENCH);
+    // situation : dernière période payée par le marchand pour ce type
+    private void appliquerTarifContrat(Paiement paiement, Contrat contrat,
+                                       Paiement.Typepaiement typePaiement, SituationPaiement situation) {
 
         // =====================================================
-        //  CALCUL DE LA DATE DE DÉBUT DE LA PROCHAINE PÉRIODE
+        //    VÉRIFICATION DU TYPE DE PAIEMENT
         // =====================================================
-        if (dernierPaiement != null && dernierPaiement.getDateFin() != null) {
-            // ✅ Si on a un dernier paiement avec dateFin, on commence le jour suivant
-            dateDebut = dernierPaiement.getDateFin().plusDays(1);
-        } else {
-            // ✅ Sinon, on commence à la date de début du contrat
-            dateDebut = contrat.getDateOfStart();
-        }
 
-        // =====================================================
-        //  CALCUL DE LA DATE DE FIN SELON LA FRÉQUENCE
-        // =====================================================
-        LocalDate dateFin;
-        String labelPeriode;
-        int index = 1;
+        if (typePaiement == Paiement.Typepaiement.droit_annuel) {
+            // ========== PAIEMENT DROIT ANNUEL ==========
 
-        if (dernierPaiement != null) {
-            index = extraireIndexDernierePeriode(dernierPaiement.getMoisdePaiement()) + 1;
-        }
+            if (contrat.getDroitAnnuel() == null) {
+                throw new RuntimeException("Droit annuel non défini pour ce contrat");
+            }
 
-        switch (freq) {
+            int annee = calculerAnneeProchainDroitAnnuel(contrat, situation);
 
-            case MENSUEL: {
-                dateFin = dateDebut.plusMonths(1).minusDays(1);
-                labelPeriode = "Mois " + index;
+            paiement.setMontant(contrat.getDroitAnnuel().getMontant());
+            paiement.setMoisdePaiement("Année " + annee);
+            paiement.setMotif("Droit annuel " + annee);
+            paiement.setAnneePaye(Year.of(annee));
+            paiement.setTypePaiement(Paiement.Typepaiement.droit_annuel);
+            paiement.setPlace(contrat.getPlace());
 
-                String motif = "Paiement du " + index + "ᵉ mois (" +
-                        dateDebut.format(formatter) + " - " + dateFin.format(formatter) + ")";
+            // Dates pour droit annuel : du 1er janvier au 31 décembre de l'année
+            paiement.setDateDebut(LocalDate.of(annee, 1, 1));
+            paiement.setDateFin(LocalDate.of(annee, 12, 31));
 
-                return new PeriodePaiement(labelPeriode, motif, montant, dateDebut, dateFin);
-            }
+        } else if (typePaiement == Paiement.Typepaiement.droit_place) {
+            // ========== PAIEMENT DROIT DE PLACE ==========
 
-            case HEBDOMADAIRE: {
-                dateFin = dateDebut.plusWeeks(1).minusDays(1);
-                labelPeriode = "Semaine " + index;
+            // ---------- CALCUL PROCHAINE PERIODE ----------
+            PeriodePaiement prochainePeriode = calculerProchainePeriode(contrat, situation);
 
-                String motif = "Paiement de la " + index + "ᵉ semaine (" +
-                        dateDebut.format(formatter) + " - " + dateFin.format(formatter) + ")";
+            // ---------- ON REMPLIT LE PAIEMENT ----------
+            paiement.setMontant(prochainePeriode.montant);
+            paiement.setMoisdePaiement(prochainePeriode.labelPeriode);
+            paiement.setMotif(prochainePeriode.motif);
+            paiement.setTypePaiement(Paiement.Typepaiement.droit_place);
+            paiement.setPlace(contrat.getPlace());
 
-                return new PeriodePaiement(labelPeriode, motif, montant, dateDebut, dateFin);
-            }
+            // ✅ AJOUT DES DATES DEBUT ET FIN
+            paiement.setDateDebut(prochainePeriode.dateDebut);
+            paiement.setDateFin(prochainePeriode.dateFin);
 
-            case JOURNALIER: {
-                dateFin = dateDebut;
-                labelPeriode = "Jour " + index;
+        } else {
+            throw new RuntimeException("Type de paiement invalide. Utilisez 'droit_annuel' ou 'droit_place'");
+        }
+    }
 
-                String motif = "Paiement du jour " + index + " (" + dateDebut.format(formatter) + ")";
 
-                return new PeriodePaiement(labelPeriode, motif, montant, dateDebut, dateFin);
-            }
+    // =====================================================
+//   CALCULER L'ANNÉE DU PROCHAIN DROIT ANNUEL
+// =====================================================
+    private int calculerAnneeProchainDroitAnnuel(Contrat contrat, SituationPaiement situation) {
+        int anneeDebut = contrat.getDateOfStart().getYear();
 
-            default:
-                throw new RuntimeException("Fréquence non gérée");
+        if (situation.getDerniereAnnee() != null) {
+            return situation.getDerniereAnnee() + 1;
         }
+        // Premier paiement : année de début du contrat ; année inconnue dans l'historique : l'année suivante
+        return situation.getIndexPeriode() == 0 ? anneeDebut : anneeDebut + 1;
     }
 
-    // Extraction du numéro de période depuis "Mois 2", "Semaine 4", etc.
-    private int extraireIndexDernierePeriode(String label) {
-        try {
-            return Integer.parseInt(label.replaceAll("\\D+", ""));
-        } catch (Exception e) {
-            return 1;
-        }
+
+    // =====================================================
+//      CALCUL PROCHAINE PERIODE PAIEMENT
+// =====================================================
+    private PeriodePaiement calculerProchainePeriode(Contrat contrat, SituationPaiement situation) {
+        EcheancierContrat echeancier = EcheancierContrat.pour(contrat);
+
+        // Période qui suit la dernière période payée, ou première période du contrat
+        long index = echeancier.prochaineNonPayee(situation.getDateFinPeriode());
+        int numero = situation.getIndexPeriode() + 1;
+
+        return new PeriodePaiement(echeancier.libelle(numero), echeancier.motif(numero, index),
+                contrat.getCategorie().getMontant(), echeancier.debutPeriode(index), echeancier.finPeriode(index));
     }
 
     // DTO interne
@@ -12,6 +12,7 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -28,6 +29,10 @@ public class PlaceService {
     private MarcheeRepository marcheeRepository;
     @Autowired
     private ContratRepository contratRepository;
+    @Autowired
+    private OutboxService outboxService;
+    @Autowired
+    private SyncSuppressionRepository syncSuppressionRepository;
 
     // CREATE operations
     public Place save(Place place) {
@@ -136,6 +141,7 @@ public class PlaceService {
         }
 
         // Méthode pour mettre à jour une place
+        @Transactional
         public Place updatePlace(Long placeId, PlaceRequest request) {
             Place existingPlace = findPlaceById(placeId);
             validatePlaceRequest(request);
@@ -144,8 +150,22 @@ public class PlaceService {
             existingPlace.setAdresse(request.getAdresse());
             existingPlace.setIsOccuped(request.isOccuped());
 
+            // Ancien rattachement : les mobiles qui ne verront plus la place doivent la retirer
+            SyncSuppression sortie = new SyncSuppression(null, SyncSuppression.EntiteSync.PLACE,
+                    existingPlace.getId().longValue(), LocalDateTime.now(),
+                    existingPlace.getMarchee() != null ? existingPlace.getMarchee().getId() : null,
+                    existingPlace.getZone() != null ? existingPlace.getZone().getId() : null,
+                    existingPlace.getHall() != null ? existingPlace.getHall().getId() : null,
+                    null);
+
             setPlaceParent(existingPlace, request);
 
+            if (!Objects.equals(sortie.getMarcheeId(), existingPlace.getMarchee() != null ? existingPlace.getMarchee().getId() : null)
+                    || !Objects.equals(sortie.getZoneId(), existingPlace.getZone() != null ? existingPlace.getZone().getId() : null)
+                    || !Objects.equals(sortie.getHallId(), existingPlace.getHall() != null ? existingPlace.getHall().getId() : null)) {
+                syncSuppressionRepository.save(sortie);
+            }
+
             return placeRepository.save(existingPlace);
         }
 
@@ -277,6 +297,7 @@ public class PlaceService {
             contrat.setIsActif(false);
             contrat.setDateOfEnd(LocalDate.now().atStartOfDay());
             contratRepository.save(contrat);
+            outboxService.publierContrat(EvenementSortant.TypeEvenement.CONTRAT_MODIFIE, contrat);
         }
 
         // Libérer la place
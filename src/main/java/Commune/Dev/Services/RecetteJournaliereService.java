@@ -0,0 +1,274 @@
+package Commune.Dev.Services;
+
+import Commune.Dev.Dtos.RecetteCriteresDTO;
+import Commune.Dev.Dtos.RecetteDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Tenue et lecture de la table recette_journaliere.
+ * Les paiements créés y sont reportés dans leur propre transaction, par un
+ * INSERT ... ON CONFLICT DO UPDATE atomique. Une suppression recalcule le jour du paiement :
+ * sa place a pu changer de hall ou de zone depuis, et le soustraire avec la hiérarchie
+ * actuelle laisserait son montant dans l'ancien regroupement. La reconstruction recalcule une période
+ * depuis les paiements, jour par jour, pour l'amorçage et pour corriger un éventuel écart.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RecetteJournaliereService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Jours recalculés chaque nuit
+    @Value("${app.recettes.jours-reconstruits:7}")
+    private int joursReconstruits;
+
+    // Période maximale d'une reconstruction demandée par l'API
+    @Value("${app.recettes.jours-reconstruction-max:366}")
+    private int joursReconstructionMax;
+
+    private static final String INSERTION = "INSERT INTO recette_journaliere (jour, marchee_id, zone_id, hall_id, " +
+            "agent_id, type_paiement, mode_paiement, montant_total, nombre_paiements, updated_at) ";
+
+    // Rattachement d'un paiement au marché, à la zone et au hall de sa place, en remontant la hiérarchie
+    private static final String DIMENSIONS = "CAST(p.date_paiement AS date), " +
+            "COALESCE(pl.marchee_id, h.marchee_id, z.marchee_id, zh.marchee_id, 0), " +
+            "COALESCE(pl.zone_id, h.zone_id, 0), " +
+            "COALESCE(pl.hall_id, 0), " +
+            "COALESCE(p.id_agent, 0), " +
+            "p.type_paiement, " +
+            "COALESCE(p.mode_paiement, 'cash')";
+
+    private static final String SOURCE = " FROM paiement p " +
+            "LEFT JOIN place pl ON pl.id = p.id_place " +
+            "LEFT JOIN hall h ON h.id = pl.hall_id " +
+            "LEFT JOIN zone z ON z.id = pl.zone_id " +
+            "LEFT JOIN zone zh ON zh.id = h.zone_id " +
+            "WHERE p.date_paiement IS NOT NULL AND p.type_paiement IS NOT NULL ";
+
+    private static final String REGROUPEMENT = " GROUP BY 1, 2, 3, 4, 5, 6, 7";
+
+    public enum Groupement {
+        JOUR("r.jour"),
+        MARCHEE("r.marcheeId"),
+        ZONE("r.zoneId"),
+        HALL("r.hallId"),
+        AGENT("r.agentId"),
+        TYPE("r.typePaiement"),
+        MODE("r.modePaiement");
+
+        private final String expression;
+
+        Groupement(String expression) {
+            this.expression = expression;
+        }
+
+        public static Groupement depuisNom(String nom) {
+            try {
+                return valueOf(nom.trim().toUpperCase());
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Groupement inconnu: " + nom);
+            }
+        }
+    }
+
+    // =====================================================
+    //   MISE À JOUR INCRÉMENTALE
+    // =====================================================
+
+    /**
+     * Reporte des paiements déjà insérés. À appeler dans la transaction qui les insère.
+     */
+    @Transactional
+    public void ajouter(Collection<Integer> paiementIds) {
+        if (paiementIds.isEmpty()) return;
+
+        String sql = INSERTION + "SELECT " + DIMENSIONS + ", SUM(p.montant), COUNT(*), now()" +
+                SOURCE + "AND p.id = ANY(?)" + REGROUPEMENT +
+                " ON CONFLICT (jour, marchee_id, zone_id, hall_id, agent_id, type_paiement, mode_paiement) DO UPDATE SET " +
+                "montant_total = recette_journaliere.montant_total + EXCLUDED.montant_total, " +
+                "nombre_paiements = recette_journaliere.nombre_paiements + EXCLUDED.nombre_paiements, " +
+                "updated_at = EXCLUDED.updated_at";
+
+        jdbcTemplate.update(connexion -> {
+            var ps = connexion.prepareStatement(sql);
+            ps.setArray(1, connexion.createArrayOf("integer", paiementIds.toArray()));
+            return ps;
+        });
+    }
+
+    /**
+     * Retire un paiement encore présent en base en recalculant son jour sans lui.
+     * À appeler dans la transaction qui le supprime.
+     */
+    @Transactional
+    public void retirer(Integer paiementId, LocalDateTime datePaiement) {
+        if (datePaiement == null) return;
+        reconstruireJour(datePaiement.toLocalDate(), List.of(paiementId));
+    }
+
+    // =====================================================
+    //   RECONSTRUCTION
+    // =====================================================
+
+    /**
+     * Recalcule les recettes des jours [debut, fin] depuis les paiements, un jour par transaction.
+     * La table est verrouillée en écriture pendant le calcul d'un jour : les paiements simultanés
+     * attendent la fin de ce jour puis s'y ajoutent, sans être comptés deux fois.
+     */
+    public int reconstruire(LocalDate debut, LocalDate fin) {
+        if (!fin.isBefore(debut) && debut.plusDays(joursReconstructionMax).isBefore(fin.plusDays(1))) {
+            throw new IllegalArgumentException(
+                    "Période trop longue : " + joursReconstructionMax + " jours au plus par reconstruction");
+        }
+        return reconstruirePeriode(debut, fin);
+    }
+
+    // Toutes les nuits à 03:30 : recalcul des derniers jours
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void reconstruireJoursRecents() {
+        LocalDate aujourdhui = LocalDate.now();
+        reconstruirePeriode(aujourdhui.minusDays(joursReconstruits), aujourdhui);
+    }
+
+    // Amorçage : table vide alors que des paiements existent (premier démarrage avec la table)
+    @EventListener(ApplicationReadyEvent.class)
+    public void amorcerSiVide() {
+        try {
+            Boolean vide = jdbcTemplate.queryForObject(
+                    "SELECT NOT EXISTS (SELECT 1 FROM recette_journaliere)", Boolean.class);
+            if (!Boolean.TRUE.equals(vide)) return;
+
+            Map<String, Object> bornes = jdbcTemplate.queryForMap(
+                    "SELECT CAST(MIN(date_paiement) AS date) AS debut, CAST(MAX(date_paiement) AS date) AS fin FROM paiement");
+            if (bornes.get("debut") == null) return;
+
+            log.info("📊 Amorçage des recettes journalières");
+            reconstruirePeriode(((Date) bornes.get("debut")).toLocalDate(), ((Date) bornes.get("fin")).toLocalDate());
+        } catch (RuntimeException e) {
+            log.error("❌ Amorçage des recettes journalières impossible: {}", e.getMessage());
+        }
+    }
+
+    private int reconstruirePeriode(LocalDate debut, LocalDate fin) {
+        if (fin.isBefore(debut)) {
+            throw new IllegalArgumentException("La date de fin précède la date de début");
+        }
+
+        int lignes = 0;
+        for (LocalDate jour = debut; !jour.isAfter(fin); jour = jour.plusDays(1)) {
+            LocalDate jourReconstruit = jour;
+            lignes += transactionTemplate.execute(statut -> reconstruireJour(jourReconstruit, List.of()));
+        }
+
+        log.info("📊 Recettes journalières reconstruites du {} au {}: {} lignes", debut, fin, lignes);
+        return lignes;
+    }
+
+    // Verrou et recalcul limités à un jour : les paiements ne sont bloqués que le temps de ce jour ;
+    // les paiements exclus sont ceux en cours de suppression dans la transaction
+    private int reconstruireJour(LocalDate jour, Collection<Integer> exclus) {
+        jdbcTemplate.execute("LOCK TABLE recette_journaliere IN EXCLUSIVE MODE");
+        jdbcTemplate.update("DELETE FROM recette_journaliere WHERE jour = ?", Date.valueOf(jour));
+        String sql = INSERTION + "SELECT " + DIMENSIONS + ", SUM(p.montant), COUNT(*), now()" + SOURCE +
+                "AND p.date_paiement >= ? AND p.date_paiement < ? AND p.id <> ALL(?)" + REGROUPEMENT;
+        return jdbcTemplate.update(connexion -> {
+            var ps = connexion.prepareStatement(sql);
+            ps.setTimestamp(1, Timestamp.valueOf(jour.atStartOfDay()));
+            ps.setTimestamp(2, Timestamp.valueOf(jour.plusDays(1).atStartOfDay()));
+            ps.setArray(3, connexion.createArrayOf("integer", exclus.toArray()));
+            return ps;
+        });
+    }
+
+    // =====================================================
+    //   LECTURE
+    // =====================================================
+
+    /**
+     * Montant perçu sur la période, pour un marché, une zone ou un hall (null : pas de filtre).
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal totalPercu(LocalDate debut, LocalDate fin, Long marcheeId, Long zoneId, Long hallId) {
+        RecetteCriteresDTO criteres = new RecetteCriteresDTO();
+        criteres.setDateDebut(debut);
+        criteres.setDateFin(fin);
+        criteres.setMarcheeId(marcheeId);
+        criteres.setZoneId(zoneId);
+        criteres.setHallId(hallId);
+
+        Map<String, Object> parametres = new HashMap<>();
+        TypedQuery<BigDecimal> requete = entityManager.createQuery(
+                "SELECT COALESCE(SUM(r.montantTotal), 0) FROM RecetteJournaliere r" + filtres(criteres, parametres),
+                BigDecimal.class);
+        parametres.forEach(requete::setParameter);
+        return requete.getSingleResult();
+    }
+
+    /**
+     * Recettes de la période regroupées par jour, marché, zone, hall, agent, type ou mode.
+     */
+    @Transactional(readOnly = true)
+    public List<RecetteDTO> recettes(RecetteCriteresDTO criteres, Groupement groupement) {
+        if (criteres.getDateDebut() == null || criteres.getDateFin() == null) {
+            throw new IllegalArgumentException("La période (dateDebut, dateFin) est obligatoire");
+        }
+
+        Map<String, Object> parametres = new HashMap<>();
+        TypedQuery<Object[]> requete = entityManager.createQuery(
+                "SELECT " + groupement.expression + ", SUM(r.montantTotal), SUM(r.nombrePaiements) " +
+                        "FROM RecetteJournaliere r" + filtres(criteres, parametres) +
+                        " GROUP BY " + groupement.expression + " ORDER BY " + groupement.expression,
+                Object[].class);
+        parametres.forEach(requete::setParameter);
+
+        List<RecetteDTO> recettes = new ArrayList<>();
+        for (Object[] ligne : requete.getResultList()) {
+            recettes.add(new RecetteDTO(String.valueOf(ligne[0]), (BigDecimal) ligne[1], ((Number) ligne[2]).longValue()));
+        }
+        return recettes;
+    }
+
+    private static String filtres(RecetteCriteresDTO criteres, Map<String, Object> parametres) {
+        StringBuilder filtres = new StringBuilder(" WHERE 1 = 1");
+        ajouter(filtres, parametres, "r.jour >=", "dateDebut", criteres.getDateDebut());
+        ajouter(filtres, parametres, "r.jour <=", "dateFin", criteres.getDateFin());
+        ajouter(filtres, parametres, "r.marcheeId =", "marcheeId", criteres.getMarcheeId());
+        ajouter(filtres, parametres, "r.zoneId =", "zoneId", criteres.getZoneId());
+        ajouter(filtres, parametres, "r.hallId =", "hallId", criteres.getHallId());
+        ajouter(filtres, parametres, "r.agentId =", "agentId", criteres.getAgentId());
+        ajouter(filtres, parametres, "r.typePaiement =", "typePaiement", criteres.getTypePaiement());
+        ajouter(filtres, parametres, "r.modePaiement =", "modePaiement", criteres.getModePaiement());
+        return filtres.toString();
+    }
+
+    private static void ajouter(StringBuilder filtres, Map<String, Object> parametres,
+                                String condition, String nom, Object valeur) {
+        if (valeur == null) return;
+        filtres.append(" AND ").append(condition).append(" :").append(nom);
+        parametres.put(nom, valeur);
+    }
+}
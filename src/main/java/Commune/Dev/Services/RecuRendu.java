@@ -0,0 +1,157 @@
+package Commune.Dev.Services;
+
+import Commune.Dev.Models.Paiement;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mise en page d'un reçu : 32 colonnes, la largeur d'une imprimante thermique 58 mm.
+ * Le même texte sert au rendu PDF (une page Courier de la largeur d'un ticket).
+ * Le rendu ne dépend que du paiement, jamais de l'heure de génération : un même paiement
+ * produit toujours les mêmes octets, donc la même empreinte.
+ */
+final class RecuRendu {
+
+    private static final int COLONNES = 32;
+    private static final String SEPARATEUR = "-".repeat(COLONNES);
+    private static final DateTimeFormatter FORMAT_DATE_HEURE = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private static final DateTimeFormatter FORMAT_DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    // Courier 9 pt : 5,4 pt par caractère, interligne 11 pt
+    private static final int TAILLE_POLICE = 9;
+    private static final int INTERLIGNE = 11;
+    private static final int MARGE = 12;
+    private static final Charset WIN_ANSI = Charset.forName("windows-1252");
+
+    private RecuRendu() {
+    }
+
+    static List<String> lignes(Paiement paiement) {
+        List<String> lignes = new ArrayList<>();
+        lignes.add(centrer("REÇU DE PAIEMENT"));
+        lignes.add(SEPARATEUR);
+        champ(lignes, "Reçu N°", paiement.getQuittance().getNom());
+        champ(lignes, "Date", paiement.getDatePaiement() != null ? paiement.getDatePaiement().format(FORMAT_DATE_HEURE) : null);
+        champ(lignes, "Marchand", paiement.getMarchand() != null
+                ? joindre(paiement.getMarchand().getNom(), paiement.getMarchand().getPrenom())
+                : paiement.getNomMarchands());
+        champ(lignes, "Place", paiement.getPlace() != null ? paiement.getPlace().getNom() : null);
+        champ(lignes, "Type", paiement.getTypePaiement() != null ? paiement.getTypePaiement().name() : null);
+        if (paiement.getDateDebut() != null && paiement.getDateFin() != null) {
+            champ(lignes, "Du", paiement.getDateDebut().format(FORMAT_DATE));
+            champ(lignes, "Au", paiement.getDateFin().format(FORMAT_DATE));
+        }
+        champ(lignes, "Année", paiement.getAnneePaye() != null ? paiement.getAnneePaye().toString() : null);
+        champ(lignes, "Mois", paiement.getMoisdePaiement());
+        champ(lignes, "Mode", paiement.getModePaiement() != null ? paiement.getModePaiement().name() : null);
+        champ(lignes, "Motif", paiement.getMotif());
+        lignes.add(SEPARATEUR);
+        lignes.add(aligner("MONTANT", montant(paiement.getMontant()) + " Ar"));
+        lignes.add(SEPARATEUR);
+        champ(lignes, "Agent", paiement.getAgent() != null
+                ? joindre(paiement.getAgent().getNom(), paiement.getAgent().getPrenom())
+                : null);
+        champ(lignes, "Paiement", "#" + paiement.getId());
+        return lignes;
+    }
+
+    static byte[] texte(List<String> lignes) {
+        return (String.join("\n", lignes) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * PDF 1.4 d'une page : catalogue, pages, page, police Courier standard et flux de texte.
+     */
+    static byte[] pdf(List<String> lignes) {
+        int largeur = COLONNES * TAILLE_POLICE * 6 / 10 + 2 * MARGE;
+        int hauteur = lignes.size() * INTERLIGNE + 2 * MARGE;
+
+        StringBuilder flux = new StringBuilder()
+                .append("BT /F1 ").append(TAILLE_POLICE).append(" Tf ").append(INTERLIGNE).append(" TL ")
+                .append(MARGE).append(' ').append(hauteur - MARGE - TAILLE_POLICE).append(" Td\n");
+        for (String ligne : lignes) {
+            flux.append('(').append(echapper(ligne)).append(") Tj T*\n");
+        }
+        flux.append("ET\n");
+        byte[] contenu = flux.toString().getBytes(WIN_ANSI);
+
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+        List<Integer> positions = new ArrayList<>();
+        ecrire(sortie, "%PDF-1.4\n");
+        objet(sortie, positions, "<< /Type /Catalog /Pages 2 0 R >>");
+        objet(sortie, positions, "<< /Type /Pages /Kids [3 0 R] /Count 1 >>");
+        objet(sortie, positions, "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 " + largeur + " " + hauteur + "] " +
+                "/Resources << /Font << /F1 4 0 R >> >> /Contents 5 0 R >>");
+        objet(sortie, positions, "<< /Type /Font /Subtype /Type1 /BaseFont /Courier /Encoding /WinAnsiEncoding >>");
+
+        positions.add(sortie.size());
+        ecrire(sortie, "5 0 obj\n<< /Length " + contenu.length + " >>\nstream\n");
+        sortie.writeBytes(contenu);
+        ecrire(sortie, "endstream\nendobj\n");
+
+        int xref = sortie.size();
+        StringBuilder table = new StringBuilder("xref\n0 ").append(positions.size() + 1).append("\n0000000000 65535 f \n");
+        for (int position : positions) {
+            table.append(String.format("%010d 00000 n \n", position));
+        }
+        table.append("trailer\n<< /Size ").append(positions.size() + 1).append(" /Root 1 0 R >>\n")
+                .append("startxref\n").append(xref).append("\n%%EOF\n");
+        ecrire(sortie, table.toString());
+        return sortie.toByteArray();
+    }
+
+    private static void objet(ByteArrayOutputStream sortie, List<Integer> positions, String dictionnaire) {
+        positions.add(sortie.size());
+        ecrire(sortie, (positions.size()) + " 0 obj\n" + dictionnaire + "\nendobj\n");
+    }
+
+    private static void ecrire(ByteArrayOutputStream sortie, String texte) {
+        sortie.writeBytes(texte.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String echapper(String ligne) {
+        return ligne.replace("\\", "\\\\").replace("(", "\\(").replace(")", "\\)");
+    }
+
+    // Libellé sur 10 colonnes puis valeur, coupée sur les lignes suivantes si trop longue
+    private static void champ(List<String> lignes, String libelle, String valeur) {
+        if (valeur == null || valeur.isBlank()) return;
+        String marge = " ".repeat(10);
+        String reste = valeur.strip();
+        String prefixe = String.format("%-10s", libelle);
+        while (!reste.isEmpty()) {
+            int longueur = Math.min(reste.length(), COLONNES - 10);
+            lignes.add(prefixe + reste.substring(0, longueur));
+            reste = reste.substring(longueur).strip();
+            prefixe = marge;
+        }
+    }
+
+    private static String aligner(String gauche, String droite) {
+        int espaces = Math.max(1, COLONNES - gauche.length() - droite.length());
+        return gauche + " ".repeat(espaces) + droite;
+    }
+
+    private static String centrer(String texte) {
+        return " ".repeat(Math.max(0, (COLONNES - texte.length()) / 2)) + texte;
+    }
+
+    private static String joindre(String nom, String prenom) {
+        return prenom == null || prenom.isBlank() ? nom : nom + " " + prenom;
+    }
+
+    private static String montant(BigDecimal montant) {
+        DecimalFormatSymbols symboles = new DecimalFormatSymbols();
+        symboles.setGroupingSeparator(' ');
+        symboles.setDecimalSeparator(',');
+        return new DecimalFormat("#,##0.00", symboles).format(montant != null ? montant : BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,200 @@
+package Commune.Dev.Services;
+
+import Commune.Dev.Models.Recu;
+import Commune.Dev.Repositories.PaiementRepository;
+import Commune.Dev.Repositories.RecuRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Génération des reçus hors du chemin du paiement.
+ * Après le commit d'un paiement, son reçu est confié au pool borné "recuExecutor" ;
+ * le worker rend le texte et le PDF, les stocke sous leur empreinte SHA-256
+ * (ab/abcdef....pdf) puis enregistre la ligne recu. Un balayage périodique reprend
+ * les paiements récemment enregistrés restés sans reçu. À la suppression d'un paiement,
+ * ses fichiers sont effacés après le commit s'ils ne servent à aucun autre reçu.
+ */
+@Service
+@Slf4j
+public class RecuService {
+
+    private final RecuRepository recuRepository;
+    private final PaiementRepository paiementRepository;
+    private final TaskExecutor recuExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final Path repertoire;
+
+    // Balayage : paiements enregistrés dans les dernières heures seulement, pour ne pas reprendre sans fin un rendu en échec
+    @Value("${app.recus.fenetre-heures:24}")
+    private int fenetreHeures;
+
+    // Paiements confiés au pool et pas encore traités : pas de double soumission
+    private final Set<Integer> enCours = ConcurrentHashMap.newKeySet();
+
+    public RecuService(RecuRepository recuRepository,
+                       PaiementRepository paiementRepository,
+                       @Qualifier("recuExecutor") TaskExecutor recuExecutor,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${app.recus.dir:uploads/recus}") String repertoire) {
+        this.recuRepository = recuRepository;
+        this.paiementRepository = paiementRepository;
+        this.recuExecutor = recuExecutor;
+        this.transactionTemplate = transactionTemplate;
+        this.repertoire = Paths.get(repertoire);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void surPaiementsEnregistres(PaiementService.PaiementsEnregistres evenement) {
+        evenement.paiementIds().forEach(this::planifier);
+    }
+
+    /**
+     * Confie la génération du reçu au pool. Retourne false si la file est pleine.
+     */
+    public boolean planifier(Integer paiementId) {
+        if (!enCours.add(paiementId)) return true;
+        try {
+            recuExecutor.execute(() -> {
+                try {
+                    generer(paiementId);
+                } catch (RuntimeException e) {
+                    log.error("❌ Génération du reçu du paiement {} impossible: {}", paiementId, e.getMessage());
+                } finally {
+                    enCours.remove(paiementId);
+                }
+            });
+            return true;
+        } catch (TaskRejectedException e) {
+            enCours.remove(paiementId);
+            log.warn("⏳ File des reçus pleine, paiement {} repris au prochain balayage", paiementId);
+            return false;
+        }
+    }
+
+    // Toutes les minutes : paiements récents sans reçu
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000)
+    public void balayer() {
+        List<Integer> paiementIds = recuRepository.findPaiementsSansRecu(
+                LocalDateTime.now().minusHours(fenetreHeures), 1000);
+        for (Integer paiementId : paiementIds) {
+            if (!planifier(paiementId)) break;
+        }
+    }
+
+    /**
+     * Supprime le reçu d'un paiement, dans la transaction qui supprime le paiement.
+     * Les fichiers ne sont effacés qu'après le commit : une annulation les retrouve intacts.
+     */
+    public void supprimer(Integer paiementId) {
+        Optional<Recu> recu = recuRepository.findByPaiementId(paiementId);
+        recuRepository.deleteByPaiementId(paiementId);
+        recu.ifPresent(supprime -> {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        supprimerFichiers(supprime);
+                    }
+                });
+            } else {
+                supprimerFichiers(supprime);
+            }
+        });
+    }
+
+    private void supprimerFichiers(Recu recu) {
+        for (Recu.Format format : Recu.Format.values()) {
+            String empreinte = recu.empreinte(format);
+            try {
+                if (!recuRepository.existsByEmpreinte(empreinte)) {
+                    Files.deleteIfExists(fichier(empreinte, format));
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("⚠️ Fichier {} du reçu du paiement {} non supprimé: {}",
+                        format, recu.getPaiementId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reçu d'un paiement, s'il est déjà généré.
+     */
+    public Optional<Recu> trouver(Integer paiementId) {
+        return recuRepository.findByPaiementId(paiementId);
+    }
+
+    /**
+     * Fichier d'un reçu, à partir de son empreinte.
+     */
+    public Path fichier(String empreinte, Recu.Format format) {
+        return repertoire.resolve(empreinte.substring(0, 2)).resolve(empreinte + "." + format.extension);
+    }
+
+    void generer(Integer paiementId) {
+        if (recuRepository.existsByPaiementId(paiementId)) return;
+
+        // Chargement et mise en page dans une transaction courte ; null si le paiement a été supprimé
+        List<String> lignes = transactionTemplate.execute(statut ->
+                paiementRepository.findPourRecu(paiementId).map(RecuRendu::lignes).orElse(null));
+        if (lignes == null) return;
+
+        byte[] texte = RecuRendu.texte(lignes);
+        byte[] pdf = RecuRendu.pdf(lignes);
+        String empreinteTexte = stocker(texte, Recu.Format.TEXTE);
+        String empreintePdf = stocker(pdf, Recu.Format.PDF);
+
+        transactionTemplate.executeWithoutResult(statut -> recuRepository.enregistrer(
+                paiementId, empreinteTexte, texte.length, empreintePdf, pdf.length, LocalDateTime.now()));
+        log.debug("🧾 Reçu du paiement {} généré", paiementId);
+    }
+
+    // Écrit le document sous son empreinte ; un contenu déjà stocké n'est pas réécrit
+    private String stocker(byte[] contenu, Recu.Format format) {
+        String empreinte = empreinte(contenu);
+        Path cible = fichier(empreinte, format);
+        if (Files.exists(cible)) return empreinte;
+        try {
+            Files.createDirectories(cible.getParent());
+            Path temporaire = Files.createTempFile(cible.getParent(), empreinte, ".tmp");
+            Files.write(temporaire, contenu);
+            try {
+                Files.move(temporaire, cible, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                Files.deleteIfExists(temporaire);
+            }
+            return empreinte;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Écriture du reçu impossible", e);
+        }
+    }
+
+    private static String empreinte(byte[] contenu) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(contenu));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
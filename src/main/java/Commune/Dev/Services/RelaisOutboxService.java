@@ -0,0 +1,128 @@
+package Commune.Dev.Services;
+
+import Commune.Dev.Models.CurseurDestinationOutbox;
+import Commune.Dev.Models.EvenementSortant;
+import Commune.Dev.Repositories.CurseurDestinationOutboxRepository;
+import Commune.Dev.Repositories.EvenementSortantRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Relais de l'outbox : chaque destination a son curseur (dernier événement livré) et reçoit
+ * les événements suivants par lots, dans l'ordre (xid, id). Une destination en échec
+ * ne bloque qu'elle-même : elle reprend son lot au passage suivant, les autres avancent.
+ * Seuls les événements des transactions terminées sont lus (xid sous le plus ancien xid actif) :
+ * une transaction lente à valider retient la suite au lieu d'être sautée.
+ * La lecture du lot et l'avancement du curseur sont deux transactions courtes ; la livraison
+ * elle-même (appel HTTP, recalcul) se fait entre les deux, sans connexion tenue. Un bail sur
+ * le curseur garantit un seul relais actif par destination, même à plusieurs instances ;
+ * un échec est noté dans une transaction séparée et rend le bail.
+ * Un événement est marqué traité quand toutes les destinations l'ont livré.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RelaisOutboxService {
+
+    private static final int TAILLE_LOT = 200;
+
+    // Durée maximale d'une livraison ; au-delà, une autre instance peut relivrer le lot
+    private static final Duration BAIL_LIVRAISON = Duration.ofMinutes(5);
+
+    private final EvenementSortantRepository evenementSortantRepository;
+    private final CurseurDestinationOutboxRepository curseurRepository;
+    private final List<DestinationEvenements> destinations;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.outbox.retention-jours:7}")
+    private int retentionJours;
+
+    @Scheduled(fixedDelayString = "${app.outbox.intervalle-ms:2000}", scheduler = "relaisOutboxScheduler")
+    public void relayer() {
+        for (DestinationEvenements destination : destinations) {
+            int livres;
+            do {
+                try {
+                    livres = relayerUnLot(destination);
+                } catch (RuntimeException e) {
+                    noterEchec(destination, e);
+                    livres = 0;
+                }
+            } while (livres == TAILLE_LOT);
+        }
+
+        transactionTemplate.executeWithoutResult(statut -> curseurRepository
+                .findByDestinationIn(destinations.stream().map(DestinationEvenements::nom).toList())
+                .stream()
+                .min(Comparator.comparing(CurseurDestinationOutbox::getDernierXid)
+                        .thenComparing(CurseurDestinationOutbox::getDernierId))
+                .ifPresent(plusEnRetard -> evenementSortantRepository.marquerTraitesJusqua(
+                        plusEnRetard.getDernierXid(), plusEnRetard.getDernierId(), LocalDateTime.now())));
+    }
+
+    private int relayerUnLot(DestinationEvenements destination) {
+        List<EvenementSortant> lot = transactionTemplate.execute(statut -> lireLot(destination));
+        if (lot == null || lot.isEmpty()) return 0;
+
+        try {
+            destination.livrer(lot);
+        } catch (Exception e) {
+            throw e instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getMessage(), e);
+        }
+
+        EvenementSortant dernier = lot.get(lot.size() - 1);
+        transactionTemplate.executeWithoutResult(statut ->
+                curseurRepository.avancer(destination.nom(), dernier.getXid(), dernier.getId(), LocalDateTime.now()));
+        return lot.size();
+    }
+
+    // Prend le bail de la destination et lit son lot suivant ; vide si un autre relais la livre
+    private List<EvenementSortant> lireLot(DestinationEvenements destination) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        if (!curseurRepository.existsById(destination.nom())) {
+            curseurRepository.initialiser(destination.nom(), maintenant);
+        }
+        if (curseurRepository.prendreBail(destination.nom(), maintenant.plus(BAIL_LIVRAISON), maintenant) == 0) {
+            return List.of();
+        }
+
+        CurseurDestinationOutbox curseur = curseurRepository.findById(destination.nom()).orElseThrow();
+        List<EvenementSortant> lot = evenementSortantRepository.findApres(
+                curseur.getDernierXid(), curseur.getDernierId(), TAILLE_LOT);
+        if (lot.isEmpty()) {
+            curseurRepository.rendreBail(destination.nom());
+        }
+        return lot;
+    }
+
+    private void noterEchec(DestinationEvenements destination, RuntimeException e) {
+        String erreur = destination.nom() + ": " + e.getMessage();
+        log.warn("⚠️ Livraison des événements à {} en échec: {}", destination.nom(), e.getMessage());
+        try {
+            transactionTemplate.executeWithoutResult(statut -> curseurRepository.noterEchec(destination.nom(),
+                    erreur.length() > 500 ? erreur.substring(0, 500) : erreur, LocalDateTime.now()));
+        } catch (RuntimeException echec) {
+            log.error("❌ Échec de livraison à {} non enregistré: {}", destination.nom(), echec.getMessage());
+        }
+    }
+
+    // Tous les jours à 04:00 : purge des événements relayés
+    @Scheduled(cron = "0 0 4 * * ?")
+    @Transactional
+    public void purgerTraites() {
+        int supprimes = evenementSortantRepository.deleteTraitesAvant(LocalDateTime.now().minusDays(retentionJours));
+        if (supprimes > 0) {
+            log.info("🧹 {} événements relayés purgés", supprimes);
+        }
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import jakarta.persistence.criteria.Predicate;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -22,6 +23,8 @@ public class SalleServiceImpl implements SalleService {
     private final HallsRepository salleRepository;
     private final MarcheeRepository marcheeRepository;
     private final ZoneRepository zoneRepository;
+    private final TerritoireService territoireService;
+    private final SyncSuppressionRepository syncSuppressionRepository;
 
     @Override
     public SalleResponseDTO create(SalleCreateDTO createDTO) {
@@ -57,6 +60,7 @@ public class SalleServiceImpl implements SalleService {
         }
 
         Halls savedHalls = salleRepository.save(halls);
+        territoireService.invaliderTout();
         return mapToResponseDTO(savedHalls);
     }
 
@@ -86,6 +90,11 @@ public class SalleServiceImpl implements SalleService {
             halls.setDescription(updateDTO.getDescription());
         }
 
+        // Ancien rattachement, pour retirer les places du hall des mobiles qui ne le verront plus
+        Long ancienneZoneId = halls.getZone() != null ? halls.getZone().getId() : null;
+        Long ancienMarcheeId = halls.getMarchee() != null ? halls.getMarchee().getId()
+                : halls.getZone() != null && halls.getZone().getMarchee() != null ? halls.getZone().getMarchee().getId() : null;
+
         // Gestion du changement d'emplacement
         if (updateDTO.getMoveToMarche() != null && updateDTO.getMoveToMarche()) {
             // Déplacer vers un marché direct
@@ -121,6 +130,15 @@ public class SalleServiceImpl implements SalleService {
         }
 
         Halls updatedHalls = salleRepository.save(halls);
+        territoireService.invaliderTout();
+
+        Long nouvelleZoneId = updatedHalls.getZone() != null ? updatedHalls.getZone().getId() : null;
+        Long nouveauMarcheeId = updatedHalls.getMarchee() != null ? updatedHalls.getMarchee().getId() : null;
+        if (!Objects.equals(ancienneZoneId, nouvelleZoneId)
+                || (ancienneZoneId == null && !Objects.equals(ancienMarcheeId, nouveauMarcheeId))) {
+            syncSuppressionRepository.retirerPlacesDuHall(updatedHalls.getId(), ancienMarcheeId, ancienneZoneId,
+                    LocalDateTime.now());
+        }
         return mapToResponseDTO(updatedHalls);
     }
 
@@ -139,6 +157,7 @@ public class SalleServiceImpl implements SalleService {
         }
 
         salleRepository.deleteById(id);
+        territoireService.invaliderTout();
     }
 
     @Override
@@ -245,6 +264,7 @@ public class SalleServiceImpl implements SalleService {
         }
 
         List<Halls> savedHalls = salleRepository.saveAll(halls);
+        territoireService.invaliderTout();
         return savedHalls.stream()
                 .map(this::mapToResponseDTO)
                 .collect(Collectors.toList());
@@ -267,6 +287,7 @@ public class SalleServiceImpl implements SalleService {
         }
 
         salleRepository.deleteAllById(ids);
+        territoireService.invaliderTout();
     }
 
     @Override
@@ -1,6 +1,7 @@
 package Commune.Dev.Services;
 
 import Commune.Dev.Dtos.*;
+import Commune.Dev.Models.EvenementSortant;
 import Commune.Dev.Models.Roletype;
 import Commune.Dev.Models.Session;
 import Commune.Dev.Models.Session.SessionStatus;
@@ -9,14 +10,15 @@ import Commune.Dev.Repositories.SessionRepository;
 import Commune.Dev.Repositories.UserRepository;
 import Commune.Dev.Request.ValidateSessionRequest;
 import lombok.RequiredArgsConstructor;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -25,16 +27,18 @@ public class SessionService {
     private final SessionRepository sessionRepository;
     private final UserRepository userRepository;
     private final SessionMapper sessionMapper;
+    private final OutboxService outboxService;
 
     /* =======================================================================
        🔥 FERMETURE AUTOMATIQUE DES SESSIONS APRÈS 13h
+       Planifiée par FermetureSessionsScheduler ; retourne le nombre de sessions fermées
        ======================================================================= */
-    @Scheduled(cron = "0 */1 * * * *") // Toutes les minutes (fiable et léger)
     @Transactional
-    public void autoCloseExpiredSessions() {
+    public int autoCloseExpiredSessions() {
 
         LocalDateTime now = LocalDateTime.now();
         List<Session> sessions = sessionRepository.findByStatus(SessionStatus.OUVERTE);
+        int fermees = 0;
 
         for (Session s : sessions) {
 
@@ -47,8 +51,10 @@ public class SessionService {
                 s.setEndTime(now);
                 s.setStatus(SessionStatus.EN_VALIDATION);
                 sessionRepository.save(s);
+                fermees++;
             }
         }
+        return fermees;
     }
 
     /* =======================================================================
@@ -213,6 +219,15 @@ public SessionCreatedResponseDTO createSessionMobile(CreateSessionDTO dto) {
         session.setIsValid(true);
         session.setSynced(true);
 
+        Map<String, Object> contenu = new LinkedHashMap<>();
+        contenu.put("id", session.getId());
+        contenu.put("nom", session.getNomSession());
+        contenu.put("agentId", session.getUser() != null ? session.getUser().getId() : null);
+        contenu.put("regisseurId", regisseur.getId());
+        contenu.put("totalCollecte", session.getTotalCollected());
+        contenu.put("dateValidation", session.getValidation_date());
+        outboxService.publier(EvenementSortant.TypeEvenement.SESSION_VALIDEE, "Session", session.getId(), contenu);
+
         return sessionRepository.save(session);
     }
 
@@ -0,0 +1,147 @@
+package Commune.Dev.Services;
+
+import Commune.Dev.Models.Paiement;
+import Commune.Dev.Models.SituationPaiement;
+import Commune.Dev.Repositories.PaiementRepository;
+import Commune.Dev.Repositories.SituationPaiementRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Tenue de la situation de paiement de chaque marchand (table situation_paiement).
+ * Une situation absente est amorcée une seule fois depuis le paiement couvrant la période la
+ * plus tardive (puis le plus récent par identifiant), pour les marchands payés avant l'introduction
+ * de la table ou dont un paiement a été supprimé. Les lignes d'un lot partagent la même date de
+ * paiement : cet ordre reste déterministe. L'amorçage passe par un
+ * INSERT ... ON CONFLICT DO NOTHING suivi d'une relecture verrouillée : deux premiers
+ * paiements simultanés du même marchand se retrouvent sur la même ligne.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SituationPaiementService {
+
+    private final SituationPaiementRepository situationPaiementRepository;
+    private final PaiementRepository paiementRepository;
+
+    /**
+     * Situation à utiliser pour un nouveau paiement, verrouillée jusqu'à la fin de la transaction.
+     * Doit être appelée dans la transaction qui insère le paiement.
+     */
+    @Transactional
+    public SituationPaiement lirePourPaiement(Integer marchandId, Paiement.Typepaiement type) {
+        if (!TYPES_SUIVIS.contains(type)) {
+            throw new RuntimeException("Type de paiement invalide. Utilisez 'droit_annuel' ou 'droit_place'");
+        }
+        Optional<SituationPaiement> existante = situationPaiementRepository.findPourPaiement(marchandId, type);
+        if (existante.isPresent()) return existante.get();
+
+        inserer(amorcer(marchandId, type,
+                paiementRepository.findDernierePeriodePayee(marchandId, type.name())
+                        .orElse(null)));
+        return situationPaiementRepository.findPourPaiement(marchandId, type)
+                .orElseThrow(() -> new IllegalStateException("Situation de paiement introuvable après amorçage"));
+    }
+
+    /**
+     * Situations de plusieurs marchands pour un import groupé, indexées par cle(marchandId, type).
+     * Les situations manquantes sont amorcées à partir d'une seule requête sur les derniers paiements.
+     */
+    @Transactional
+    public Map<String, SituationPaiement> lirePourPaiements(Set<Integer> marchandIds) {
+        Map<String, SituationPaiement> situations = new HashMap<>();
+        if (marchandIds.isEmpty()) return situations;
+
+        for (SituationPaiement situation : situationPaiementRepository.findPourPaiementByMarchandIdIn(marchandIds)) {
+            situations.put(cle(situation.getMarchandId(), situation.getTypePaiement()), situation);
+        }
+
+        Set<Integer> aAmorcer = new HashSet<>();
+        for (Integer marchandId : marchandIds) {
+            for (Paiement.Typepaiement type : TYPES_SUIVIS) {
+                if (!situations.containsKey(cle(marchandId, type))) aAmorcer.add(marchandId);
+            }
+        }
+        if (aAmorcer.isEmpty()) return situations;
+
+        Map<String, Paiement> derniers = new HashMap<>();
+        for (Paiement dernier : paiementRepository.findDerniersPaiementsParTypeByMarchandIdIn(aAmorcer)) {
+            derniers.put(cle(dernier.getMarchand().getId(), dernier.getTypePaiement()), dernier);
+        }
+        for (Integer marchandId : aAmorcer) {
+            for (Paiement.Typepaiement type : TYPES_SUIVIS) {
+                String cle = cle(marchandId, type);
+                if (!situations.containsKey(cle)) {
+                    inserer(amorcer(marchandId, type, derniers.get(cle)));
+                }
+            }
+        }
+        for (SituationPaiement situation : situationPaiementRepository.findPourPaiementByMarchandIdIn(aAmorcer)) {
+            situations.putIfAbsent(cle(situation.getMarchandId(), situation.getTypePaiement()), situation);
+        }
+        return situations;
+    }
+
+    /**
+     * Situation en lecture seule, pour l'affichage du prochain paiement. N'écrit rien.
+     */
+    @Transactional(readOnly = true)
+    public SituationPaiement consulter(Integer marchandId, Paiement.Typepaiement type) {
+        return situationPaiementRepository.findById(new SituationPaiement.Cle(marchandId, type))
+                .orElseGet(() -> amorcer(marchandId, type,
+                        paiementRepository.findDernierePeriodePayee(marchandId, type.name())
+                                .orElse(null)));
+    }
+
+    /**
+     * Un paiement du marchand a été supprimé : la situation est reconstruite au prochain paiement.
+     */
+    @Transactional
+    public void invalider(Integer marchandId, Paiement.Typepaiement type) {
+        situationPaiementRepository.deleteByMarchandIdAndTypePaiement(marchandId, type);
+    }
+
+    public static String cle(Integer marchandId, Paiement.Typepaiement type) {
+        return marchandId + ":" + type;
+    }
+
+    // Seuls les paiements liés à un contrat ont une période à enchaîner
+    private static final List<Paiement.Typepaiement> TYPES_SUIVIS =
+            List.of(Paiement.Typepaiement.droit_place, Paiement.Typepaiement.droit_annuel);
+
+    private void inserer(SituationPaiement situation) {
+        situationPaiementRepository.insererSiAbsente(situation.getMarchandId(), situation.getTypePaiement().name(),
+                situation.getDateFinPeriode(), situation.getIndexPeriode(), situation.getDerniereAnnee(),
+                situation.getDernierPaiementDate(), LocalDateTime.now());
+    }
+
+    // Reprise de l'historique : seul endroit où le libellé du dernier paiement est encore analysé
+    private SituationPaiement amorcer(Integer marchandId, Paiement.Typepaiement type, Paiement dernier) {
+        SituationPaiement situation = new SituationPaiement(marchandId, type);
+        if (dernier == null) return situation;
+
+        log.info("📒 Amorçage de la situation {} du marchand {}", type, marchandId);
+        situation.setDateFinPeriode(dernier.getDateFin());
+        situation.setDernierPaiementDate(dernier.getDatePaiement());
+        situation.setIndexPeriode(extraireNombre(dernier.getMoisdePaiement(), 1));
+        if (dernier.getAnneePaye() != null) {
+            situation.setDerniereAnnee(dernier.getAnneePaye().getValue());
+        } else if (type == Paiement.Typepaiement.droit_annuel) {
+            situation.setDerniereAnnee(extraireNombre(dernier.getMotif(), null));
+        }
+        return situation;
+    }
+
+    private static Integer extraireNombre(String libelle, Integer parDefaut) {
+        try {
+            return Integer.parseInt(libelle.replaceAll("\\D+", ""));
+        } catch (Exception e) {
+            return parDefaut;
+        }
+    }
+}
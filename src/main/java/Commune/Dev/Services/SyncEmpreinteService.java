@@ -0,0 +1,143 @@
+package Commune.Dev.Services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Empreintes (SHA-256) des sections de référence de la synchronisation, par utilisateur.
+ * Une empreinte reste en cache jusqu'à ce qu'une écriture touche le type d'entité de la
+ * section (voir SyncEmpreinteListener) : une synchro répétée ne relit alors ni ne
+ * sérialise les sections que le client possède déjà.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SyncEmpreinteService {
+
+    public enum SectionReference {
+        MARCHEES("marchees"),
+        ZONES("zones"),
+        HALLS("halls");
+
+        private final String nom;
+
+        SectionReference(String nom) {
+            this.nom = nom;
+        }
+
+        public String getNom() {
+            return nom;
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<SectionReference, Map<Long, EmpreinteSection>> cache = new EnumMap<>(SectionReference.class);
+
+    // Incrémentée à chaque écriture : un calcul commencé avant n'est pas mis en cache
+    private final Map<SectionReference, AtomicLong> generations = new EnumMap<>(SectionReference.class);
+
+    {
+        for (SectionReference section : SectionReference.values()) {
+            cache.put(section, new ConcurrentHashMap<>());
+            generations.put(section, new AtomicLong());
+        }
+    }
+
+    /**
+     * Empreinte en cache pour cet utilisateur, ou null si elle doit être recalculée
+     * (jamais calculée, invalidée, ou territoire différent).
+     */
+    public String empreinteEnCache(SectionReference section, Long userId, Set<Long> ids) {
+        EmpreinteSection enCache = cache.get(section).get(userId);
+        return enCache != null && enCache.ids().equals(ids) ? enCache.empreinte() : null;
+    }
+
+    public long generation(SectionReference section) {
+        return generations.get(section).get();
+    }
+
+    /**
+     * Calcule l'empreinte des données d'une section (déjà triées par identifiant)
+     * et la garde en cache si aucune écriture n'a eu lieu depuis generationAuDepart.
+     */
+    public String memoriser(SectionReference section, Long userId, Set<Long> ids,
+                            long generationAuDepart, List<?> donnees) {
+        String empreinte = calculerEmpreinte(donnees);
+        if (generation(section) == generationAuDepart) {
+            cache.get(section).put(userId, new EmpreinteSection(Set.copyOf(ids), empreinte));
+        }
+        return empreinte;
+    }
+
+    /**
+     * Une entité de ces sections a été écrite : invalidation immédiate,
+     * puis de nouveau après la fin de la transaction en cours.
+     */
+    public void invalider(SectionReference... sections) {
+        invaliderMaintenant(sections);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invaliderMaintenant(sections);
+                }
+            });
+        }
+    }
+
+    /**
+     * Lit le paramètre "empreintes" envoyé par le client : "marchees:ab12...,zones:cd34...".
+     */
+    public static Map<String, String> lireEmpreintesClient(String parametre) {
+        Map<String, String> empreintes = new HashMap<>();
+        if (parametre == null || parametre.isBlank()) {
+            return empreintes;
+        }
+        for (String element : parametre.split(",")) {
+            int separateur = element.indexOf(':');
+            if (separateur > 0) {
+                empreintes.put(element.substring(0, separateur).trim().toLowerCase(),
+                        element.substring(separateur + 1).trim());
+            }
+        }
+        return empreintes;
+    }
+
+    private void invaliderMaintenant(SectionReference... sections) {
+        for (SectionReference section : sections) {
+            generations.get(section).incrementAndGet();
+            cache.get(section).clear();
+        }
+    }
+
+    private String calculerEmpreinte(List<?> donnees) {
+        try {
+            byte[] contenu = objectMapper.writeValueAsString(donnees).getBytes(StandardCharsets.UTF_8);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(contenu));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Impossible de calculer l'empreinte de la section", e);
+        }
+    }
+
+    private record EmpreinteSection(Set<Long> ids, String empreinte) {
+    }
+}
@@ -1,19 +1,42 @@
 package Commune.Dev.Services;
 
 import Commune.Dev.Dtos.SyncDataResponse;
+import Commune.Dev.Dtos.SyncPageResponse;
 import Commune.Dev.Models.*;
 import Commune.Dev.Repositories.*;
+import Commune.Dev.Services.SyncEmpreinteService.SectionReference;
+import Commune.Dev.Services.TerritoireService.Territoire;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,248 +45,740 @@ import java.util.stream.Collectors;
 public class SyncService {
 
     private final UserRepository userRepository;
-    private final MarcheeRepository marcheeRepository;
-    private final ZoneRepository zoneRepository;
-    private final HallsRepository hallsRepository;
-    private final PlaceRepository placeRepository;
-    private final MarchandsRepository marchandRepository;
-    private final PaiementRepository paiementRepository;
-    private final QuittanceRepository quittanceRepository;
-    private final SessionRepository sessionRepository;
+    private final TerritoireService territoireService;
+    private final SyncEmpreinteService syncEmpreinteService;
+    private final PlatformTransactionManager transactionManager;
+    // Threads virtuels (voir AsyncConfig)
+    private final ExecutorService syncExecutor;
+
+    // Recouvrement appliqué au jeton pour ne pas rater une transaction
+    // commitée juste après l'émission du jeton précédent
+    private static final long MARGE_SYNC_SECONDES = 30;
+
+    // Synchronisation en flux : enregistrements lus par page, chaque page dans sa propre transaction
+    private static final int TAILLE_LOT_FLUX = 500;
+
+    // Synchronisation par pages : taille par défaut et taille maximale d'une page
+    private static final int TAILLE_PAGE_DEFAUT = 500;
+    private static final int TAILLE_PAGE_MAX = 2000;
+
+    // Synchronisation parallèle : sections qui tiennent une connexion en même temps,
+    // toutes synchros confondues (le pool Hikari compte 5 connexions par défaut)
+    private static final int CONNEXIONS_SYNC_MAX = 2;
+    private final Semaphore connexionsSync = new Semaphore(CONNEXIONS_SYNC_MAX, true);
+
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Transactional(readOnly = true)
     public SyncDataResponse getSyncDataForUser(Long userId) {
+        return getSyncDataForUser(userId, null);
+    }
+
+    /**
+     * Synchronisation complète (since == null) ou différentielle.
+     * En mode différentiel, seules les places, marchands, paiements, quittances et sessions
+     * modifiés depuis le jeton sont renvoyés, avec la liste des suppressions.
+     */
+    @Transactional(readOnly = true)
+    public SyncDataResponse getSyncDataForUser(Long userId, String since) {
+        return getSyncDataForUser(userId, since, Map.of());
+    }
+
+    /**
+     * Comme getSyncDataForUser(userId, since), en omettant les sections de référence
+     * (marchés, zones, halls) dont le client possède déjà l'empreinte.
+     */
+    @Transactional(readOnly = true)
+    public SyncDataResponse getSyncDataForUser(Long userId, String since, Map<String, String> empreintesClient) {
         log.info("🔄 Début de synchronisation pour l'utilisateur ID: {}", userId);
 
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
 
+        LocalDateTime maintenant = LocalDateTime.now();
+        LocalDateTime borne = borneDifferentielle(user, since);
+        boolean differentiel = borne != null;
+
         SyncDataResponse response = new SyncDataResponse();
-        response.setSyncTimestamp(LocalDateTime.now());
+        response.setSyncTimestamp(maintenant);
+        response.setSyncToken(encoderJetonSync(maintenant));
+        response.setFullSync(!differentiel);
 
         // 1. Données de l'utilisateur
         response.setUser(mapUserToSyncData(user));
 
         // 2. Récupérer tous les marchés, zones et halls de l'utilisateur
-        Set<Long> marcheeIds = new HashSet<>();
-        Set<Long> zoneIds = new HashSet<>();
-        Set<Long> hallIds = new HashSet<>();
-
-        // === LOGIQUE EN CASCADE ===
-
-        // A. Si l'utilisateur a des marchés assignés
-        if (user.getMarchees() != null && !user.getMarchees().isEmpty()) {
-            marcheeIds.addAll(user.getMarchees().stream()
-                    .map(Marchee::getId)
-                    .collect(Collectors.toSet()));
-
-            log.info("📍 Marchés assignés directement: {}", marcheeIds);
-
-            // Récupérer TOUTES les zones liées à ces marchés
-            List<Zone> zonesFromMarchees = zoneRepository.findByMarcheeIdIn(new ArrayList<>(marcheeIds));
-            zoneIds.addAll(zonesFromMarchees.stream()
-                    .map(Zone::getId)
-                    .collect(Collectors.toSet()));
-            log.info("📍 Zones trouvées depuis les marchés: {}", zoneIds.size());
-
-            // Récupérer TOUS les halls liés à ces marchés
-            List<Halls> hallsFromMarchees = hallsRepository.findByMarcheeIdIn(new ArrayList<>(marcheeIds));
-            hallIds.addAll(hallsFromMarchees.stream()
-                    .map(Halls::getId)
-                    .collect(Collectors.toSet()));
-            log.info("📍 Halls trouvés depuis les marchés: {}", hallIds.size());
-        }
+        Territoire territoire = territoireService.resoudre(userId);
+
+        // 3. à 5. Données de référence (marchés, zones avec leur marché, halls),
+        // omises si l'empreinte du client est à jour
+        response.setEmpreintes(new LinkedHashMap<>());
+        response.setSectionsInchangees(new ArrayList<>());
+
+        response.setMarchees(sectionReference(SectionReference.MARCHEES, userId, territoire.marcheeIds(),
+                empreintesClient, response, () -> lire(requeteMarchees(territoire, 0L)), this::mapMarcheeToData));
+        response.setZones(sectionReference(SectionReference.ZONES, userId, territoire.zoneIds(),
+                empreintesClient, response, () -> lire(requeteZones(territoire, 0L)), this::mapZoneToData));
+        response.setHalls(sectionReference(SectionReference.HALLS, userId, territoire.hallIds(),
+                empreintesClient, response, () -> lire(requeteHalls(territoire, 0L)), this::mapHallToData));
+
+        // 6. Places du territoire (modifiées depuis le jeton en mode différentiel)
+        List<Place> places = territoire.estVide() ? new ArrayList<>() : lire(requetePlaces(territoire, borne, null));
+        response.setPlaces(places.stream()
+                .map(this::mapPlaceToData)
+                .collect(Collectors.toList()));
+
+        log.info("📍 Places envoyées: {}", places.size());
+
+        // 7. Marchands occupant une place du territoire
+        List<Marchands> marchands = territoire.estVide() ? new ArrayList<>() : lire(requeteMarchands(territoire, borne, null));
+        response.setMarchands(marchands.stream()
+                .map(this::mapMarchandToData)
+                .collect(Collectors.toList()));
+
+        log.info("👥 Marchands trouvés: {}", marchands.size());
+
+        // 8. Sessions de l'utilisateur
+        List<Session> sessions = lire(requeteSessions(userId, borne, null));
+        response.setSessions(
+                sessions.stream()
+                        .map(this::mapSessionToData)
+                        .collect(Collectors.toList())
+        );
+
+        log.info("📅 Sessions trouvées pour l'utilisateur {} : {}", userId, sessions.size());
+
+        // 9. Paiements liés aux places, aux marchands OU aux sessions, en une seule requête
+        List<Paiement> paiements = lire(requetePaiements(userId, territoire, borne, null));
+        response.setPaiements(paiements.stream()
+                .map(this::mapPaiementToData)
+                .collect(Collectors.toList()));
+
+        log.info("💰 Total paiements uniques trouvés: {}", paiements.size());
+
+        // 10. Quittances de l'utilisateur (percepteur)
+        List<Quittance> quittances = lire(requeteQuittances(userId, borne, null));
+        response.setQuittances(
+                quittances.stream()
+                        .map(this::mapQuittanceToData)
+                        .collect(Collectors.toList())
+        );
+
+        log.info("🧾 Quittances trouvées pour l'utilisateur {} : {}", userId, quittances.size());
+
+        // 11. Suppressions survenues depuis le jeton (mode différentiel uniquement)
+        response.setSuppressions(differentiel
+                ? mapper(lire(requeteSuppressions(userId, territoire, borne, null)), this::mapSuppressionToData)
+                : new ArrayList<>());
+
+        log.info("✅ Synchronisation terminée pour l'utilisateur ID: {}", userId);
+
+        return response;
+    }
 
-        // B. Si l'utilisateur a des zones assignées directement
-        if (user.getZones() != null && !user.getZones().isEmpty()) {
-            Set<Long> directZoneIds = user.getZones().stream()
-                    .map(Zone::getId)
-                    .collect(Collectors.toSet());
-            zoneIds.addAll(directZoneIds);
-
-            log.info("📍 Zones assignées directement: {}", directZoneIds);
-
-            // Récupérer TOUS les halls liés à ces zones
-            List<Halls> hallsFromZones = hallsRepository.findByZoneIdIn(new ArrayList<>(directZoneIds));
-            hallIds.addAll(hallsFromZones.stream()
-                    .map(Halls::getId)
-                    .collect(Collectors.toSet()));
-            log.info("📍 Halls trouvés depuis les zones: {}", hallsFromZones.size());
-
-//            // Ajouter aussi les marchés parents de ces zones
-//            for (Zone zone : user.getZones()) {
-//                if (zone.getMarchee() != null) {
-//                    marcheeIds.add(zone.getMarchee().getId());
-//                }
-//            }
+    /**
+     * Version des données de synchronisation d'un utilisateur, calculée sans construire l'instantané :
+     * son compte, son territoire, les générations des sections de référence, puis le nombre et la
+     * dernière modification de chaque section suivie (places, marchands, sessions, paiements,
+     * quittances). Une version inchangée signifie un instantané inchangé ; le jeton renvoyé est
+     * pris avant la lecture, comme celui de getSyncDataForUser.
+     */
+    @Transactional(readOnly = true)
+    public VersionSync versionDonnees(Long userId) {
+        String syncToken = encoderJetonSync(LocalDateTime.now());
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+        Territoire territoire = territoireService.resoudre(userId);
+
+        StringBuilder version = new StringBuilder()
+                .append(user.getUpdatedAt()).append('|')
+                .append(new TreeSet<>(territoire.marcheeIds())).append(new TreeSet<>(territoire.zoneIds()))
+                .append(new TreeSet<>(territoire.hallIds())).append('|');
+        for (SectionReference section : SectionReference.values()) {
+            version.append(syncEmpreinteService.generation(section)).append(',');
         }
 
-        // C. Si l'utilisateur a des halls assignés directement
-        if (user.getHalls() != null && !user.getHalls().isEmpty()) {
-            Set<Long> directHallIds = user.getHalls().stream()
-                    .map(Halls::getId)
-                    .collect(Collectors.toSet());
-            hallIds.addAll(directHallIds);
-
-            log.info("📍 Halls assignés directement: {}", directHallIds);
-
-//            // Ajouter aussi les marchés et zones parents de ces halls
-//            for (Halls hall : user.getHalls()) {
-//                if (hall.getMarchee() != null) {
-//                    marcheeIds.add(hall.getMarchee().getId());
-//                }
-//                if (hall.getZone() != null) {
-//                    zoneIds.add(hall.getZone().getId());
-//                }
-//            }
+        if (!territoire.estVide()) {
+            String filtrePlaces = predicatTerritoire("pl", territoire);
+            ajouterEtat(version, lierTerritoire(entityManager.createQuery(
+                    "SELECT COUNT(pl), MAX(pl.updatedAt) FROM Place pl WHERE " + filtrePlaces, Object[].class), territoire));
+            ajouterEtat(version, lierTerritoire(entityManager.createQuery(
+                    "SELECT COUNT(m), MAX(m.updatedAt) FROM Marchands m " +
+                            "WHERE m.id IN (SELECT pl.marchands.id FROM Place pl WHERE " + filtrePlaces + ")",
+                    Object[].class), territoire));
         }
+        ajouterEtat(version, entityManager.createQuery(
+                "SELECT COUNT(s), MAX(s.updatedAt) FROM Session s WHERE s.user.id = :userId", Object[].class)
+                .setParameter("userId", userId));
+
+        StringBuilder jpqlPaiements = new StringBuilder(
+                "SELECT COUNT(p), MAX(p.updatedAt) FROM Paiement p " +
+                        "WHERE (p.session.id IN (SELECT s.id FROM Session s WHERE s.user.id = :userId)");
+        if (!territoire.estVide()) {
+            String filtrePlaces = predicatTerritoire("pl", territoire);
+            jpqlPaiements.append(" OR p.place.id IN (SELECT pl.id FROM Place pl WHERE ")
+                    .append(filtrePlaces).append(")")
+                    .append(" OR p.marchand.id IN (SELECT pl.marchands.id FROM Place pl WHERE ")
+                    .append(filtrePlaces).append(")");
+        }
+        jpqlPaiements.append(")");
+        ajouterEtat(version, lierTerritoire(entityManager.createQuery(jpqlPaiements.toString(), Object[].class)
+                .setParameter("userId", userId), territoire));
 
-        log.info("📊 TOTAL - Marchés: {}, Zones: {}, Halls: {}",
-                marcheeIds.size(), zoneIds.size(), hallIds.size());
+        ajouterEtat(version, entityManager.createQuery(
+                "SELECT COUNT(q), MAX(q.updatedAt) FROM Quittance q WHERE q.percepteurId = :userId", Object[].class)
+                .setParameter("userId", userId));
 
+        return new VersionSync(version.toString(), syncToken);
+    }
 
-        // 3. Charger les données complètes des marchés
-        List<Integer> marcheeIdsInt = marcheeIds.stream()
-                .map(Long::intValue)
-                .collect(Collectors.toList());
+    // Nombre de lignes et dernière modification : un ajout, une modification ou une suppression les change
+    private void ajouterEtat(StringBuilder version, TypedQuery<Object[]> requete) {
+        Object[] etat = requete.getSingleResult();
+        version.append('|').append(etat[0]).append('@').append(etat[1]);
+    }
 
-        List<Marchee> marchees = new ArrayList<>();
-        if (!marcheeIdsInt.isEmpty()) {
-            marchees = marcheeRepository.findAllById(marcheeIdsInt);
-        }
-        response.setMarchees(marchees.stream()
-                .map(this::mapMarcheeToData)
-                .collect(Collectors.toList()));
+    public record VersionSync(String version, String syncToken) {
+    }
 
-        // 4. Charger les données complètes des zones
-        List<Integer> zoneIdsInt = zoneIds.stream()
-                .map(Long::intValue)
-                .collect(Collectors.toList());
+    /**
+     * Variante parallèle de getSyncDataForUser : les sections ne dépendent que du territoire
+     * et de la borne, elles sont donc chargées en même temps sur des threads virtuels,
+     * chacune dans sa propre transaction en lecture seule. Au plus CONNEXIONS_SYNC_MAX
+     * sections tiennent une connexion à la fois, pour laisser le reste du pool aux autres requêtes.
+     * La durée de chaque section est renvoyée dans "durees" (ms).
+     * Les sections sont lues dans des transactions distinctes : le recouvrement du jeton
+     * (MARGE_SYNC_SECONDES) rattrape une écriture commitée entre deux lectures.
+     */
+    public SyncDataResponse getSyncDataForUserParallele(Long userId, String since,
+                                                        Map<String, String> empreintesClient) {
+        log.info("🔄 Début de synchronisation parallèle pour l'utilisateur ID: {}", userId);
+        long debut = System.nanoTime();
 
-        List<Zone> zones = new ArrayList<>();
-        if (!zoneIdsInt.isEmpty()) {
-            zones = zoneRepository.findAllById(zoneIdsInt);
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+
+        LocalDateTime maintenant = LocalDateTime.now();
+        LocalDateTime borne = borneDifferentielle(user, since);
+        boolean differentiel = borne != null;
+        Territoire territoire = territoireService.resoudre(userId);
+
+        SyncDataResponse response = new SyncDataResponse();
+        response.setSyncTimestamp(maintenant);
+        response.setSyncToken(encoderJetonSync(maintenant));
+        response.setFullSync(!differentiel);
+        response.setUser(mapUserToSyncData(user));
+        response.setEmpreintes(new LinkedHashMap<>());
+        response.setSectionsInchangees(new ArrayList<>());
+
+        Map<String, Long> durees = new ConcurrentHashMap<>();
+
+        // Sections de référence : petites et souvent en cache, chargées ensemble
+        CompletableFuture<Void> reference = sectionParallele("reference", durees, () -> {
+            response.setMarchees(sectionReference(SectionReference.MARCHEES, userId, territoire.marcheeIds(),
+                    empreintesClient, response, () -> lire(requeteMarchees(territoire, 0L)), this::mapMarcheeToData));
+            response.setZones(sectionReference(SectionReference.ZONES, userId, territoire.zoneIds(),
+                    empreintesClient, response, () -> lire(requeteZones(territoire, 0L)), this::mapZoneToData));
+            response.setHalls(sectionReference(SectionReference.HALLS, userId, territoire.hallIds(),
+                    empreintesClient, response, () -> lire(requeteHalls(territoire, 0L)), this::mapHallToData));
+            return null;
+        });
+        CompletableFuture<List<SyncDataResponse.PlaceData>> places = sectionParallele("places", durees,
+                () -> territoire.estVide() ? new ArrayList<>()
+                        : mapper(lire(requetePlaces(territoire, borne, null)), this::mapPlaceToData));
+        CompletableFuture<List<SyncDataResponse.MarchandData>> marchands = sectionParallele("marchands", durees,
+                () -> territoire.estVide() ? new ArrayList<>()
+                        : mapper(lire(requeteMarchands(territoire, borne, null)), this::mapMarchandToData));
+        CompletableFuture<List<SyncDataResponse.SessionData>> sessions = sectionParallele("sessions", durees,
+                () -> mapper(lire(requeteSessions(userId, borne, null)), this::mapSessionToData));
+        CompletableFuture<List<SyncDataResponse.PaiementData>> paiements = sectionParallele("paiements", durees,
+                () -> mapper(lire(requetePaiements(userId, territoire, borne, null)), this::mapPaiementToData));
+        CompletableFuture<List<SyncDataResponse.QuittanceData>> quittances = sectionParallele("quittances", durees,
+                () -> mapper(lire(requeteQuittances(userId, borne, null)), this::mapQuittanceToData));
+        CompletableFuture<List<SyncDataResponse.SuppressionData>> suppressions = sectionParallele("suppressions", durees,
+                () -> differentiel ? mapper(lire(requeteSuppressions(userId, territoire, borne, 0L)), this::mapSuppressionToData)
+                        : new ArrayList<>());
+
+        try {
+            CompletableFuture.allOf(reference, places, marchands, sessions, paiements, quittances, suppressions).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
         }
-        response.setZones(zones.stream()
-                .map(this::mapZoneToData)
-                .collect(Collectors.toList()));
 
-        // 5. Charger les données complètes des halls
-        List<Integer> hallIdsInt = hallIds.stream()
-                .map(Long::intValue)
-                .collect(Collectors.toList());
+        response.setPlaces(places.join());
+        response.setMarchands(marchands.join());
+        response.setSessions(sessions.join());
+        response.setPaiements(paiements.join());
+        response.setQuittances(quittances.join());
+        response.setSuppressions(suppressions.join());
 
-        List<Halls> halls = new ArrayList<>();
-        if (!hallIdsInt.isEmpty()) {
-            halls = hallsRepository.findAllById(hallIdsInt);
+        Map<String, Long> dureesOrdonnees = new LinkedHashMap<>();
+        for (String section : List.of("reference", "places", "marchands", "sessions", "paiements", "quittances", "suppressions")) {
+            dureesOrdonnees.put(section, durees.get(section));
         }
-        response.setHalls(halls.stream()
-                .map(this::mapHallToData)
-                .collect(Collectors.toList()));
+        dureesOrdonnees.put("total", (System.nanoTime() - debut) / 1_000_000);
+        response.setDurees(dureesOrdonnees);
+
+        log.info("✅ Synchronisation parallèle terminée pour l'utilisateur ID: {} - durées (ms): {}",
+                userId, dureesOrdonnees);
+        return response;
+    }
 
-        // 6. Charger toutes les places liées (cascade depuis marchés/zones/halls)
-        Set<Integer> placeIds = new HashSet<>();
-        List<Place> places = new ArrayList<>();
+    // Exécute une section sur un thread virtuel, dans sa propre transaction en lecture seule
+    private <T> CompletableFuture<T> sectionParallele(String section, Map<String, Long> durees, Supplier<T> chargement) {
+        TransactionTemplate lectureSeule = new TransactionTemplate(transactionManager);
+        lectureSeule.setReadOnly(true);
+
+        return CompletableFuture.supplyAsync(() -> {
+            connexionsSync.acquireUninterruptibly();
+            long debut = System.nanoTime();
+            try {
+                return lectureSeule.execute(status -> chargement.get());
+            } finally {
+                connexionsSync.release();
+                durees.put(section, (System.nanoTime() - debut) / 1_000_000);
+            }
+        }, syncExecutor);
+    }
+
+    private <E, D> List<D> mapper(List<E> entites, Function<E, D> mapper) {
+        return entites.stream().map(mapper).collect(Collectors.toList());
+    }
 
-        if (!marcheeIds.isEmpty()) {
-            places.addAll(placeRepository.findByMarcheeIdIn(new ArrayList<>(marcheeIds)));
+    // Borne de la synchronisation différentielle (jeton moins la marge), null pour une synchro complète
+    private LocalDateTime borneDifferentielle(User user, String since) {
+        LocalDateTime depuis = decoderJetonSync(since);
+        if (depuis == null) return null;
+
+        // Affectations modifiées depuis le jeton : le territoire a pu changer, on repart de zéro
+        if (user.getUpdatedAt() != null && user.getUpdatedAt().isAfter(depuis)) {
+            log.info("🔁 Affectations modifiées depuis le dernier jeton, synchronisation complète");
+            return null;
         }
-        if (!zoneIds.isEmpty()) {
-            places.addAll(placeRepository.findByZoneIdIn(new ArrayList<>(zoneIds)));
+        return depuis.minusSeconds(MARGE_SYNC_SECONDES);
+    }
+
+    /**
+     * Charge une section de référence, sauf si le client en possède déjà la version courante.
+     * L'empreinte est lue dans le cache quand c'est possible, sans accès à la base.
+     * Retourne null quand la section est inchangée.
+     */
+    private <E, D> List<D> sectionReference(SectionReference section, Long userId, Set<Long> ids,
+                                            Map<String, String> empreintesClient, SyncDataResponse response,
+                                            Supplier<List<E>> chargement, Function<E, D> mapper) {
+        String empreinteClient = empreintesClient.get(section.getNom());
+
+        String empreinte = syncEmpreinteService.empreinteEnCache(section, userId, ids);
+        List<D> donnees = null;
+        if (empreinte == null || !empreinte.equals(empreinteClient)) {
+            long generation = syncEmpreinteService.generation(section);
+            // Chargées triées par identifiant : l'empreinte ne dépend pas de l'ordre de lecture
+            donnees = ids.isEmpty() ? new ArrayList<>()
+                    : chargement.get().stream().map(mapper).collect(Collectors.toList());
+            empreinte = syncEmpreinteService.memoriser(section, userId, ids, generation, donnees);
         }
-        if (!hallIds.isEmpty()) {
-            places.addAll(placeRepository.findByHallIdIn(new ArrayList<>(hallIds)));
+
+        response.getEmpreintes().put(section.getNom(), empreinte);
+        if (empreinte.equals(empreinteClient)) {
+            response.getSectionsInchangees().add(section.getNom());
+            return null;
         }
+        return donnees;
+    }
 
-        // Dédupliquer les places
-        places = places.stream().distinct().collect(Collectors.toList());
-        placeIds = places.stream().map(Place::getId).collect(Collectors.toSet());
+    /**
+     * Synchronisation par pages, pour les territoires trop volumineux pour un seul appel.
+     * Chaque section est parcourue par clé (identifiant > curseur, trié par identifiant),
+     * ce qui permet de reprendre une synchronisation interrompue au dernier curseur reçu.
+     * Le jeton "jeton" renvoyé par la première page fixe l'horodatage de toute la synchronisation.
+     */
+    @Transactional(readOnly = true)
+    public SyncPageResponse getSyncPage(Long userId, String section, Long curseur, Integer taille,
+                                        String since, String jeton) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
 
-        response.setPlaces(places.stream()
-                .map(this::mapPlaceToData)
-                .collect(Collectors.toList()));
+        LocalDateTime borne = borneDifferentielle(user, since);
+
+        String syncToken = decoderJetonSync(jeton) != null ? jeton.trim() : encoderJetonSync(LocalDateTime.now());
+        SectionSync sectionSync = section == null || section.isBlank()
+                ? SectionSync.MARCHEES : SectionSync.depuisNom(section);
+        int limite = taille == null ? TAILLE_PAGE_DEFAUT : Math.max(1, Math.min(taille, TAILLE_PAGE_MAX));
+        Long apres = curseur != null ? curseur : 0L;
+
+        Territoire territoire = territoireService.resoudre(userId);
+
+        PageSection page = switch (sectionSync) {
+            case MARCHEES -> territoire.marcheeIds().isEmpty() ? PageSection.VIDE
+                    : paginer(requeteMarchees(territoire, apres), limite, Marchee::getId, this::mapMarcheeToData);
+            case ZONES -> territoire.zoneIds().isEmpty() ? PageSection.VIDE
+                    : paginer(requeteZones(territoire, apres), limite, Zone::getId, this::mapZoneToData);
+            case HALLS -> territoire.hallIds().isEmpty() ? PageSection.VIDE
+                    : paginer(requeteHalls(territoire, apres), limite, Halls::getId, this::mapHallToData);
+            case PLACES -> territoire.estVide() ? PageSection.VIDE
+                    : paginer(requetePlaces(territoire, borne, apres), limite, Place::getId, this::mapPlaceToData);
+            case MARCHANDS -> territoire.estVide() ? PageSection.VIDE
+                    : paginer(requeteMarchands(territoire, borne, apres), limite, Marchands::getId, this::mapMarchandToData);
+            case SESSIONS -> paginer(requeteSessions(userId, borne, apres), limite, Session::getId, this::mapSessionToData);
+            case PAIEMENTS -> paginer(requetePaiements(userId, territoire, borne, apres), limite,
+                    Paiement::getId, this::mapPaiementToData);
+            case QUITTANCES -> paginer(requeteQuittances(userId, borne, apres), limite,
+                    Quittance::getId, this::mapQuittanceToData);
+            case SUPPRESSIONS -> borne == null ? PageSection.VIDE
+                    : paginer(requeteSuppressions(userId, territoire, borne, apres), limite, SyncSuppression::getId, this::mapSuppressionToData);
+        };
+
+        SyncPageResponse response = new SyncPageResponse();
+        response.setSection(sectionSync.getNom());
+        response.setDonnees(page.donnees());
+        response.setSyncToken(syncToken);
+        response.setFullSync(borne == null);
+
+        if (!page.complete()) {
+            response.setSectionSuivante(sectionSync.getNom());
+            response.setCurseurSuivant(page.dernierId());
+        } else {
+            SectionSync suivante = sectionSync.suivante(borne != null);
+            response.setSectionSuivante(suivante != null ? suivante.getNom() : null);
+            response.setTermine(suivante == null);
+        }
 
-        log.info("📍 Places trouvées: {}", places.size());
+        log.info("📄 Page de synchronisation {} pour l'utilisateur {} : {} enregistrements (curseur {})",
+                sectionSync.getNom(), userId, page.donnees().size(), apres);
+        return response;
+    }
 
-        // 7. Charger tous les marchands liés à ces places
-        Set<Integer> marchandIds = places.stream()
-                .map(Place::getMarchands)
-                .filter(m -> m != null)
-                .map(Marchands::getId)
-                .collect(Collectors.toSet());
+    // Lit une ligne de plus que la page pour savoir s'il reste des données
+    private <T> PageSection paginer(TypedQuery<T> query, int limite,
+                                    Function<T, ? extends Number> id, Function<T, ?> mapper) {
+        List<T> lignes = query.setMaxResults(limite + 1)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList();
+        boolean complete = lignes.size() <= limite;
+        if (!complete) {
+            lignes = lignes.subList(0, limite);
+        }
+        Long dernierId = lignes.isEmpty() ? null : id.apply(lignes.get(lignes.size() - 1)).longValue();
+        List<Object> donnees = lignes.stream().map(mapper).collect(Collectors.toList());
+        return new PageSection(donnees, dernierId, complete);
+    }
+
+    private record PageSection(List<Object> donnees, Long dernierId, boolean complete) {
+        static final PageSection VIDE = new PageSection(List.of(), null, true);
+    }
 
-        List<Marchands> marchands = new ArrayList<>();
-        if (!marchandIds.isEmpty()) {
-            marchands = marchandRepository.findAllById(marchandIds);
+    /**
+     * Sections de la synchronisation par pages, dans l'ordre de parcours.
+     */
+    public enum SectionSync {
+        MARCHEES("marchees"),
+        ZONES("zones"),
+        HALLS("halls"),
+        PLACES("places"),
+        MARCHANDS("marchands"),
+        SESSIONS("sessions"),
+        PAIEMENTS("paiements"),
+        QUITTANCES("quittances"),
+        // Seulement en mode différentiel
+        SUPPRESSIONS("suppressions");
+
+        private final String nom;
+
+        SectionSync(String nom) {
+            this.nom = nom;
         }
-        response.setMarchands(marchands.stream()
-                .map(this::mapMarchandToData)
-                .collect(Collectors.toList()));
 
-        log.info("👥 Marchands trouvés: {}", marchands.size());
+        public String getNom() {
+            return nom;
+        }
 
-        // 8. Charger les sessions de l'utilisateur
-        List<Session> sessions = sessionRepository.findByUserId(userId);
+        public static SectionSync depuisNom(String nom) {
+            for (SectionSync section : values()) {
+                if (section.nom.equalsIgnoreCase(nom.trim())) {
+                    return section;
+                }
+            }
+            throw new IllegalArgumentException("Section de synchronisation inconnue: " + nom);
+        }
 
-        response.setSessions(
-                sessions.stream()
-                        .map(this::mapSessionToData)
-                        .collect(Collectors.toList())
-        );
+        SectionSync suivante(boolean differentiel) {
+            int index = ordinal() + 1;
+            if (index >= values().length) return null;
+            SectionSync suivante = values()[index];
+            return suivante == SUPPRESSIONS && !differentiel ? null : suivante;
+        }
+    }
 
-        log.info("📅 Sessions trouvées pour l'utilisateur {} : {}", userId, sessions.size());
+    /**
+     * Variante en flux de la synchronisation complète : chaque enregistrement est écrit
+     * sur une ligne JSON (NDJSON). Les sections sont lues par pages (identifiant > curseur),
+     * chacune dans une courte transaction en lecture seule comptée dans les connexions de
+     * synchronisation : aucune connexion n'est retenue pendant l'écriture vers le client,
+     * et la mémoire reste constante quel que soit le volume de paiements du territoire.
+     * Les modifications faites pendant le flux sont rattrapées par la synchronisation
+     * différentielle suivante (le jeton est pris avant la première lecture).
+     * Lignes : {"section": "...", "data": {...}}, la première est "meta", la dernière "fin".
+     */
+    public void streamSyncDataForUser(Long userId, OutputStream out) throws IOException {
+        log.info("🔄 Début de synchronisation en flux pour l'utilisateur ID: {}", userId);
+
+        SyncDataResponse.UserSyncData utilisateur = lectureCourte(() -> mapUserToSyncData(userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"))));
+
+        LocalDateTime maintenant = LocalDateTime.now();
+        Map<String, Object> meta = new LinkedHashMap<>();
+        meta.put("syncTimestamp", maintenant);
+        meta.put("syncToken", encoderJetonSync(maintenant));
+        ecrireLigne(out, "meta", meta);
+        ecrireLigne(out, "user", utilisateur);
+
+        Territoire territoire = territoireService.resoudre(userId);
+        Map<String, Integer> compteurs = new LinkedHashMap<>();
+
+        // Données de référence : volume faible
+        if (!territoire.marcheeIds().isEmpty()) {
+            compteurs.put("marchees", ecrireSection(out, "marchees",
+                    apres -> requeteMarchees(territoire, apres), Marchee::getId, this::mapMarcheeToData));
+        }
+        if (!territoire.zoneIds().isEmpty()) {
+            compteurs.put("zones", ecrireSection(out, "zones",
+                    apres -> requeteZones(territoire, apres), Zone::getId, this::mapZoneToData));
+        }
+        if (!territoire.hallIds().isEmpty()) {
+            compteurs.put("halls", ecrireSection(out, "halls",
+                    apres -> requeteHalls(territoire, apres), Halls::getId, this::mapHallToData));
+        }
+
+        // Sections volumineuses : le territoire est exprimé en sous-requête
+        if (!territoire.estVide()) {
+            compteurs.put("places", ecrireSection(out, "places",
+                    apres -> requetePlaces(territoire, null, apres), Place::getId, this::mapPlaceToData));
+            compteurs.put("marchands", ecrireSection(out, "marchands",
+                    apres -> requeteMarchands(territoire, null, apres), Marchands::getId, this::mapMarchandToData));
+        }
+
+        compteurs.put("sessions", ecrireSection(out, "sessions",
+                apres -> requeteSessions(userId, null, apres), Session::getId, this::mapSessionToData));
+        compteurs.put("paiements", ecrireSection(out, "paiements",
+                apres -> requetePaiements(userId, territoire, null, apres), Paiement::getId, this::mapPaiementToData));
+        compteurs.put("quittances", ecrireSection(out, "quittances",
+                apres -> requeteQuittances(userId, null, apres), Quittance::getId, this::mapQuittanceToData));
 
-        // 9. Récupérer les IDs des sessions
-        Set<Long> sessionIds = sessions.stream()
-                .map(Session::getId)
-                .collect(Collectors.toSet());
+        ecrireLigne(out, "fin", compteurs);
+        out.flush();
 
-        // 10. Charger tous les paiements liés à ces places, marchands ET sessions
-        Set<Paiement> paiementsSet = new HashSet<>();
+        log.info("✅ Synchronisation en flux terminée pour l'utilisateur ID: {} {}", userId, compteurs);
+    }
 
-        // Paiements par place
-        if (!placeIds.isEmpty()) {
-            paiementsSet.addAll(paiementRepository.findByPlaceIdIn(new ArrayList<>(placeIds)));
-            log.info("💰 Paiements trouvés par place: {}", paiementsSet.size());
+    /**
+     * Parcourt la section page par page et écrit une ligne par enregistrement.
+     * Chaque page est lue et convertie dans sa transaction, puis écrite une fois la connexion rendue.
+     */
+    private <T> int ecrireSection(OutputStream out, String section, Function<Long, TypedQuery<T>> requete,
+                                  Function<T, ? extends Number> id, Function<T, ?> mapper) throws IOException {
+        int total = 0;
+        Long curseur = 0L;
+        while (true) {
+            Long apres = curseur;
+            PageSection page = lectureCourte(() -> paginer(requete.apply(apres), TAILLE_LOT_FLUX, id, mapper));
+            for (Object donnee : page.donnees()) {
+                ecrireLigne(out, section, donnee);
+            }
+            out.flush();
+            total += page.donnees().size();
+            if (page.complete()) break;
+            curseur = page.dernierId();
         }
+        log.info("📤 Section {} envoyée: {}", section, total);
+        return total;
+    }
 
-        // Paiements par marchand
-        if (!marchandIds.isEmpty()) {
-            List<Paiement> paiementsMarchand = (List<Paiement>) paiementRepository.findByMarchandIdIn(new ArrayList<>(marchandIds));
-            paiementsSet.addAll(paiementsMarchand);
-            log.info("💰 Paiements trouvés par marchand: {}", paiementsMarchand.size());
+    // Lecture dans une transaction courte, sous le sémaphore des connexions de synchronisation
+    private <T> T lectureCourte(Supplier<T> lecture) {
+        TransactionTemplate lectureSeule = new TransactionTemplate(transactionManager);
+        lectureSeule.setReadOnly(true);
+        connexionsSync.acquireUninterruptibly();
+        try {
+            return lectureSeule.execute(status -> lecture.get());
+        } finally {
+            connexionsSync.release();
         }
+    }
+
+    private void ecrireLigne(OutputStream out, String section, Object data) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(new SyncDataResponse.SyncLigne(section, data)));
+        out.write('\n');
+    }
 
-        // Paiements par session (IMPORTANT pour les paiements manuels sans marchand)
-        if (!sessionIds.isEmpty()) {
-            List<Paiement> paiementsSession = paiementRepository.findBySessionIdIn(new ArrayList<>(sessionIds));
-            paiementsSet.addAll(paiementsSession);
-            log.info("💰 Paiements trouvés par session: {}", paiementsSession.size());
+    // =====================================================
+    //   PLAN DE CHARGEMENT : UNE REQUÊTE PAR SECTION
+    // =====================================================
+    // Les associations lues par les mappers sont chargées dans la même requête (pas de N+1).
+    // borne != null : seulement les enregistrements modifiés depuis (mode différentiel).
+    // curseur != null : page triée par identifiant, après le curseur (synchronisation par pages).
+
+    private TypedQuery<Marchee> requeteMarchees(Territoire territoire, Long curseur) {
+        return lierCurseur(entityManager.createQuery(
+                "SELECT m FROM Marchee m WHERE m.id IN :marcheeIds" + clauseCurseur("m", curseur), Marchee.class)
+                .setParameter("marcheeIds", territoire.marcheeIds()), curseur);
+    }
+
+    // mapZoneToData lit le nom du marché
+    private TypedQuery<Zone> requeteZones(Territoire territoire, Long curseur) {
+        return lierCurseur(entityManager.createQuery(
+                "SELECT z FROM Zone z LEFT JOIN FETCH z.marchee WHERE z.id IN :zoneIds" + clauseCurseur("z", curseur), Zone.class)
+                .setParameter("zoneIds", territoire.zoneIds()), curseur);
+    }
+
+    private TypedQuery<Halls> requeteHalls(Territoire territoire, Long curseur) {
+        return lierCurseur(entityManager.createQuery(
+                "SELECT h FROM Halls h WHERE h.id IN :hallIds" + clauseCurseur("h", curseur), Halls.class)
+                .setParameter("hallIds", territoire.hallIds()), curseur);
+    }
+
+    // mapPlaceToData lit les montants de la catégorie et du droit annuel
+    private TypedQuery<Place> requetePlaces(Territoire territoire, LocalDateTime borne, Long curseur) {
+        String jpql = "SELECT pl FROM Place pl " +
+                "LEFT JOIN FETCH pl.categorie " +
+                "LEFT JOIN FETCH pl.droitAnnuel " +
+                "WHERE " + predicatTerritoire("pl", territoire) +
+                (borne != null ? " AND pl.updatedAt > :borne" : "") +
+                clauseCurseur("pl", curseur);
+        return lierCurseur(lierBorne(lierTerritoire(entityManager.createQuery(jpql, Place.class), territoire), borne),
+                versIdEntier(curseur));
+    }
+
+    // En différentiel : marchands modifiés + marchands rattachés à une place modifiée
+    private TypedQuery<Marchands> requeteMarchands(Territoire territoire, LocalDateTime borne, Long curseur) {
+        String filtrePlaces = predicatTerritoire("pl", territoire);
+        String dansTerritoire = "m.id IN (SELECT pl.marchands.id FROM Place pl WHERE " + filtrePlaces + ")";
+        String jpql = borne == null
+                ? "SELECT m FROM Marchands m WHERE " + dansTerritoire
+                : "SELECT m FROM Marchands m WHERE ((" + dansTerritoire + " AND m.updatedAt > :borne) " +
+                        "OR m.id IN (SELECT pl.marchands.id FROM Place pl WHERE " + filtrePlaces +
+                        " AND pl.updatedAt > :borne))";
+        jpql += clauseCurseur("m", curseur);
+        return lierCurseur(lierBorne(lierTerritoire(entityManager.createQuery(jpql, Marchands.class), territoire), borne),
+                versIdEntier(curseur));
+    }
+
+    private TypedQuery<Session> requeteSessions(Long userId, LocalDateTime borne, Long curseur) {
+        String jpql = "SELECT s FROM Session s WHERE s.user.id = :userId" +
+                (borne != null ? " AND s.updatedAt > :borne" : "") +
+                clauseCurseur("s", curseur);
+        return lierCurseur(lierBorne(entityManager.createQuery(jpql, Session.class)
+                .setParameter("userId", userId), borne), curseur);
+    }
+
+    // Union des critères session / place / marchand en une seule requête, quittance chargée avec
+    private TypedQuery<Paiement> requetePaiements(Long userId, Territoire territoire, LocalDateTime borne, Long curseur) {
+        StringBuilder jpql = new StringBuilder(
+                "SELECT p FROM Paiement p LEFT JOIN FETCH p.quittance " +
+                        "WHERE (p.session.id IN (SELECT s.id FROM Session s WHERE s.user.id = :userId)");
+        if (!territoire.estVide()) {
+            String filtrePlaces = predicatTerritoire("pl", territoire);
+            jpql.append(" OR p.place.id IN (SELECT pl.id FROM Place pl WHERE ")
+                    .append(filtrePlaces).append(")")
+                    .append(" OR p.marchand.id IN (SELECT pl.marchands.id FROM Place pl WHERE ")
+                    .append(filtrePlaces).append(")");
         }
+        jpql.append(")");
+        if (borne != null) jpql.append(" AND p.updatedAt > :borne");
+        jpql.append(clauseCurseur("p", curseur));
 
-        // Convertir le Set en List (déjà dédupliqué automatiquement)
-        List<Paiement> paiements = new ArrayList<>(paiementsSet);
+        TypedQuery<Paiement> query = entityManager.createQuery(jpql.toString(), Paiement.class)
+                .setParameter("userId", userId);
+        return lierCurseur(lierBorne(lierTerritoire(query, territoire), borne), versIdEntier(curseur));
+    }
 
-        response.setPaiements(paiements.stream()
-                .map(this::mapPaiementToData)
-                .collect(Collectors.toList()));
+    // mapQuittanceToData lit l'id du paiement (côté inverse du one-to-one, jamais paresseux)
+    private TypedQuery<Quittance> requeteQuittances(Long userId, LocalDateTime borne, Long curseur) {
+        String jpql = "SELECT q FROM Quittance q LEFT JOIN FETCH q.paiement WHERE q.percepteurId = :userId" +
+                (borne != null ? " AND q.updatedAt > :borne" : "") +
+                clauseCurseur("q", curseur);
+        return lierCurseur(lierBorne(entityManager.createQuery(jpql, Quittance.class)
+                .setParameter("userId", userId), borne), curseur);
+    }
 
-        log.info("💰 Total paiements uniques trouvés: {}", paiements.size());
+    // Suppressions de l'utilisateur (sessions, quittances, paiements de ses sessions) ou de son territoire.
+    // Une place sortie d'un rattachement mais toujours dans le territoire (déplacée) n'est pas retirée.
+    private TypedQuery<SyncSuppression> requeteSuppressions(Long userId, Territoire territoire,
+                                                            LocalDateTime borne, Long curseur) {
+        String jpql = "SELECT s FROM SyncSuppression s WHERE s.deletedAt > :borne AND (s.userId = :userId" +
+                (territoire.estVide() ? ")" : " OR " + predicatTerritoireSuppression(territoire) + ")" +
+                        " AND NOT (s.entityType = Commune.Dev.Models.SyncSuppression.EntiteSync.PLACE" +
+                        " AND s.entityId IN (SELECT CAST(pl.id AS Long) FROM Place pl WHERE " +
+                        predicatTerritoire("pl", territoire) + "))") +
+                clauseCurseur("s", curseur);
+        return lierCurseur(lierTerritoire(entityManager.createQuery(jpql, SyncSuppression.class)
+                .setParameter("borne", borne)
+                .setParameter("userId", userId), territoire), curseur);
+    }
 
-        // 11. Charger les quittances de l'utilisateur (percepteur)
-        List<Quittance> quittances = quittanceRepository.findByPercepteurId(userId);
+    // Même condition que predicatTerritoire, sur le rattachement relevé à la suppression
+    private String predicatTerritoireSuppression(Territoire territoire) {
+        List<String> conditions = new ArrayList<>();
+        if (!territoire.marcheeIds().isEmpty()) conditions.add("s.marcheeId IN :marcheeIds");
+        if (!territoire.zoneIds().isEmpty()) conditions.add("s.zoneId IN :zoneIds");
+        if (!territoire.hallIds().isEmpty()) conditions.add("s.hallId IN :hallIds");
+        return "(" + String.join(" OR ", conditions) + ")";
+    }
 
-        response.setQuittances(
-                quittances.stream()
-                        .map(this::mapQuittanceToData)
-                        .collect(Collectors.toList())
-        );
+    private String clauseCurseur(String alias, Long curseur) {
+        return curseur != null ? " AND " + alias + ".id > :curseur ORDER BY " + alias + ".id" : "";
+    }
 
-        log.info("🧾 Quittances trouvées pour l'utilisateur {} : {}", userId, quittances.size());
+    private <T> TypedQuery<T> lierCurseur(TypedQuery<T> query, Object curseur) {
+        return curseur != null ? query.setParameter("curseur", curseur) : query;
+    }
 
-        log.info("✅ Synchronisation terminée pour l'utilisateur ID: {}", userId);
+    // Places, marchands et paiements ont un identifiant Integer
+    private Integer versIdEntier(Long curseur) {
+        return curseur != null ? Math.toIntExact(curseur) : null;
+    }
 
-        return response;
+    private <T> TypedQuery<T> lierBorne(TypedQuery<T> query, LocalDateTime borne) {
+        return borne != null ? query.setParameter("borne", borne) : query;
+    }
+
+    private <T> List<T> lire(TypedQuery<T> query) {
+        return query.setHint(HibernateHints.HINT_READ_ONLY, true).getResultList();
+    }
+
+    // Condition JPQL "la place appartient au territoire", limitée aux niveaux non vides
+    private String predicatTerritoire(String alias, Territoire territoire) {
+        List<String> conditions = new ArrayList<>();
+        if (!territoire.marcheeIds().isEmpty()) conditions.add(alias + ".marchee.id IN :marcheeIds");
+        if (!territoire.zoneIds().isEmpty()) conditions.add(alias + ".zone.id IN :zoneIds");
+        if (!territoire.hallIds().isEmpty()) conditions.add(alias + ".hall.id IN :hallIds");
+        return "(" + String.join(" OR ", conditions) + ")";
+    }
+
+    private <T> TypedQuery<T> lierTerritoire(TypedQuery<T> query, Territoire territoire) {
+        if (territoire.estVide()) return query;
+        if (!territoire.marcheeIds().isEmpty()) query.setParameter("marcheeIds", territoire.marcheeIds());
+        if (!territoire.zoneIds().isEmpty()) query.setParameter("zoneIds", territoire.zoneIds());
+        if (!territoire.hallIds().isEmpty()) query.setParameter("hallIds", territoire.hallIds());
+        return query;
+    }
+
+    // Jeton de synchronisation : horodatage du serveur en millisecondes epoch
+    private String encoderJetonSync(LocalDateTime date) {
+        return String.valueOf(date.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    private LocalDateTime decoderJetonSync(String jeton) {
+        if (jeton == null || jeton.isBlank()) return null;
+        try {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(jeton.trim())), ZoneId.systemDefault());
+        } catch (NumberFormatException e) {
+            log.warn("⚠️ Jeton de synchronisation invalide '{}', synchronisation complète", jeton);
+            return null;
+        }
     }
 
     // Méthodes de mapping
@@ -390,6 +905,14 @@ public class SyncService {
 
     }
 
+    private SyncDataResponse.SuppressionData mapSuppressionToData(SyncSuppression suppression) {
+        return new SyncDataResponse.SuppressionData(
+                suppression.getEntityType().name(),
+                suppression.getEntityId(),
+                suppression.getDeletedAt()
+        );
+    }
+
     private SyncDataResponse.SessionData mapSessionToData(Session session) {
 
         return new SyncDataResponse.SessionData(
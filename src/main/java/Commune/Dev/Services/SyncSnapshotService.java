@@ -0,0 +1,122 @@
+package Commune.Dev.Services;
+
+import Commune.Dev.Dtos.SyncDataResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Instantané de synchronisation au format binaire CBOR, avec une empreinte
+ * SHA-256 du contenu servant d'ETag fort pour les requêtes conditionnelles.
+ * L'empreinte du dernier instantané de chaque utilisateur est gardée avec la version des
+ * données (SyncService.versionDonnees) : tant que la version ne change pas, une requête
+ * conditionnelle est tranchée sans relire ni encoder l'instantané.
+ */
+@Service
+@Slf4j
+public class SyncSnapshotService {
+
+    private final SyncService syncService;
+    private final ObjectMapper cborMapper;
+
+    // Dernière empreinte calculée par utilisateur, avec la version des données qu'elle représente
+    private final Map<Long, EmpreinteVersion> empreintes = new ConcurrentHashMap<>();
+
+    public SyncSnapshotService(SyncService syncService, Jackson2ObjectMapperBuilder builder) {
+        this.syncService = syncService;
+        // Même configuration Jackson que le JSON (dates ISO, modules), encodée en CBOR
+        this.cborMapper = builder.createXmlMapper(false).factory(new CBORFactory()).build();
+    }
+
+    /**
+     * Version actuelle des données de l'utilisateur, lue sans construire l'instantané.
+     */
+    public SyncService.VersionSync version(Long userId) {
+        return syncService.versionDonnees(userId);
+    }
+
+    /**
+     * Empreinte du dernier instantané de l'utilisateur si ses données n'ont pas changé depuis, sinon null.
+     */
+    public String empreinteInchangee(Long userId, SyncService.VersionSync version) {
+        EmpreinteVersion connue = empreintes.get(userId);
+        return connue != null && connue.version().equals(version.version()) ? connue.empreinte() : null;
+    }
+
+    /**
+     * Construit l'instantané complet de l'utilisateur et retient son empreinte pour cette version.
+     * La version est lue avant l'instantané : une écriture entre les deux change la version
+     * suivante, l'empreinte retenue n'est donc jamais plus ancienne que la version.
+     * L'horodatage et le jeton sont retirés du contenu (renvoyés à part) et les sections
+     * sont triées par id, pour que deux instantanés identiques donnent les mêmes octets.
+     */
+    public SyncSnapshot construireSnapshot(Long userId, SyncService.VersionSync version) {
+        SyncDataResponse data = syncService.getSyncDataForUser(userId);
+
+        LocalDateTime syncTimestamp = data.getSyncTimestamp();
+        String syncToken = data.getSyncToken();
+        data.setSyncTimestamp(null);
+        data.setSyncToken(null);
+
+        trierParId(data.getMarchees(), SyncDataResponse.MarcheeData::getId);
+        trierParId(data.getZones(), SyncDataResponse.ZoneData::getId);
+        trierParId(data.getHalls(), SyncDataResponse.HallData::getId);
+        trierParId(data.getPlaces(), SyncDataResponse.PlaceData::getId);
+        trierParId(data.getMarchands(), SyncDataResponse.MarchandData::getId);
+        trierParId(data.getPaiements(), SyncDataResponse.PaiementData::getId);
+        trierParId(data.getQuittances(), SyncDataResponse.QuittanceData::getId);
+        trierParId(data.getSessions(), SyncDataResponse.SessionData::getId);
+
+        try {
+            byte[] contenu = cborMapper.writeValueAsBytes(data);
+            String empreinte = HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(contenu));
+
+            empreintes.put(userId, new EmpreinteVersion(version.version(), empreinte));
+            log.info("📦 Instantané CBOR pour l'utilisateur {} : {} octets", userId, contenu.length);
+            return new SyncSnapshot(contenu, empreinte, syncToken, syncTimestamp);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erreur lors de l'encodage CBOR de la synchronisation", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    public byte[] compresserGzip(byte[] contenu) {
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream(Math.max(64, contenu.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(sortie)) {
+            gzip.write(contenu);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erreur lors de la compression gzip", e);
+        }
+        return sortie.toByteArray();
+    }
+
+    private <T, K extends Comparable<K>> void trierParId(List<T> liste, Function<T, K> id) {
+        if (liste != null) {
+            liste.sort(Comparator.comparing(id, Comparator.nullsLast(Comparator.naturalOrder())));
+        }
+    }
+
+    private record EmpreinteVersion(String version, String empreinte) {
+    }
+
+    public record SyncSnapshot(byte[] contenu, String empreinte, String syncToken, LocalDateTime syncTimestamp) {
+    }
+}
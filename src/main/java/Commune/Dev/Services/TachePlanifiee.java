@@ -0,0 +1,28 @@
+package Commune.Dev.Services;
+
+import java.time.Duration;
+
+/**
+ * Tâche planifiée exécutée par TacheService : historique, durée, verrou d'exécution unique
+ * et déclenchement manuel par son nom.
+ */
+public interface TachePlanifiee {
+
+    // Nom unique de la tâche, clé de son verrou et de son historique
+    String nom();
+
+    // Exécute la tâche et retourne le nombre de lignes traitées
+    int executer();
+
+    // Durée du bail d'exécution, renouvelé tous les tiers de bail tant que la tâche tourne :
+    // une exécution EN_COURS non renouvelée depuis plus longtemps est tenue pour interrompue
+    default Duration bail() {
+        return Duration.ofMinutes(30);
+    }
+
+    // Faux pour une tâche fréquente : une exécution réussie sans ligne traitée n'est pas gardée
+    // dans l'historique (elle reste comptée dans les métriques)
+    default boolean historiserSansEffet() {
+        return true;
+    }
+}
@@ -0,0 +1,230 @@
+package Commune.Dev.Services;
+
+import Commune.Dev.Dtos.TacheStatistiquesDTO;
+import Commune.Dev.Models.ExecutionTache;
+import Commune.Dev.Models.ExecutionTache.Declenchement;
+import Commune.Dev.Models.ExecutionTache.Statut;
+import Commune.Dev.Repositories.ExecutionTacheRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Exécution des tâches planifiées : une ligne d'historique par exécution (début, fin, durée,
+ * lignes traitées, erreur). La ligne EN_COURS sert de bail : elle est créée dans une courte
+ * transaction sous verrou consultatif, et tant qu'elle existe la tâche ne redémarre pas, même
+ * sur une autre instance. Pendant l'exécution, le bail est renouvelé tous les tiers de
+ * TachePlanifiee.bail() par un thread dédié ; aucune connexion n'est retenue entre deux
+ * renouvellements. Une ligne EN_COURS non renouvelée depuis plus que le bail est celle d'une
+ * exécution interrompue et passe en ECHEC ; la fin d'une exécution ne réécrit jamais cet ECHEC.
+ * Chaque exécution alimente aussi les métriques Micrometer de la tâche (durée par statut,
+ * exécutions ignorées, lignes traitées), exposées par l'actuator.
+ */
+@Service
+@Slf4j
+public class TacheService {
+
+    private final ExecutionTacheRepository executionTacheRepository;
+    private final ObjectProvider<TachePlanifiee> taches;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor tachesExecutor;
+    private final ThreadPoolTaskScheduler bailTachesScheduler;
+    private final MeterRegistry meterRegistry;
+    private final String instance;
+
+    @Value("${app.taches.retention-jours:30}")
+    private int retentionJours;
+
+    public TacheService(ExecutionTacheRepository executionTacheRepository,
+                        ObjectProvider<TachePlanifiee> taches,
+                        JdbcTemplate jdbcTemplate,
+                        TransactionTemplate transactionTemplate,
+                        @Qualifier("tachesExecutor") ThreadPoolTaskExecutor tachesExecutor,
+                        @Qualifier("bailTachesScheduler") ThreadPoolTaskScheduler bailTachesScheduler,
+                        MeterRegistry meterRegistry) {
+        this.executionTacheRepository = executionTacheRepository;
+        this.taches = taches;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.tachesExecutor = tachesExecutor;
+        this.bailTachesScheduler = bailTachesScheduler;
+        this.meterRegistry = meterRegistry;
+        this.instance = nomInstance();
+    }
+
+    /**
+     * Exécute la tâche si elle ne tourne pas déjà, et enregistre l'exécution.
+     * Une erreur de la tâche est enregistrée et journalisée, pas propagée.
+     */
+    public ExecutionTache executer(TachePlanifiee tache, Declenchement declenchement) {
+        ExecutionTache execution = transactionTemplate.execute(statut -> prendreBail(tache, declenchement));
+        if (execution.getStatut() == Statut.IGNOREE) {
+            return execution;
+        }
+
+        Duration intervalle = tache.bail().dividedBy(3);
+        ScheduledFuture<?> renouvellement = bailTachesScheduler.scheduleAtFixedRate(
+                () -> renouvelerBail(tache, execution), Instant.now().plus(intervalle), intervalle);
+        long depart = System.nanoTime();
+        try {
+            execution.setLignesTraitees(tache.executer());
+            execution.setStatut(Statut.REUSSIE);
+        } catch (RuntimeException e) {
+            String erreur = e.getClass().getSimpleName() + ": " + e.getMessage();
+            execution.setErreur(erreur.length() > 500 ? erreur.substring(0, 500) : erreur);
+            execution.setStatut(Statut.ECHEC);
+            log.error("❌ Tâche {} en échec: {}", tache.nom(), e.getMessage(), e);
+        } finally {
+            renouvellement.cancel(false);
+        }
+        execution.setFinAt(LocalDateTime.now());
+        Duration duree = Duration.ofNanos(System.nanoTime() - depart);
+        execution.setDureeMs(duree.toMillis());
+        enregistrerMetriques(execution, duree);
+
+        if (execution.getStatut() == Statut.REUSSIE) {
+            log.debug("⏱️ Tâche {} : {} lignes en {} ms",
+                    tache.nom(), execution.getLignesTraitees(), execution.getDureeMs());
+            if (execution.getLignesTraitees() == 0 && !tache.historiserSansEffet()) {
+                transactionTemplate.executeWithoutResult(statut -> executionTacheRepository.supprimerEnCours(execution.getId()));
+                return execution;
+            }
+        }
+        Integer ecrites = transactionTemplate.execute(statut -> executionTacheRepository.terminer(execution.getId(),
+                execution.getStatut(), execution.getFinAt(), execution.getDureeMs(),
+                execution.getLignesTraitees(), execution.getErreur()));
+        if (ecrites == null || ecrites == 0) {
+            log.error("❌ Tâche {} : bail perdu pendant l'exécution, résultat non enregistré", tache.nom());
+        }
+        return execution;
+    }
+
+    private void renouvelerBail(TachePlanifiee tache, ExecutionTache execution) {
+        try {
+            Integer renouvele = transactionTemplate.execute(statut ->
+                    executionTacheRepository.renouvelerBail(execution.getId(), LocalDateTime.now()));
+            if (renouvele == null || renouvele == 0) {
+                log.error("❌ Tâche {} : bail perdu, l'exécution a été tenue pour interrompue", tache.nom());
+            }
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Tâche {} : renouvellement du bail en échec: {}", tache.nom(), e.getMessage());
+        }
+    }
+
+    // Le verrou de transaction ne dure que le temps de vérifier et de créer la ligne EN_COURS
+    private ExecutionTache prendreBail(TachePlanifiee tache, Declenchement declenchement) {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(hashtext(?))::text", String.class, "tache:" + tache.nom());
+        LocalDateTime maintenant = LocalDateTime.now();
+        executionTacheRepository.marquerInterrompues(tache.nom(), maintenant.minus(tache.bail()), maintenant);
+
+        if (executionTacheRepository.existsByTacheAndStatut(tache.nom(), Statut.EN_COURS)) {
+            log.warn("⏭️ Tâche {} déjà en cours, exécution ignorée", tache.nom());
+            meterRegistry.counter("taches.ignorees", "tache", tache.nom()).increment();
+            return executionTacheRepository.save(new ExecutionTache(null, tache.nom(), declenchement,
+                    Statut.IGNOREE, instance, maintenant, null, maintenant, 0L, null, null));
+        }
+        return executionTacheRepository.save(new ExecutionTache(null, tache.nom(),
+                declenchement, Statut.EN_COURS, instance, maintenant, maintenant, null, null, null, null));
+    }
+
+    // Durée par tâche et par statut (le nombre d'échecs est le compte du timer ECHEC), lignes traitées
+    private void enregistrerMetriques(ExecutionTache execution, Duration duree) {
+        Timer.builder("taches.execution")
+                .description("Durée des exécutions des tâches planifiées")
+                .tag("tache", execution.getTache())
+                .tag("statut", execution.getStatut().name())
+                .register(meterRegistry)
+                .record(duree);
+        if (execution.getLignesTraitees() != null) {
+            meterRegistry.counter("taches.lignes.traitees", "tache", execution.getTache())
+                    .increment(execution.getLignesTraitees());
+        }
+    }
+
+    /**
+     * Déclenchement manuel : la tâche est exécutée en arrière-plan.
+     * Si elle tourne déjà, l'exécution est enregistrée comme ignorée.
+     */
+    public void declencher(String nom) {
+        TachePlanifiee tache = tache(nom);
+        try {
+            tachesExecutor.execute(() -> executer(tache, Declenchement.MANUEL));
+        } catch (TaskRejectedException e) {
+            throw new IllegalStateException("Trop de tâches lancées manuellement, réessayez plus tard");
+        }
+    }
+
+    // Dernières exécutions d'une tâche
+    public List<ExecutionTache> historique(String nom, int taille) {
+        return executionTacheRepository.findByTacheOrderByDebutAtDescIdDesc(tache(nom).nom(),
+                PageRequest.of(0, Math.max(1, Math.min(taille, 500))));
+    }
+
+    /**
+     * Nombre d'exécutions, échecs, durées et lignes traitées par tâche sur les derniers jours.
+     */
+    public List<TacheStatistiquesDTO> statistiques(int jours) {
+        Map<String, TacheStatistiquesDTO> statistiques = new LinkedHashMap<>();
+        taches.orderedStream().forEach(tache -> statistiques.put(tache.nom(),
+                new TacheStatistiquesDTO(tache.nom(), 0L, 0L, 0L, null, null, 0L, null)));
+
+        for (Object[] ligne : executionTacheRepository.statistiquesDepuis(LocalDateTime.now().minusDays(jours))) {
+            String nom = (String) ligne[0];
+            statistiques.put(nom, new TacheStatistiquesDTO(nom, longOuZero(ligne[1]), longOuZero(ligne[2]),
+                    longOuZero(ligne[3]), ligne[4] == null ? null : Math.round(((Number) ligne[4]).doubleValue()),
+                    (Long) ligne[5], longOuZero(ligne[6]), null));
+        }
+        statistiques.values().forEach(statistique -> statistique.setDerniereExecution(
+                executionTacheRepository.findByTacheOrderByDebutAtDescIdDesc(statistique.getTache(), PageRequest.of(0, 1))
+                        .stream().findFirst().orElse(null)));
+        return new ArrayList<>(statistiques.values());
+    }
+
+    // Tous les jours à 04:30 : purge de l'historique
+    @Scheduled(cron = "0 30 4 * * ?")
+    public void purgerHistorique() {
+        Integer supprimees = transactionTemplate.execute(statut ->
+                executionTacheRepository.deleteDebuteesAvant(LocalDateTime.now().minusDays(retentionJours)));
+        if (supprimees != null && supprimees > 0) {
+            log.info("🧹 {} exécutions de tâches purgées", supprimees);
+        }
+    }
+
+    private TachePlanifiee tache(String nom) {
+        return taches.orderedStream()
+                .filter(tache -> tache.nom().equalsIgnoreCase(nom.trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Tâche inconnue: " + nom));
+    }
+
+    private static long longOuZero(Object valeur) {
+        return valeur == null ? 0L : ((Number) valeur).longValue();
+    }
+
+    private static String nomInstance() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "inconnue";
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package Commune.Dev.Services;
+
+import Commune.Dev.Models.Halls;
+import Commune.Dev.Models.Marchee;
+import Commune.Dev.Models.User;
+import Commune.Dev.Models.Zone;
+import Commune.Dev.Repositories.HallsRepository;
+import Commune.Dev.Repositories.UserRepository;
+import Commune.Dev.Repositories.ZoneRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Calcule et garde en cache le territoire d'un utilisateur : les identifiants des marchés,
+ * zones et halls qu'il couvre (logique en cascade depuis ses affectations). Les places en
+ * sont déduites par requête, via leur marché, zone ou hall.
+ * Le cache est invalidé par UserService (affectations) et par les services de structure
+ * (marchés, zones, halls). Une durée de vie limite l'effet d'une modification non signalée.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TerritoireService {
+
+    private static final long DUREE_VIE_NANOS = Duration.ofMinutes(10).toNanos();
+
+    private final UserRepository userRepository;
+    private final ZoneRepository zoneRepository;
+    private final HallsRepository hallsRepository;
+
+    private final Map<Long, Territoire> cache = new ConcurrentHashMap<>();
+
+    // Incrémentée à chaque invalidation : un calcul commencé avant n'est pas mis en cache
+    private final AtomicLong generation = new AtomicLong();
+
+    @Transactional(readOnly = true)
+    public Territoire resoudre(Long userId) {
+        Territoire enCache = cache.get(userId);
+        if (enCache != null && !enCache.estExpire()) {
+            return enCache;
+        }
+
+        long generationAuDepart = generation.get();
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+        Territoire territoire = calculer(user);
+
+        if (generation.get() == generationAuDepart) {
+            cache.put(userId, territoire);
+        }
+        return territoire;
+    }
+
+    /**
+     * Affectations d'un utilisateur modifiées.
+     */
+    public void invaliderUtilisateur(Long userId) {
+        invalider(() -> cache.remove(userId));
+    }
+
+    /**
+     * Structure modifiée (marché, zone ou hall créé, déplacé ou supprimé) :
+     * tous les territoires peuvent être touchés.
+     */
+    public void invaliderTout() {
+        invalider(cache::clear);
+    }
+
+    // Invalidation immédiate, puis de nouveau après la fin de la transaction en cours
+    // pour écarter un calcul concurrent fait sur les données d'avant le commit
+    private void invalider(Runnable action) {
+        generation.incrementAndGet();
+        action.run();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private Territoire calculer(User user) {
+        Set<Long> marcheeIds = new HashSet<>();
+        Set<Long> zoneIds = new HashSet<>();
+        Set<Long> hallIds = new HashSet<>();
+
+        // A. Marchés assignés : toutes leurs zones et leurs halls directs
+        if (user.getMarchees() != null && !user.getMarchees().isEmpty()) {
+            marcheeIds.addAll(user.getMarchees().stream()
+                    .map(Marchee::getId)
+                    .collect(Collectors.toSet()));
+            zoneIds.addAll(zoneRepository.findIdsByMarcheeIdIn(marcheeIds));
+            hallIds.addAll(hallsRepository.findIdsByMarcheeIdIn(marcheeIds));
+        }
+
+        // B. Zones assignées directement : tous leurs halls
+        if (user.getZones() != null && !user.getZones().isEmpty()) {
+            Set<Long> directZoneIds = user.getZones().stream()
+                    .map(Zone::getId)
+                    .collect(Collectors.toSet());
+            zoneIds.addAll(directZoneIds);
+            hallIds.addAll(hallsRepository.findIdsByZoneIdIn(directZoneIds));
+        }
+
+        // C. Halls assignés directement
+        if (user.getHalls() != null && !user.getHalls().isEmpty()) {
+            hallIds.addAll(user.getHalls().stream()
+                    .map(Halls::getId)
+                    .collect(Collectors.toSet()));
+        }
+
+        log.info("📊 Territoire de l'utilisateur {} - Marchés: {}, Zones: {}, Halls: {}",
+                user.getId(), marcheeIds.size(), zoneIds.size(), hallIds.size());
+
+        return new Territoire(versTableau(marcheeIds), versTableau(zoneIds), versTableau(hallIds));
+    }
+
+    private static int[] versTableau(Collection<? extends Number> ids) {
+        int[] tableau = ids.stream().mapToInt(Number::intValue).toArray();
+        Arrays.sort(tableau);
+        return tableau;
+    }
+
+    /**
+     * Territoire immuable, stocké sous forme de tableaux d'entiers triés.
+     */
+    public static final class Territoire {
+        private final int[] marcheeIds;
+        private final int[] zoneIds;
+        private final int[] hallIds;
+        private final long calculeA = System.nanoTime();
+
+        Territoire(int[] marcheeIds, int[] zoneIds, int[] hallIds) {
+            this.marcheeIds = marcheeIds;
+            this.zoneIds = zoneIds;
+            this.hallIds = hallIds;
+        }
+
+        public Set<Long> marcheeIds() {
+            return versSet(marcheeIds);
+        }
+
+        public Set<Long> zoneIds() {
+            return versSet(zoneIds);
+        }
+
+        public Set<Long> hallIds() {
+            return versSet(hallIds);
+        }
+
+        public boolean contientMarchee(long marcheeId) {
+            return Arrays.binarySearch(marcheeIds, (int) marcheeId) >= 0;
+        }
+
+        public boolean contientZone(long zoneId) {
+            return Arrays.binarySearch(zoneIds, (int) zoneId) >= 0;
+        }
+
+        public boolean contientHall(long hallId) {
+            return Arrays.binarySearch(hallIds, (int) hallId) >= 0;
+        }
+
+        public boolean estVide() {
+            return marcheeIds.length == 0 && zoneIds.length == 0 && hallIds.length == 0;
+        }
+
+        boolean estExpire() {
+            return System.nanoTime() - calculeA > DUREE_VIE_NANOS;
+        }
+
+        private static Set<Long> versSet(int[] ids) {
+            return Arrays.stream(ids).mapToLong(i -> i).boxed().collect(Collectors.toSet());
+        }
+    }
+}
@@ -33,6 +33,7 @@ public class UserService {
     private final EmailService emailService;
     private final AuditService auditService;
     private final NotificationService notificationService;
+    private final TerritoireService territoireService;
 
 
 
@@ -260,6 +261,7 @@ public class UserService {
 
         user.setUpdatedAt(LocalDateTime.now());
         User savedUser = userRepository.save(user);
+        territoireService.invaliderUtilisateur(userId);
 
         // Envoyer notification et email si des modifications ont été faites
         if (modifications.length() > 0) {
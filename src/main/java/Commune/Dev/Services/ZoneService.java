@@ -26,9 +26,12 @@ public class ZoneService {
     private PlaceService placeService;
     @Autowired
     private  ZoneMapper zoneMapper;
+    @Autowired
+    private TerritoireService territoireService;
 
     // =================== CREATE ===================
     public Zone save(Zone zone) {
+        territoireService.invaliderTout();
         return zoneRepository.save(zone);
     }
 
@@ -44,6 +47,7 @@ public class ZoneService {
         zone.setMarchee(marchee);
 
         Zone savedZone = zoneRepository.save(zone);
+        territoireService.invaliderTout();
 
         // Convertir en réponse
         ZoneResponse response = new ZoneResponse();
@@ -56,6 +60,7 @@ public class ZoneService {
     }
 
     public List<Zone> saveAll(List<Zone> zones) {
+        territoireService.invaliderTout();
         return zoneRepository.saveAll(zones);
     }
 
@@ -214,6 +219,7 @@ public class ZoneService {
             throw new RuntimeException("Zone non trouvée avec l'id: " + id);
         }
         zoneRepository.deleteById(Math.toIntExact(id));
+        territoireService.invaliderTout();
     }
 
     public Optional<Zone> findById(Integer id) {
@@ -252,26 +258,32 @@ public class ZoneService {
     // =================== DELETE ===================
     public void deleteById(Integer id) {
         zoneRepository.deleteById(id);
+        territoireService.invaliderTout();
     }
 
     public void delete(Zone zone) {
         zoneRepository.delete(zone);
+        territoireService.invaliderTout();
     }
 
     public void deleteAll(List<Zone> zones) {
         zoneRepository.deleteAll(zones);
+        territoireService.invaliderTout();
     }
 
     public void deleteAllById(List<Integer> ids) {
         zoneRepository.deleteAllById(ids);
+        territoireService.invaliderTout();
     }
 
     public void deleteByMarcheeId(Integer marcheeId) {
         zoneRepository.deleteByMarcheeId(marcheeId);
+        territoireService.invaliderTout();
     }
 
     public void deleteAll() {
         zoneRepository.deleteAll();
+        territoireService.invaliderTout();
     }
 
     // =================== CUSTOM BUSINESS METHODS ===================
@@ -0,0 +1,223 @@
+package Commune.Dev.Benchmark;
+
+import Commune.Dev.Dtos.PaiementRequestDTO;
+import Commune.Dev.Models.Paiement;
+import Commune.Dev.Services.ContratMonitoringService;
+import Commune.Dev.Services.MarcheeStatServices;
+import Commune.Dev.Services.PaiementService;
+import Commune.Dev.Services.SyncService;
+import Commune.Dev.Services.VisualisationOrdoService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * Mesures de charge sur la base configurée (DATABASE_URL) : synchronisation,
+ * paiement unitaire, analyse des contrats et statistiques, pour chaque taille de jeu.
+ *
+ * Désactivé par défaut, à lancer explicitement :
+ *   mvn test -Dtest=ChargeCommuneBenchmarkTest -Dbenchmark=true -Dbenchmark.tailles=petit,moyen
+ *
+ * Les requêtes sont comptées au niveau du DataSource (JPA et JdbcTemplate confondus) et les
+ * tâches planifiées sont coupées pendant les mesures, pour ne compter que l'opération mesurée.
+ *
+ * Les données générées ne sont pas supprimées : utiliser une base dédiée.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "app.taches.planification=false"
+})
+class ChargeCommuneBenchmarkTest {
+
+    // Requêtes exécutées sur toutes les connexions du pool
+    private static final AtomicLong REQUETES = new AtomicLong();
+
+    private static final int ECHAUFFEMENT = 3;
+
+    @Autowired
+    private SyncService syncService;
+
+    @Autowired
+    private PaiementService paiementService;
+
+    @Autowired
+    private ContratMonitoringService contratMonitoringService;
+
+    @Autowired
+    private MarcheeStatServices marcheeStatServices;
+
+    @Autowired
+    private VisualisationOrdoService visualisationOrdoService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void mesurerParTaille() {
+        int iterations = Integer.getInteger("benchmark.iterations", 20);
+        String tailles = System.getProperty("benchmark.tailles", "petit");
+
+        JeuDeDonneesCommune generateur = new JeuDeDonneesCommune(entityManager, transactionManager);
+
+        for (String nom : tailles.split(",")) {
+            JeuDeDonneesCommune.Taille taille = JeuDeDonneesCommune.Taille.depuisNom(nom);
+
+            long debut = System.nanoTime();
+            JeuDeDonneesCommune.JeuGenere jeu = generateur.generer(taille, ECHAUFFEMENT + iterations);
+            System.out.printf("%n=== Jeu %s : %d places, %d paiements, généré en %d ms ===%n",
+                    taille.nom(), taille.nombrePlaces(), jeu.nombrePaiements(),
+                    (System.nanoTime() - debut) / 1_000_000);
+
+            Long userId = jeu.percepteurId();
+            String depuisUneHeure = String.valueOf(System.currentTimeMillis() - 3_600_000L);
+
+            mesurer("sync complète", iterations,
+                    () -> syncService.getSyncDataForUser(userId));
+            mesurer("sync différentielle", iterations,
+                    () -> syncService.getSyncDataForUser(userId, depuisUneHeure));
+            mesurer("sync parallèle", iterations,
+                    () -> syncService.getSyncDataForUserParallele(userId, null, Map.of()));
+
+            Iterator<String> quittances = jeu.quittancesDisponibles().iterator();
+            Iterator<Integer> marchands = jeu.marchandIds().iterator();
+            mesurer("paiement droit de place", iterations,
+                    () -> paiementService.effectuerPaiement(requetePaiement(jeu, marchands.next(), quittances.next())));
+
+            mesurer("analyse des contrats", iterations,
+                    () -> contratMonitoringService.analyserContrats());
+            mesurer("stats marchés", iterations,
+                    () -> marcheeStatServices.getAllMarcheesStats());
+            mesurer("visualisation ordonnateur", iterations,
+                    () -> visualisationOrdoService.getVisualisationData());
+        }
+    }
+
+    private PaiementRequestDTO requetePaiement(JeuDeDonneesCommune.JeuGenere jeu, Integer marchandId, String quittance) {
+        PaiementRequestDTO request = new PaiementRequestDTO();
+        request.setTypePaiement(Paiement.Typepaiement.droit_place);
+        request.setModePaiement("cash");
+        request.setIdMarchand(marchandId);
+        request.setNumeroQuittance(quittance);
+        request.setIdAgent(jeu.percepteurId());
+        request.setSessionId(jeu.sessionId());
+        return request;
+    }
+
+    private void mesurer(String libelle, int iterations, Runnable operation) {
+        for (int i = 0; i < ECHAUFFEMENT; i++) {
+            operation.run();
+        }
+
+        long[] durees = new long[iterations];
+        List<Long> requetes = new ArrayList<>(iterations);
+        for (int i = 0; i < iterations; i++) {
+            long requetesAvant = REQUETES.get();
+            long debut = System.nanoTime();
+            operation.run();
+            durees[i] = System.nanoTime() - debut;
+            requetes.add(REQUETES.get() - requetesAvant);
+        }
+
+        Arrays.sort(durees);
+        System.out.printf("%-28s p50=%7.1f ms  p95=%7.1f ms  p99=%7.1f ms  max=%7.1f ms  requêtes/appel=%.1f%n",
+                libelle, ms(percentile(durees, 50)), ms(percentile(durees, 95)), ms(percentile(durees, 99)),
+                ms(durees[durees.length - 1]),
+                requetes.stream().mapToLong(Long::longValue).average().orElse(0));
+    }
+
+    /**
+     * Enveloppe le DataSource : chaque exécution d'instruction (y compris un lot JDBC, compté une fois)
+     * incrémente REQUETES, quelle que soit la couche qui l'envoie.
+     */
+    @TestConfiguration
+    static class ComptageRequetes {
+
+        private static final Set<String> EXECUTIONS = Set.of(
+                "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+        @Bean
+        static BeanPostProcessor compteurRequetes() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource
+                            ? envelopper(dataSource, DataSource.class, ComptageRequetes::envelopperConnexion)
+                            : bean;
+                }
+            };
+        }
+
+        private static Object envelopperConnexion(Object resultat) {
+            return resultat instanceof Connection connexion
+                    ? envelopper(connexion, Connection.class, ComptageRequetes::envelopperInstruction)
+                    : resultat;
+        }
+
+        private static Object envelopperInstruction(Object resultat) {
+            if (resultat instanceof CallableStatement instruction) {
+                return envelopper(instruction, CallableStatement.class, r -> r);
+            }
+            if (resultat instanceof PreparedStatement instruction) {
+                return envelopper(instruction, PreparedStatement.class, r -> r);
+            }
+            if (resultat instanceof Statement instruction) {
+                return envelopper(instruction, Statement.class, r -> r);
+            }
+            return resultat;
+        }
+
+        // Proxy qui délègue tout à la cible, compte les exécutions et enveloppe les objets retournés
+        private static <T> T envelopper(T cible, Class<T> type, UnaryOperator<Object> suite) {
+            InvocationHandler handler = (proxy, methode, arguments) -> {
+                if (EXECUTIONS.contains(methode.getName())) {
+                    REQUETES.incrementAndGet();
+                }
+                try {
+                    return suite.apply(methode.invoke(cible, arguments));
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            };
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+        }
+    }
+
+    private static long percentile(long[] tries, int rang) {
+        int index = (int) Math.ceil(rang / 100.0 * tries.length) - 1;
+        return tries[Math.max(0, Math.min(index, tries.length - 1))];
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,262 @@
+package Commune.Dev.Benchmark;
+
+import Commune.Dev.Models.*;
+import jakarta.persistence.EntityManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Générateur de communes synthétiques pour les mesures de performance :
+ * marchés × zones × halls × places, un marchand et un contrat mensuel par place,
+ * plusieurs années de paiements de droit de place, et une plage de quittances
+ * avec des quittances encore disponibles pour les paiements mesurés.
+ * Chaque jeu est préfixé pour pouvoir en créer plusieurs dans la même base.
+ */
+public class JeuDeDonneesCommune {
+
+    public record Taille(String nom, int marchees, int zonesParMarchee, int hallsParZone,
+                         int placesParHall, int anneesPaiements) {
+
+        public static final Taille PETIT = new Taille("petit", 2, 3, 2, 10, 1);
+        public static final Taille MOYEN = new Taille("moyen", 5, 4, 3, 20, 2);
+        public static final Taille GRAND = new Taille("grand", 10, 5, 4, 25, 3);
+
+        public static Taille depuisNom(String nom) {
+            return switch (nom.trim().toLowerCase()) {
+                case "petit" -> PETIT;
+                case "moyen" -> MOYEN;
+                case "grand" -> GRAND;
+                default -> throw new IllegalArgumentException("Taille de jeu de données inconnue: " + nom);
+            };
+        }
+
+        public int nombrePlaces() {
+            return marchees * zonesParMarchee * hallsParZone * placesParHall;
+        }
+    }
+
+    public record JeuGenere(Taille taille, Long percepteurId, Long sessionId,
+                            List<Integer> marchandIds, List<String> quittancesDisponibles,
+                            int nombrePaiements) {
+    }
+
+    private static final int TAILLE_LOT = 1000;
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaction;
+    private final Random aleatoire = new Random(42);
+
+    private int enAttente;
+
+    public JeuDeDonneesCommune(EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Crée un jeu complet dans une transaction. quittancesLibres : quittances DISPONIBLES
+     * réservées aux paiements effectués pendant la mesure.
+     */
+    public JeuGenere generer(Taille taille, int quittancesLibres) {
+        return transaction.execute(status -> genererDansTransaction(taille, quittancesLibres));
+    }
+
+    private JeuGenere genererDansTransaction(Taille taille, int quittancesLibres) {
+        String prefixe = "BENCH-" + taille.nom() + "-" + System.currentTimeMillis();
+        LocalDate debutContrats = LocalDate.now().minusYears(taille.anneesPaiements()).withDayOfMonth(1);
+
+        Categorie categorie = categorie(Categorie.CategorieNom.A, new BigDecimal("15000"));
+        DroitAnnuel droitAnnuel = new DroitAnnuel();
+        droitAnnuel.setDescription(prefixe);
+        droitAnnuel.setMontant(new BigDecimal("50000"));
+        droitAnnuel.setDateCreation(LocalDateTime.now());
+        persister(droitAnnuel);
+
+        List<Marchee> marchees = new ArrayList<>();
+        List<Place> places = new ArrayList<>();
+        for (int m = 0; m < taille.marchees(); m++) {
+            Marchee marchee = new Marchee();
+            marchee.setNom(prefixe + "-M" + m);
+            marchee.setAdresse("Adresse " + m);
+            marchee.setIsActif(true);
+            persister(marchee);
+            marchees.add(marchee);
+
+            for (int z = 0; z < taille.zonesParMarchee(); z++) {
+                Zone zone = new Zone();
+                zone.setNom(marchee.getNom() + "-Z" + z);
+                zone.setMarchee(marchee);
+                persister(zone);
+
+                for (int h = 0; h < taille.hallsParZone(); h++) {
+                    Halls hall = new Halls();
+                    hall.setNom(zone.getNom() + "-H" + h);
+                    hall.setNumero(h);
+                    hall.setCodeUnique(hall.getNom());
+                    hall.setMarchee(marchee);
+                    hall.setZone(zone);
+                    hall.setNbrPlace((long) taille.placesParHall());
+                    persister(hall);
+
+                    for (int p = 0; p < taille.placesParHall(); p++) {
+                        Place place = new Place();
+                        place.setNom(hall.getNom() + "-P" + p);
+                        place.setMarchee(marchee);
+                        place.setZone(zone);
+                        place.setHall(hall);
+                        place.setCategorie(categorie);
+                        place.setDroitAnnuel(droitAnnuel);
+                        place.setIsOccuped(true);
+                        place.setDateDebutOccupation(debutContrats.atStartOfDay());
+                        persister(place);
+                        places.add(place);
+                    }
+                }
+            }
+        }
+
+        User percepteur = new User();
+        percepteur.setEmail(prefixe.toLowerCase() + "@bench.local");
+        percepteur.setPassword("bench");
+        percepteur.setNom("Percepteur");
+        percepteur.setPrenom(prefixe);
+        percepteur.setRole(Roletype.PERCEPTEUR);
+        percepteur.setMarchees(marchees);
+        persister(percepteur);
+
+        Session session = new Session();
+        session.setNomSession(prefixe);
+        session.setType(Session.SessionType.PERCEPTEUR);
+        session.setUser(percepteur);
+        session.setStartTime(LocalDateTime.now());
+        session.setStatus(Session.SessionStatus.OUVERTE);
+        session.setTotalCollected(BigDecimal.ZERO);
+        persister(session);
+
+        int moisParContrat = taille.anneesPaiements() * 12;
+        int totalQuittances = places.size() * moisParContrat + quittancesLibres;
+
+        QuittancePlage plage = new QuittancePlage();
+        plage.setPercepteur(percepteur);
+        plage.setDebut(prefixe + "-Q0");
+        plage.setFin(prefixe + "-Q" + (totalQuittances - 1));
+        plage.setNombreQuittance(totalQuittances);
+        plage.setQuittanceRestant(quittancesLibres);
+        plage.setCreatedAt(LocalDateTime.now());
+        persister(plage);
+
+        List<Integer> marchandIds = new ArrayList<>();
+        int numeroQuittance = 0;
+        int nombrePaiements = 0;
+
+        for (int i = 0; i < places.size(); i++) {
+            Place place = places.get(i);
+
+            Marchands marchand = new Marchands();
+            marchand.setNom(prefixe + "-Marchand" + i);
+            marchand.setPrenom("Test");
+            marchand.setNumCIN(prefixe + "-CIN" + i);
+            marchand.setActivite("Commerce");
+            marchand.setStatut(StatutMarchands.A_JOUR);
+            marchand.setEstEndette(false);
+            persister(marchand);
+            marchandIds.add(marchand.getId());
+
+            place.setMarchands(marchand);
+
+            Contrat contrat = new Contrat();
+            contrat.setIdPlace(place.getId());
+            contrat.setIdMarchand(marchand.getId());
+            contrat.setIsActif(true);
+            contrat.setNom(prefixe + "-C" + i);
+            contrat.setDateOfStart(debutContrats);
+            contrat.setDateOfCreation(debutContrats.atStartOfDay());
+            contrat.setCategorieId(categorie.getId());
+            contrat.setDroitAnnuelId(droitAnnuel.getId());
+            contrat.setFrequencePaiement(FrequencePaiement.MENSUEL);
+            persister(contrat);
+
+            // Historique mensuel, avec quelques mois impayés pour varier les statuts
+            int moisPayes = moisParContrat - aleatoire.nextInt(4);
+            for (int mois = 0; mois < moisPayes; mois++) {
+                LocalDate dateDebut = debutContrats.plusMonths(mois);
+
+                Quittance quittance = quittance(prefixe, numeroQuittance++, percepteur, plage, StatusQuittance.UTILISE);
+                quittance.setDateUtilisation(dateDebut.atTime(9, 0));
+                persister(quittance);
+
+                Paiement paiement = new Paiement();
+                paiement.setMontant(categorie.getMontant());
+                paiement.setTypePaiement(Paiement.Typepaiement.droit_place);
+                paiement.setModePaiement(Paiement.ModePaiement.cash);
+                paiement.setDatePaiement(dateDebut.atTime(9, 0));
+                paiement.setDateDebut(dateDebut);
+                paiement.setDateFin(dateDebut.plusMonths(1).minusDays(1));
+                paiement.setMoisdePaiement("Mois " + (mois + 1));
+                paiement.setMotif("Paiement du " + (mois + 1) + "ᵉ mois");
+                paiement.setNomMarchands(marchand.getNom());
+                paiement.setMarchand(marchand);
+                paiement.setPlace(place);
+                paiement.setAgent(percepteur);
+                paiement.setSession(session);
+                paiement.setQuittance(quittance);
+                persister(paiement);
+                nombrePaiements++;
+            }
+        }
+
+        List<String> quittancesDisponibles = new ArrayList<>();
+        for (int i = 0; i < quittancesLibres; i++) {
+            Quittance quittance = quittance(prefixe, numeroQuittance++, percepteur, plage, StatusQuittance.DISPONIBLE);
+            persister(quittance);
+            quittancesDisponibles.add(quittance.getNom());
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        return new JeuGenere(taille, percepteur.getId(), session.getId(),
+                marchandIds, quittancesDisponibles, nombrePaiements);
+    }
+
+    private Categorie categorie(Categorie.CategorieNom nom, BigDecimal montant) {
+        List<Categorie> existantes = entityManager
+                .createQuery("SELECT c FROM Categorie c WHERE c.nom = :nom", Categorie.class)
+                .setParameter("nom", nom)
+                .getResultList();
+        if (!existantes.isEmpty()) {
+            return existantes.get(0);
+        }
+        Categorie categorie = new Categorie();
+        categorie.setNom(nom);
+        categorie.setMontant(montant);
+        categorie.setDateCreation(LocalDateTime.now());
+        persister(categorie);
+        return categorie;
+    }
+
+    private Quittance quittance(String prefixe, int numero, User percepteur, QuittancePlage plage, StatusQuittance etat) {
+        Quittance quittance = new Quittance();
+        quittance.setNom(prefixe + "-Q" + numero);
+        quittance.setPercepteurId(percepteur.getId());
+        quittance.setQuittancePlage(plage);
+        quittance.setEtat(etat);
+        return quittance;
+    }
+
+    // Les entités restent gérées jusqu'à la fin : elles sont encore référencées par la suite
+    // de la génération, seul le flush est fait par lots
+    private void persister(Object entite) {
+        entityManager.persist(entite);
+        if (++enAttente % TAILLE_LOT == 0) {
+            entityManager.flush();
+        }
+    }
+}